@@ -1,14 +1,25 @@
 package org.example.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
+import java.net.URI;
+import java.time.Duration;
+
 @Configuration
 public class AwsConfig {
     
@@ -21,39 +32,81 @@ public class AwsConfig {
     @Value("${aws.region:us-east-1}")
     private String region;
     
+    // Custom endpoint for S3-compatible stores (MinIO, LocalStack, ...); they usually need path-style access
+    @Value("${aws.s3.endpoint:}")
+    private String endpoint;
+    
+    @Value("${aws.s3.path-style-access:false}")
+    private boolean pathStyleAccess;
+    
+    @Value("${aws.s3.async.max-concurrency:200}")
+    private int asyncMaxConcurrency;
+    
+    @Value("${aws.s3.async.max-pending-acquires:10000}")
+    private int asyncMaxPendingAcquires;
+    
+    @Value("${aws.s3.async.connection-acquire-timeout-ms:60000}")
+    private long asyncConnectionAcquireTimeoutMs;
+    
     @Bean
     public S3Client s3Client() {
-        if (accessKeyId != null && !accessKeyId.isEmpty() && 
-            secretKey != null && !secretKey.isEmpty()) {
-            // Use provided credentials
-            AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKeyId, secretKey);
-            return S3Client.builder()
-                .region(Region.of(region))
-                .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
-                .build();
-        } else {
-            // Use default credential provider chain (IAM roles, environment variables, etc.)
-            return S3Client.builder()
-                .region(Region.of(region))
-                .build();
+        S3ClientBuilder builder = S3Client.builder()
+            .region(Region.of(region))
+            .credentialsProvider(credentialsProvider())
+            .serviceConfiguration(s3Configuration());
+        if (hasEndpoint()) {
+            builder.endpointOverride(URI.create(endpoint));
         }
+        return builder.build();
     }
     
     @Bean
     public S3Presigner s3Presigner() {
+        S3Presigner.Builder builder = S3Presigner.builder()
+            .region(Region.of(region))
+            .credentialsProvider(credentialsProvider())
+            .serviceConfiguration(s3Configuration());
+        if (hasEndpoint()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+    
+    // Netty's connection pool size caps in-flight requests; acquires beyond it queue inside the client
+    @Bean
+    @ConditionalOnProperty(name = "aws.region")
+    public S3AsyncClient s3AsyncClient() {
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+            .region(Region.of(region))
+            .credentialsProvider(credentialsProvider())
+            .serviceConfiguration(s3Configuration())
+            .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(asyncMaxConcurrency)
+                .maxPendingConnectionAcquires(asyncMaxPendingAcquires)
+                .connectionAcquisitionTimeout(Duration.ofMillis(asyncConnectionAcquireTimeoutMs)));
+        if (hasEndpoint()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+    
+    private AwsCredentialsProvider credentialsProvider() {
         if (accessKeyId != null && !accessKeyId.isEmpty() && 
             secretKey != null && !secretKey.isEmpty()) {
             // Use provided credentials
-            AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKeyId, secretKey);
-            return S3Presigner.builder()
-                .region(Region.of(region))
-                .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
-                .build();
-        } else {
-            // Use default credential provider chain
-            return S3Presigner.builder()
-                .region(Region.of(region))
-                .build();
+            return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKeyId, secretKey));
         }
+        // Use default credential provider chain (IAM roles, environment variables, etc.)
+        return DefaultCredentialsProvider.create();
+    }
+    
+    private S3Configuration s3Configuration() {
+        return S3Configuration.builder()
+            .pathStyleAccessEnabled(pathStyleAccess)
+            .build();
+    }
+    
+    private boolean hasEndpoint() {
+        return endpoint != null && !endpoint.isEmpty();
     }
-} 
\ No newline at end of file
+}
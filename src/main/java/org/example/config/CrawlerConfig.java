@@ -0,0 +1,51 @@
+package org.example.config;
+
+import org.example.service.crawler.SimHashIndex;
+import org.example.service.crawler.UrlSeenSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(name = "web.crawler.enabled", havingValue = "true", matchIfMissing = true)
+public class CrawlerConfig {
+    
+    @Value("${web.crawler.dedup.initial-urls:65536}")
+    private int initialUrls;
+    
+    @Value("${web.crawler.dedup.max-urls:100000000}")
+    private int maxUrls;
+    
+    @Value("${web.crawler.dedup.file:}")
+    private String dedupFile;
+    
+    @Value("${web.crawler.near-dup.max-distance:3}")
+    private int nearDuplicateDistance;
+    
+    @Value("${web.crawler.near-dup.expected-pages:100000}")
+    private int expectedPages;
+    
+    @Value("${web.crawler.near-dup.max-pages:1000000}")
+    private int maxPages;
+    
+    @Value("${web.crawler.near-dup.max-age-ms:604800000}")
+    private long maxAgeMs;
+    
+    @Bean(destroyMethod = "close")
+    public UrlSeenSet urlSeenSet() {
+        if (dedupFile != null && !dedupFile.isEmpty()) {
+            // Memory-mapped file, a restarted crawl resumes with the URLs it has already seen
+            return new UrlSeenSet(initialUrls, maxUrls, Path.of(dedupFile));
+        } else {
+            return new UrlSeenSet(initialUrls, maxUrls, null);
+        }
+    }
+    
+    @Bean
+    public SimHashIndex simHashIndex() {
+        return new SimHashIndex(nearDuplicateDistance, expectedPages, maxPages, maxAgeMs);
+    }
+}
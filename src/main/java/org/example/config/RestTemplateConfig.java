@@ -1,14 +1,36 @@
 package org.example.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class RestTemplateConfig {
     
+    // Sent on every fetch, including robots.txt; its leading token is what robots.txt groups match
+    @Value("${web.crawler.user-agent:cloud-strategy-crawler}")
+    private String userAgent;
+    
+    @Value("${web.crawler.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+    
+    // Longest wait for the next bytes of a response; fetch threads block in reads and ignore interrupts
+    @Value("${web.crawler.read-timeout-ms:15000}")
+    private int readTimeoutMs;
+    
     @Bean
     public RestTemplate restTemplate() {
-        return new RestTemplate();
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            request.getHeaders().set(HttpHeaders.USER_AGENT, userAgent);
+            return execution.execute(request, body);
+        });
+        return restTemplate;
     }
 } 
\ No newline at end of file
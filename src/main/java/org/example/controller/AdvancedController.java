@@ -1,17 +1,65 @@
 package org.example.controller;
 
 import org.example.service.*;
+import org.example.service.aws.BulkOperationReport;
+import org.example.service.aws.CircuitBreaker;
+import org.example.service.aws.CompressionCodec;
+import org.example.service.aws.S3ObjectCache;
+import org.example.service.catalog.CatalogIngestionService;
+import org.example.service.catalog.PriceHistoryStore;
+import org.example.service.catalog.ProductCacheService;
+import org.example.service.catalog.ProductFacetService;
+import org.example.service.catalog.ProductImportJob;
+import org.example.service.catalog.ProductImportService;
+import org.example.service.catalog.ProductQueryService;
+import org.example.service.search.ProductSearchIndex;
+import org.example.document.ProductSnapshot;
+import org.example.entity.User;
+import org.example.service.crawler.BatchCrawlService;
+import org.example.service.crawler.CrawlerPageCache;
+import org.example.service.crawler.ExtractionRuleEngine;
+import org.example.service.crawler.RecrawlScheduler;
+import org.example.service.crawler.SiteExtractionRules;
+import org.example.service.storage.BlobInfo;
+import org.example.service.storage.BlobStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Window;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -27,12 +75,57 @@ public class AdvancedController {
     @Autowired(required = false)
     private WebCrawlerService webCrawlerService;
     
+    @Autowired(required = false)
+    private BatchCrawlService batchCrawlService;
+    
+    @Autowired(required = false)
+    private CrawlerPageCache crawlerPageCache;
+    
+    @Autowired(required = false)
+    private ExtractionRuleEngine extractionRuleEngine;
+    
+    @Autowired(required = false)
+    private RecrawlScheduler recrawlScheduler;
+    
+    @Autowired(required = false)
+    private CatalogIngestionService catalogIngestionService;
+    
+    @Autowired(required = false)
+    private ProductImportService productImportService;
+    
+    @Autowired(required = false)
+    private PriceHistoryStore priceHistoryStore;
+    
+    @Autowired(required = false)
+    private ProductSearchIndex productSearchIndex;
+    
+    @Autowired(required = false)
+    private ProductQueryService productQueryService;
+    
+    @Autowired(required = false)
+    private ProductFacetService productFacetService;
+    
+    @Autowired(required = false)
+    private ProductCacheService productCacheService;
+    
+    @Autowired(required = false)
+    private UserQueryService userQueryService;
+    
     @Autowired(required = false)
     private AwsService awsService;
     
+    @Autowired(required = false)
+    private S3ObjectCache s3ObjectCache;
+    
+    @Autowired(required = false)
+    private BlobStore blobStore;
+    
     @Autowired(required = false)
     private SimpMessagingTemplate messagingTemplate;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     // Redis Operations
     @PostMapping("/redis/set")
     public ResponseEntity<Map<String, Object>> setRedisValue(@RequestBody Map<String, String> request) {
@@ -125,29 +218,14 @@ public class AdvancedController {
             try {
                 String url = request.get("url");
                 String operation = request.get("operation");
+                boolean streaming = Boolean.parseBoolean(request.get("streaming"));
                 
-                switch (operation) {
-                    case "links":
-                        List<String> links = webCrawlerService.extractLinks(url);
-                        response.put("data", links);
-                        break;
-                    case "images":
-                        List<String> images = webCrawlerService.extractImages(url);
-                        response.put("data", images);
-                        break;
-                    case "text":
-                        String text = webCrawlerService.extractText(url);
-                        response.put("data", text);
-                        break;
-                    case "metadata":
-                        Map<String, String> metadata = webCrawlerService.extractMetaData(url);
-                        response.put("data", metadata);
-                        break;
-                    default:
-                        response.put("error", "Unknown operation: " + operation);
-                        return ResponseEntity.badRequest().body(response);
+                if (!webCrawlerService.isSupportedOperation(operation)) {
+                    response.put("error", "Unknown operation: " + operation);
+                    return ResponseEntity.badRequest().body(response);
                 }
                 
+                response.put("data", webCrawlerService.extract(url, operation, streaming));
                 response.put("success", true);
                 response.put("url", url);
             } catch (Exception e) {
@@ -162,61 +240,1294 @@ public class AdvancedController {
         return ResponseEntity.ok(response);
     }
     
-    // AWS S3 Operations
-    @PostMapping("/aws/upload")
-    public ResponseEntity<Map<String, Object>> uploadToS3(@RequestBody Map<String, Object> request) {
+    // Streams one NDJSON line per URL as soon as that URL completes
+    @PostMapping("/crawler/extract/batch")
+    public ResponseEntity<StreamingResponseBody> crawlUrlBatch(@RequestBody Map<String, Object> request) {
         Map<String, Object> response = new HashMap<>();
         
-        if (awsService != null) {
+        if (batchCrawlService == null || webCrawlerService == null) {
+            response.put("success", false);
+            response.put("message", "Web crawler service not available");
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> writeNdjsonLine(out, response));
+        }
+        
+        @SuppressWarnings("unchecked")
+        List<String> urls = (List<String>) request.get("urls");
+        @SuppressWarnings("unchecked")
+        List<String> operations = request.get("operations") != null
+            ? (List<String>) request.get("operations")
+            : List.of(String.valueOf(request.getOrDefault("operation", "links")));
+        boolean streaming = Boolean.parseBoolean(String.valueOf(request.get("streaming")));
+        Long timeoutMs;
+        Long concurrency;
+        try {
+            timeoutMs = longField(request, "timeoutMs");
+            concurrency = longField(request, "concurrency");
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_NDJSON).body(out -> writeNdjsonLine(out, response));
+        }
+        
+        if (urls == null || urls.isEmpty()) {
+            response.put("error", "No urls given");
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_NDJSON).body(out -> writeNdjsonLine(out, response));
+        }
+        for (String operation : operations) {
+            if (!webCrawlerService.isSupportedOperation(operation)) {
+                response.put("error", "Unknown operation: " + operation);
+                return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_NDJSON).body(out -> writeNdjsonLine(out, response));
+            }
+        }
+        
+        StreamingResponseBody body = out -> {
             try {
-                String key = (String) request.get("key");
-                String content = (String) request.get("content");
-                String bucket = (String) request.get("bucket");
+                batchCrawlService.crawl(urls, operations, streaming, timeoutMs,
+                    concurrency != null ? (int) Math.min(concurrency, Integer.MAX_VALUE) : null,
+                    result -> writeNdjsonLine(out, result));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+    
+    // Accepts 1500 as well as "1500" from JSON request bodies; null when the field is absent
+    private static Long longField(Map<String, Object> request, String name) {
+        Object value = request.get(name);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number");
+        }
+    }
+    
+    private void writeNdjsonLine(OutputStream out, Object line) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(line);
+            synchronized (out) {
+                out.write(json);
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    @GetMapping("/crawler/rules")
+    public ResponseEntity<Map<String, Object>> getExtractionRules() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (extractionRuleEngine != null) {
+            response.put("success", true);
+            response.put("sites", extractionRuleEngine.getSites());
+        } else {
+            response.put("success", false);
+            response.put("message", "Extraction rule engine not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/crawler/rules")
+    public ResponseEntity<Map<String, Object>> registerExtractionRules(@RequestBody SiteExtractionRules rules) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (extractionRuleEngine != null) {
+            try {
+                extractionRuleEngine.register(rules);
+                response.put("success", true);
+                response.put("site", rules.site());
+            } catch (Exception e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "Extraction rule engine not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/crawler/dedup/stats")
+    public ResponseEntity<Map<String, Object>> getCrawlerDedupStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (webCrawlerService != null) {
+            response.put("success", true);
+            response.put("stats", webCrawlerService.getDedupStats());
+        } else {
+            response.put("success", false);
+            response.put("message", "Web crawler service not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/crawler/near-dup/stats")
+    public ResponseEntity<Map<String, Object>> getCrawlerNearDuplicateStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (webCrawlerService != null) {
+            response.put("success", true);
+            response.put("stats", webCrawlerService.getNearDuplicateStats());
+        } else {
+            response.put("success", false);
+            response.put("message", "Web crawler service not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/crawler/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCrawlerCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (crawlerPageCache != null) {
+            response.put("success", true);
+            response.put("stats", crawlerPageCache.getStats());
+        } else {
+            response.put("success", false);
+            response.put("message", "Crawler page cache not enabled");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/crawler/recrawl/sitemap")
+    public ResponseEntity<Map<String, Object>> importRecrawlSitemap(@RequestBody Map<String, String> request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (recrawlScheduler != null) {
+            String sitemap = request.get("sitemap");
+            String site = request.get("site");
+            if ((sitemap == null || sitemap.isEmpty()) && (site == null || site.isEmpty())) {
+                response.put("success", false);
+                response.put("error", "Either sitemap or site is required");
+                return ResponseEntity.badRequest().body(response);
+            }
+            try {
+                int added = sitemap != null && !sitemap.isEmpty()
+                    ? recrawlScheduler.importSitemap(sitemap)
+                    : recrawlScheduler.importSitemapsForSite(site);
+                response.put("success", true);
+                response.put("added", added);
+            } catch (Exception e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "Recrawl scheduler not enabled");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/crawler/recrawl/track")
+    public ResponseEntity<Map<String, Object>> trackForRecrawl(@RequestBody Map<String, String> request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (recrawlScheduler != null) {
+            String url = request.get("url");
+            if (url == null || url.isEmpty()) {
+                response.put("success", false);
+                response.put("error", "url is required");
+                return ResponseEntity.badRequest().body(response);
+            }
+            response.put("success", true);
+            response.put("added", recrawlScheduler.track(url));
+        } else {
+            response.put("success", false);
+            response.put("message", "Recrawl scheduler not enabled");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/crawler/recrawl/stats")
+    public ResponseEntity<Map<String, Object>> getRecrawlStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (recrawlScheduler != null) {
+            response.put("success", true);
+            response.put("stats", recrawlScheduler.getStats());
+        } else {
+            response.put("success", false);
+            response.put("message", "Recrawl scheduler not enabled");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Catalog Ingestion
+    @PostMapping("/catalog/ingest")
+    public ResponseEntity<Map<String, Object>> ingestIntoCatalog(@RequestBody Map<String, String> request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (catalogIngestionService != null) {
+            try {
+                String url = request.get("url");
+                String type = request.getOrDefault("type", "product");
                 
-                boolean success;
-                if (bucket != null) {
-                    success = awsService.uploadFile(bucket, key, content);
-                } else {
-                    success = awsService.uploadFile(key, content);
+                int queued;
+                switch (type) {
+                    case "product":
+                        queued = catalogIngestionService.ingestProductPage(url);
+                        break;
+                    case "search":
+                        queued = catalogIngestionService.ingestSearchResults(url, request.get("resultSelector"));
+                        break;
+                    default:
+                        response.put("error", "Unknown ingestion type: " + type);
+                        return ResponseEntity.badRequest().body(response);
                 }
                 
-                response.put("success", success);
-                response.put("key", key);
-                response.put("message", success ? "File uploaded successfully" : "Upload failed");
+                response.put("success", true);
+                response.put("url", url);
+                response.put("queued", queued);
             } catch (Exception e) {
                 response.put("success", false);
                 response.put("error", e.getMessage());
             }
         } else {
             response.put("success", false);
-            response.put("message", "AWS service not available");
+            response.put("message", "Catalog ingestion service not available");
         }
         
         return ResponseEntity.ok(response);
     }
     
-    @GetMapping("/aws/download/{key}")
-    public ResponseEntity<Map<String, Object>> downloadFromS3(@PathVariable String key) {
+    @GetMapping("/catalog/ingest/stats")
+    public ResponseEntity<Map<String, Object>> getCatalogIngestionStats() {
         Map<String, Object> response = new HashMap<>();
         
-        if (awsService != null) {
+        if (catalogIngestionService != null) {
+            response.put("success", true);
+            response.put("stats", catalogIngestionService.getStats());
+        } else {
+            response.put("success", false);
+            response.put("message", "Catalog ingestion service not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Bulk product import: the NDJSON or CSV body is parsed while it uploads and written as unordered
+    // bulk upserts keyed by productCode; the response comes once the whole feed is in
+    @PostMapping(value = "/catalog/import", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<Map<String, Object>> importProducts(@RequestParam(defaultValue = "ndjson") String format,
+                                                              HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (productImportService != null) {
+            try (InputStream body = request.getInputStream()) {
+                ProductImportJob job = productImportService.importFeed(body, format, "upload");
+                response.put("success", job.getState() == ProductImportJob.State.COMPLETED);
+                response.put("job", job.toMap(true));
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            } catch (IllegalStateException e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+                return ResponseEntity.status(429).body(response);
+            } catch (IOException e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "Product import not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Same import from a feed already in blob storage, run in the background; poll the job for progress
+    @PostMapping("/catalog/import/blob")
+    public ResponseEntity<Map<String, Object>> importProductsFromBlob(@RequestParam String key,
+                                                                      @RequestParam(required = false) String bucket,
+                                                                      @RequestParam(defaultValue = "ndjson") String format) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (productImportService != null) {
             try {
-                String content = awsService.downloadFileAsString(key);
+                ProductImportJob job = productImportService.importBlob(bucket, key, format);
                 response.put("success", true);
-                response.put("key", key);
-                response.put("content", content);
-            } catch (Exception e) {
+                response.put("job", job.toMap(false));
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            } catch (IllegalStateException e) {
                 response.put("success", false);
                 response.put("error", e.getMessage());
+                return ResponseEntity.status(429).body(response);
             }
         } else {
             response.put("success", false);
-            response.put("message", "AWS service not available");
+            response.put("message", "Product import not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/catalog/import/jobs")
+    public ResponseEntity<Map<String, Object>> listProductImports() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (productImportService != null) {
+            response.put("success", true);
+            response.put("jobs", productImportService.getJobs().stream().map(job -> job.toMap(false)).toList());
+        } else {
+            response.put("success", false);
+            response.put("message", "Product import not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/catalog/import/jobs/{id}")
+    public ResponseEntity<Map<String, Object>> getProductImport(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (productImportService != null) {
+            ProductImportJob job = productImportService.getJob(id);
+            if (job == null) {
+                response.put("success", false);
+                response.put("error", "No import job " + id);
+                return ResponseEntity.status(404).body(response);
+            }
+            response.put("success", true);
+            response.put("job", job.toMap(true));
+        } else {
+            response.put("success", false);
+            response.put("message", "Product import not available");
         }
         
         return ResponseEntity.ok(response);
     }
     
+    // Price History
+    @GetMapping("/catalog/prices/{productCode}")
+    public ResponseEntity<Map<String, Object>> getPriceHistory(@PathVariable String productCode,
+                                                               @RequestParam(required = false) String from,
+                                                               @RequestParam(required = false) String to,
+                                                               @RequestParam(required = false) Long step) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (priceHistoryStore != null) {
+            long fromSeconds;
+            long toSeconds;
+            try {
+                fromSeconds = from != null ? Instant.parse(from).getEpochSecond() : Long.MIN_VALUE;
+                toSeconds = to != null ? Instant.parse(to).getEpochSecond() : Long.MAX_VALUE;
+            } catch (DateTimeParseException e) {
+                response.put("success", false);
+                response.put("error", "from and to must be ISO-8601 instants, e.g. 2024-01-01T00:00:00Z");
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            PriceHistoryStore.PriceHistory history = priceHistoryStore.query(productCode, fromSeconds, toSeconds,
+                step != null ? step : 0);
+            if (history == null) {
+                response.put("success", false);
+                response.put("error", "No price history for " + productCode);
+                return ResponseEntity.status(404).body(response);
+            }
+            
+            int scale = history.fractionDigits();
+            response.put("success", true);
+            response.put("productCode", productCode);
+            response.put("currency", history.currency());
+            if (history.points() != null) {
+                response.put("points", history.points().stream()
+                    .map(point -> Map.of(
+                        "timestamp", Instant.ofEpochSecond(point.timestamp()).toString(),
+                        "price", BigDecimal.valueOf(point.minorUnits(), scale)))
+                    .toList());
+            } else {
+                response.put("step", step);
+                response.put("buckets", history.buckets().stream()
+                    .map(bucket -> Map.of(
+                        "start", Instant.ofEpochSecond(bucket.start()).toString(),
+                        "open", BigDecimal.valueOf(bucket.open(), scale),
+                        "high", BigDecimal.valueOf(bucket.high(), scale),
+                        "low", BigDecimal.valueOf(bucket.low(), scale),
+                        "close", BigDecimal.valueOf(bucket.close(), scale),
+                        "count", bucket.count()))
+                    .toList());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "Price history not enabled");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/catalog/prices/stats")
+    public ResponseEntity<Map<String, Object>> getPriceHistoryStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (priceHistoryStore != null) {
+            response.put("success", true);
+            response.put("stats", priceHistoryStore.getStats());
+        } else {
+            response.put("success", false);
+            response.put("message", "Price history not enabled");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Product Search
+    @GetMapping("/catalog/search")
+    public ResponseEntity<Map<String, Object>> searchProducts(@RequestParam(required = false) String q,
+                                                              @RequestParam(required = false) String category,
+                                                              @RequestParam(required = false) BigDecimal minPrice,
+                                                              @RequestParam(required = false) BigDecimal maxPrice,
+                                                              @RequestParam(defaultValue = "true") String active,
+                                                              @RequestParam(defaultValue = "0") int offset,
+                                                              @RequestParam(defaultValue = "20") int limit,
+                                                              @RequestParam(defaultValue = "false") boolean fetch) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (productSearchIndex != null) {
+            if (offset < 0 || limit < 0 || limit > 1000) {
+                response.put("success", false);
+                response.put("error", "offset must be >= 0 and limit between 0 and 1000");
+                return ResponseEntity.badRequest().body(response);
+            }
+            if (!List.of("true", "false", "any").contains(active)) {
+                response.put("success", false);
+                response.put("error", "active must be true, false or any");
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            ProductSearchIndex.SearchResult result = productSearchIndex.search(new ProductSearchIndex.SearchQuery(
+                q, category, minPrice, maxPrice, "any".equals(active) ? null : Boolean.valueOf(active), offset, limit));
+            response.put("success", true);
+            response.put("total", result.total());
+            response.put("tookMicros", result.tookMicros());
+            response.put("indexed", result.indexed());
+            if (fetch) {
+                response.put("products", productSearchIndex.fetch(result.productIds()));
+            } else {
+                response.put("productIds", result.productIds());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "Product search index not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/catalog/search/stats")
+    public ResponseEntity<Map<String, Object>> getProductSearchStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (productSearchIndex != null) {
+            response.put("success", true);
+            response.put("stats", productSearchIndex.getStats());
+        } else {
+            response.put("success", false);
+            response.put("message", "Product search index not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Category and brand counts plus a price histogram for a filter, from one cached $facet aggregation
+    @GetMapping("/catalog/facets")
+    public ResponseEntity<Map<String, Object>> getProductFacets(@RequestParam(required = false) String category,
+                                                                @RequestParam(required = false) String brand,
+                                                                @RequestParam(required = false) String tag,
+                                                                @RequestParam(required = false) BigDecimal minPrice,
+                                                                @RequestParam(required = false) BigDecimal maxPrice,
+                                                                @RequestParam(defaultValue = "true") String active) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (productFacetService != null) {
+            if (!List.of("true", "false", "any").contains(active)) {
+                response.put("success", false);
+                response.put("error", "active must be true, false or any");
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            try {
+                ProductFacetService.Facets facets = productFacetService.facets(new ProductFacetService.FacetFilter(
+                    category, brand, tag, "any".equals(active) ? null : Boolean.valueOf(active), minPrice, maxPrice));
+                response.put("success", true);
+                response.put("total", facets.total());
+                response.put("categories", facets.categories());
+                response.put("brands", facets.brands());
+                response.put("prices", facets.prices());
+                response.put("cached", facets.cached());
+                response.put("tookMicros", facets.tookMicros());
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "Product facets not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/catalog/facets/stats")
+    public ResponseEntity<Map<String, Object>> getProductFacetStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (productFacetService != null) {
+            response.put("success", true);
+            response.put("stats", productFacetService.getStats());
+        } else {
+            response.put("success", false);
+            response.put("message", "Product facets not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Product by its code through the read-through cache; 404 when no product has the code
+    @GetMapping("/catalog/products/code/{productCode}")
+    public ResponseEntity<Map<String, Object>> getProductByCode(@PathVariable String productCode) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (productCacheService != null) {
+            Optional<ProductSnapshot> product = productCacheService.findByProductCode(productCode);
+            if (product.isEmpty()) {
+                response.put("success", false);
+                response.put("error", "Product not found: " + productCode);
+                return ResponseEntity.status(404).body(response);
+            }
+            response.put("success", true);
+            response.put("product", product.get());
+        } else {
+            response.put("success", false);
+            response.put("message", "Product cache not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/catalog/cache/stats")
+    public ResponseEntity<Map<String, Object>> getProductCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (productCacheService != null) {
+            response.put("success", true);
+            response.put("stats", productCacheService.getStats());
+        } else {
+            response.put("success", false);
+            response.put("message", "Product cache not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Keyset-paginated product listing; pass nextToken back as token for the following page.
+    // view=summary (default) and view=card fetch only the fields they show, view=full whole documents
+    @GetMapping("/catalog/products")
+    public ResponseEntity<Map<String, Object>> listProducts(@RequestParam(required = false) String category,
+                                                            @RequestParam(required = false) String brand,
+                                                            @RequestParam(required = false) List<String> tag,
+                                                            @RequestParam(required = false) String color,
+                                                            @RequestParam(required = false) String name,
+                                                            @RequestParam(required = false) String q,
+                                                            @RequestParam(required = false) BigDecimal minPrice,
+                                                            @RequestParam(required = false) BigDecimal maxPrice,
+                                                            @RequestParam(required = false) String token,
+                                                            @RequestParam(defaultValue = "100") int limit,
+                                                            @RequestParam(defaultValue = "summary") String view) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (productQueryService != null) {
+            if (limit < 1 || limit > 1000) {
+                response.put("success", false);
+                response.put("error", "limit must be between 1 and 1000");
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            try {
+                Window<?> page = productQueryService.page(
+                    new ProductQueryService.ProductFilter(category, brand, tag, color, name, q, minPrice, maxPrice),
+                    ContinuationToken.decode(token), limit, ProductQueryService.viewType(view));
+                response.put("success", true);
+                response.put("products", page.getContent());
+                response.put("count", page.size());
+                response.put("nextToken", ContinuationToken.next(page));
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "Product catalog not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Same filters as /catalog/products, streamed as NDJSON from a server cursor
+    @GetMapping(value = "/catalog/products/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(required = false) String category,
+                                                                @RequestParam(required = false) String brand,
+                                                                @RequestParam(required = false) List<String> tag,
+                                                                @RequestParam(required = false) String color,
+                                                                @RequestParam(required = false) String name,
+                                                                @RequestParam(required = false) String q,
+                                                                @RequestParam(required = false) BigDecimal minPrice,
+                                                                @RequestParam(required = false) BigDecimal maxPrice,
+                                                                @RequestParam(defaultValue = "full") String view) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (productQueryService == null) {
+            response.put("success", false);
+            response.put("message", "Product catalog not available");
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> writeNdjsonLine(out, response));
+        }
+        
+        ProductQueryService.ProductFilter filter =
+            new ProductQueryService.ProductFilter(category, brand, tag, color, name, q, minPrice, maxPrice);
+        Class<?> type;
+        try {
+            productQueryService.validate(filter);
+            type = ProductQueryService.viewType(view);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_NDJSON).body(out -> writeNdjsonLine(out, response));
+        }
+        
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+            .body(out -> exportNdjson(out, sink -> productQueryService.export(filter, type, sink)));
+    }
+    
+    // Keyset-paginated active users; username/email filter by substring, createdAfter by creation time
+    @GetMapping("/users")
+    public ResponseEntity<Map<String, Object>> listUsers(@RequestParam(required = false) String username,
+                                                         @RequestParam(required = false) String email,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAfter,
+                                                         @RequestParam(required = false) String token,
+                                                         @RequestParam(defaultValue = "100") int limit) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (userQueryService != null) {
+            if (limit < 1 || limit > 1000) {
+                response.put("success", false);
+                response.put("error", "limit must be between 1 and 1000");
+                return ResponseEntity.badRequest().body(response);
+            }
+            
+            try {
+                Window<User> page = userQueryService.page(username, email, createdAfter,
+                    ContinuationToken.decode(token), limit);
+                response.put("success", true);
+                response.put("users", page.getContent().stream().map(this::userSummary).toList());
+                response.put("count", page.size());
+                response.put("nextToken", ContinuationToken.next(page));
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "User database not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping(value = "/users/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(required = false) String username,
+                                                             @RequestParam(required = false) String email,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAfter) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (userQueryService == null) {
+            response.put("success", false);
+            response.put("message", "User database not available");
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> writeNdjsonLine(out, response));
+        }
+        
+        try {
+            userQueryService.validate(username, email, createdAfter);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_NDJSON).body(out -> writeNdjsonLine(out, response));
+        }
+        
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+            .body(out -> exportNdjson(out, sink -> userQueryService.export(username, email, createdAfter,
+                user -> sink.accept(userSummary(user)))));
+    }
+    
+    // Never exposes the password hash
+    private Map<String, Object> userSummary(User user) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("id", user.getId());
+        summary.put("username", user.getUsername());
+        summary.put("email", user.getEmail());
+        summary.put("createdAt", user.getCreatedAt());
+        summary.put("isActive", user.getIsActive());
+        return summary;
+    }
+    
+    // Buffered rather than flushed per line, since exports can run to millions of lines; a failure
+    // part-way ends the output with an error line
+    private void exportNdjson(OutputStream out, Consumer<Consumer<Object>> export)
+            throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        try {
+            export.accept(line -> {
+                try {
+                    buffered.write(objectMapper.writeValueAsBytes(line));
+                    buffered.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", e.getMessage());
+            buffered.write(objectMapper.writeValueAsBytes(error));
+            buffered.write('\n');
+        }
+        buffered.flush();
+    }
+    
+    // AWS S3 Operations
+    @PostMapping("/aws/upload")
+    public ResponseEntity<Map<String, Object>> uploadToS3(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (awsService != null) {
+            try {
+                String key = (String) request.get("key");
+                String content = (String) request.get("content");
+                String bucket = (String) request.get("bucket");
+                
+                boolean success;
+                if (bucket != null) {
+                    success = awsService.uploadFile(bucket, key, content);
+                } else {
+                    success = awsService.uploadFile(key, content);
+                }
+                
+                response.put("success", success);
+                response.put("key", key);
+                response.put("message", success ? "File uploaded successfully" : "Upload failed");
+            } catch (Exception e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "AWS service not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Raw request body is streamed to S3 as a multipart upload, never buffered whole
+    @PostMapping(value = "/aws/upload/stream", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<Map<String, Object>> streamUploadToS3(@RequestParam String key,
+                                                                @RequestParam(required = false) String bucket,
+                                                                HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (awsService != null) {
+            try (InputStream body = request.getInputStream()) {
+                boolean success = bucket != null
+                    ? awsService.uploadFile(bucket, key, body)
+                    : awsService.uploadFile(key, body);
+                
+                response.put("success", success);
+                response.put("key", key);
+                response.put("message", success ? "File uploaded successfully" : "Upload failed");
+            } catch (Exception e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "AWS service not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/aws/download/{key}")
+    public ResponseEntity<Map<String, Object>> downloadFromS3(@PathVariable String key) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (awsService != null) {
+            try {
+                String content = awsService.downloadFileAsString(key);
+                response.put("success", true);
+                response.put("key", key);
+                response.put("content", content);
+            } catch (Exception e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "AWS service not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Pipes the S3 object body straight to the client; a Range header is forwarded to S3
+    @GetMapping("/aws/stream")
+    public ResponseEntity<StreamingResponseBody> streamFromS3(@RequestParam String key,
+                                                              @RequestParam(required = false) String bucket,
+                                                              @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (awsService == null) {
+            return plainTextError(503, "AWS service not available");
+        }
+        
+        ResponseInputStream<GetObjectResponse> object;
+        CompressionCodec decoder = null;
+        try {
+            object = bucket != null ? awsService.openStream(bucket, key, range) : awsService.openStream(key, range);
+            CompressionCodec codec = CompressionCodec.fromEncoding(object.response().contentEncoding());
+            if (codec != null && !codec.isAcceptedBy(acceptEncoding)) {
+                // Client cannot take the stored encoding: send the whole object decoded instead
+                decoder = codec;
+                if (range != null) {
+                    object.abort();
+                    object = bucket != null ? awsService.openStream(bucket, key, null) : awsService.openStream(key, null);
+                }
+            }
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof S3Exception s3Exception) {
+                return plainTextError(s3Exception.statusCode(), s3Exception.awsErrorDetails() != null
+                    ? s3Exception.awsErrorDetails().errorMessage() : s3Exception.getMessage());
+            }
+            if (e.getCause() instanceof CircuitBreaker.OpenException || e.getCause() instanceof TimeoutException) {
+                return plainTextError(503, e.getCause().getMessage());
+            }
+            return plainTextError(500, e.getMessage());
+        }
+        
+        GetObjectResponse metadata = object.response();
+        ResponseEntity.BodyBuilder builder;
+        if (decoder != null) {
+            builder = ResponseEntity.ok();
+        } else {
+            builder = ResponseEntity.status(metadata.contentRange() != null ? 206 : 200)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if (metadata.contentLength() != null) {
+                builder.contentLength(metadata.contentLength());
+            }
+            if (metadata.contentRange() != null) {
+                builder.header(HttpHeaders.CONTENT_RANGE, metadata.contentRange());
+            }
+            if (metadata.contentEncoding() != null) {
+                builder.header(HttpHeaders.CONTENT_ENCODING, metadata.contentEncoding());
+            }
+        }
+        if (CompressionCodec.fromEncoding(metadata.contentEncoding()) != null) {
+            // Stored bytes or decoded body depending on Accept-Encoding, so caches must key on it
+            builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (metadata.eTag() != null) {
+            // The decoded body is a different representation and must not match the stored bytes' ETag
+            builder.eTag(decoder != null ? "W/\"" + metadata.eTag().replace("\"", "") + "-identity\"" : metadata.eTag());
+        }
+        if (metadata.lastModified() != null) {
+            builder.lastModified(metadata.lastModified());
+        }
+        builder.contentType(metadata.contentType() != null
+            ? MediaType.parseMediaType(metadata.contentType()) : MediaType.APPLICATION_OCTET_STREAM);
+        
+        ResponseInputStream<GetObjectResponse> body = object;
+        CompressionCodec bodyDecoder = decoder;
+        return builder.body(out -> {
+            try {
+                if (bodyDecoder != null) {
+                    try (InputStream decoded = bodyDecoder.decompress(body)) {
+                        decoded.transferTo(out);
+                    }
+                } else {
+                    body.transferTo(out);
+                    body.close();
+                }
+            } catch (IOException e) {
+                // Client went away: drop the S3 connection instead of draining the rest of the body
+                body.abort();
+                throw e;
+            }
+        });
+    }
+    
+    // One NDJSON line per object, written as pages arrive; a failure mid-listing ends with an error line
+    @GetMapping(value = "/aws/list", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listS3Objects(@RequestParam(defaultValue = "") String prefix,
+                                                               @RequestParam(required = false) String bucket,
+                                                               @RequestParam(defaultValue = "false") boolean parallel) {
+        if (awsService == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "AWS service not available");
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> writeNdjsonLine(out, response));
+        }
+        
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> {
+            try (Stream<S3Object> objects = parallel
+                    ? (bucket != null ? awsService.streamObjectsParallel(bucket, prefix) : awsService.streamObjectsParallel(prefix))
+                    : (bucket != null ? awsService.streamObjects(bucket, prefix) : awsService.streamObjects(prefix))) {
+                objects.forEach(object -> {
+                    Map<String, Object> line = new LinkedHashMap<>();
+                    line.put("key", object.key());
+                    line.put("size", object.size());
+                    line.put("lastModified", object.lastModified() != null ? object.lastModified().toString() : null);
+                    line.put("eTag", object.eTag());
+                    writeNdjsonLine(out, line);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("success", false);
+                error.put("error", e.getMessage());
+                writeNdjsonLine(out, error);
+            }
+        });
+    }
+    
+    private ResponseEntity<StreamingResponseBody> plainTextError(int status, String message) {
+        byte[] body = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(status)
+            .contentType(MediaType.TEXT_PLAIN)
+            .body(out -> out.write(body));
+    }
+    
+    // Bulk delete: {"keys": [...]} or {"prefix": "..."}, optional "bucket"; returns a per-key report
+    @PostMapping("/aws/bulk/delete")
+    public ResponseEntity<Map<String, Object>> bulkDeleteFromS3(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (awsService != null) {
+            try {
+                @SuppressWarnings("unchecked")
+                List<String> keys = (List<String>) request.get("keys");
+                String prefix = (String) request.get("prefix");
+                String bucket = (String) request.get("bucket");
+                
+                BulkOperationReport report;
+                if (keys != null) {
+                    report = bucket != null ? awsService.deleteFiles(bucket, keys) : awsService.deleteFiles(keys);
+                } else if (prefix != null && !prefix.isEmpty()) {
+                    report = bucket != null ? awsService.deleteByPrefix(bucket, prefix) : awsService.deleteByPrefix(prefix);
+                } else {
+                    response.put("success", false);
+                    response.put("error", "keys or a non-empty prefix is required");
+                    return ResponseEntity.badRequest().body(response);
+                }
+                
+                response.put("success", report.getFailed() == 0);
+                response.put("report", report);
+            } catch (Exception e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "AWS service not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Server-side copy of everything under sourcePrefix to destinationPrefix
+    @PostMapping("/aws/bulk/copy")
+    public ResponseEntity<Map<String, Object>> bulkCopyInS3(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (awsService != null) {
+            try {
+                String sourcePrefix = (String) request.get("sourcePrefix");
+                String destinationPrefix = (String) request.get("destinationPrefix");
+                String sourceBucket = (String) request.get("sourceBucket");
+                String destinationBucket = request.get("destinationBucket") != null
+                    ? (String) request.get("destinationBucket") : sourceBucket;
+                
+                if (sourcePrefix == null || destinationPrefix == null) {
+                    response.put("success", false);
+                    response.put("error", "sourcePrefix and destinationPrefix are required");
+                    return ResponseEntity.badRequest().body(response);
+                }
+                
+                BulkOperationReport report = sourceBucket != null
+                    ? awsService.copyByPrefix(sourceBucket, sourcePrefix, destinationBucket, destinationPrefix)
+                    : awsService.copyByPrefix(sourcePrefix, destinationPrefix);
+                response.put("success", report.getFailed() == 0);
+                response.put("report", report);
+            } catch (IllegalArgumentException e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            } catch (Exception e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "AWS service not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Replaces user metadata on {"keys": [...]} or everything under {"prefix": "..."}
+    @PostMapping("/aws/bulk/metadata")
+    public ResponseEntity<Map<String, Object>> bulkSetS3Metadata(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (awsService != null) {
+            try {
+                @SuppressWarnings("unchecked")
+                List<String> keys = (List<String>) request.get("keys");
+                @SuppressWarnings("unchecked")
+                Map<String, String> metadata = (Map<String, String>) request.get("metadata");
+                String prefix = (String) request.get("prefix");
+                String bucket = (String) request.get("bucket");
+                
+                if (metadata == null || (keys == null && (prefix == null || prefix.isEmpty()))) {
+                    response.put("success", false);
+                    response.put("error", "metadata and either keys or a non-empty prefix are required");
+                    return ResponseEntity.badRequest().body(response);
+                }
+                
+                BulkOperationReport report;
+                if (keys != null) {
+                    report = bucket != null
+                        ? awsService.setObjectMetadata(bucket, keys, metadata)
+                        : awsService.setObjectMetadata(keys, metadata);
+                } else {
+                    report = bucket != null
+                        ? awsService.setObjectMetadataByPrefix(bucket, prefix, metadata)
+                        : awsService.setObjectMetadataByPrefix(prefix, metadata);
+                }
+                response.put("success", report.getFailed() == 0);
+                response.put("report", report);
+            } catch (Exception e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "AWS service not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Signs every key in one call: {"keys": [...], "expirationSeconds": 3600, "bucket": "..."}
+    @PostMapping("/aws/presign")
+    public ResponseEntity<Map<String, Object>> presignS3Urls(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (awsService != null) {
+            try {
+                @SuppressWarnings("unchecked")
+                List<String> keys = (List<String>) request.get("keys");
+                String bucket = (String) request.get("bucket");
+                Duration expiration = Duration.ofSeconds(request.get("expirationSeconds") != null
+                    ? ((Number) request.get("expirationSeconds")).longValue() : 3600);
+                
+                if (keys == null || keys.isEmpty()) {
+                    response.put("success", false);
+                    response.put("error", "keys are required");
+                    return ResponseEntity.badRequest().body(response);
+                }
+                
+                response.put("success", true);
+                response.put("urls", bucket != null
+                    ? awsService.generatePresignedUrls(bucket, keys, expiration)
+                    : awsService.generatePresignedUrls(keys, expiration));
+            } catch (Exception e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "AWS service not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/aws/cache/stats")
+    public ResponseEntity<Map<String, Object>> getS3CacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (s3ObjectCache != null) {
+            response.put("success", true);
+            response.put("stats", s3ObjectCache.getStats());
+        } else {
+            response.put("success", false);
+            response.put("message", "S3 object cache not enabled");
+        }
+        if (awsService != null) {
+            response.put("metadataStats", awsService.getMetadataCacheStats());
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/aws/resilience/stats")
+    public ResponseEntity<Map<String, Object>> getS3ResilienceStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (awsService != null) {
+            response.put("success", true);
+            response.put("stats", awsService.getResilienceStats());
+        } else {
+            response.put("success", false);
+            response.put("message", "AWS service not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    // Blob Storage (S3 or local files, per storage.backend)
+    @PutMapping(value = "/storage/blob", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<Map<String, Object>> putBlob(@RequestParam String key,
+                                                       @RequestParam(required = false) String bucket,
+                                                       HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (blobStore != null) {
+            try (InputStream body = request.getInputStream()) {
+                blobStore.put(bucket != null ? bucket : blobStore.getDefaultBucket(), key, body);
+                response.put("success", true);
+                response.put("key", key);
+            } catch (Exception e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "Blob store not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/storage/blob")
+    public ResponseEntity<StreamingResponseBody> getBlob(@RequestParam String key,
+                                                         @RequestParam(required = false) String bucket) {
+        if (blobStore == null) {
+            return plainTextError(503, "Blob store not available");
+        }
+        
+        String resolvedBucket = bucket != null ? bucket : blobStore.getDefaultBucket();
+        BlobInfo info;
+        try {
+            info = blobStore.head(resolvedBucket, key);
+        } catch (IllegalArgumentException e) {
+            return plainTextError(400, e.getMessage());
+        } catch (RuntimeException e) {
+            return plainTextError(502, e.getMessage());
+        }
+        if (info == null) {
+            return plainTextError(404, "No such blob: " + key);
+        }
+        
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .header(HttpHeaders.ETAG, info.eTag());
+        if (info.size() >= 0) {
+            builder.contentLength(info.size());
+        }
+        if (info.contentType() != null) {
+            builder.contentType(MediaType.parseMediaType(info.contentType()));
+        }
+        return builder.body(out -> blobStore.transferTo(resolvedBucket, key, Channels.newChannel(out)));
+    }
+    
+    @DeleteMapping("/storage/blob")
+    public ResponseEntity<Map<String, Object>> deleteBlob(@RequestParam String key,
+                                                          @RequestParam(required = false) String bucket) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (blobStore != null) {
+            try {
+                boolean deleted = blobStore.delete(bucket != null ? bucket : blobStore.getDefaultBucket(), key);
+                response.put("success", true);
+                response.put("deleted", deleted);
+            } catch (Exception e) {
+                response.put("success", false);
+                response.put("error", e.getMessage());
+            }
+        } else {
+            response.put("success", false);
+            response.put("message", "Blob store not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping(value = "/storage/list", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listBlobs(@RequestParam(defaultValue = "") String prefix,
+                                                           @RequestParam(required = false) String bucket) {
+        if (blobStore == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Blob store not available");
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> writeNdjsonLine(out, response));
+        }
+        
+        String resolvedBucket = bucket != null ? bucket : blobStore.getDefaultBucket();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> {
+            try (Stream<BlobInfo> blobs = blobStore.list(resolvedBucket, prefix)) {
+                blobs.forEach(blob -> {
+                    Map<String, Object> line = new LinkedHashMap<>();
+                    line.put("key", blob.key());
+                    line.put("size", blob.size());
+                    line.put("lastModified", blob.lastModified() != null ? blob.lastModified().toString() : null);
+                    line.put("eTag", blob.eTag());
+                    writeNdjsonLine(out, line);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("success", false);
+                error.put("error", e.getMessage());
+                writeNdjsonLine(out, error);
+            }
+        });
+    }
+    
     // WebSocket Operations
     @PostMapping("/websocket/send")
     public ResponseEntity<Map<String, Object>> sendWebSocketMessage(@RequestBody Map<String, Object> request) {
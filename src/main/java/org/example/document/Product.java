@@ -2,6 +2,8 @@ package org.example.document;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.index.TextIndexed;
 
@@ -11,6 +13,13 @@ import java.util.List;
 import java.util.Map;
 
 @Document(collection = "products")
+// Serve the keyset-paginated finders, which filter on one field and seek on _id
+@CompoundIndexes({
+    @CompoundIndex(name = "category_id", def = "{'category': 1, '_id': 1}"),
+    @CompoundIndex(name = "brand_id", def = "{'brand': 1, '_id': 1}"),
+    @CompoundIndex(name = "tags_id", def = "{'tags': 1, '_id': 1}"),
+    @CompoundIndex(name = "isActive_id", def = "{'isActive': 1, '_id': 1}")
+})
 public class Product {
     
     @Id
@@ -45,6 +54,9 @@ public class Product {
     
     private LocalDateTime updatedAt;
     
+    // Hash of the catalog-relevant fields, lets bulk upserts skip unchanged documents
+    private String contentHash;
+    
     // Constructors
     public Product() {}
     
@@ -163,4 +175,12 @@ public class Product {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
-} 
\ No newline at end of file
+    
+    public String getContentHash() {
+        return contentHash;
+    }
+    
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package org.example.document;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Product read model for list views that also show attributes (sizes, colour swatches). The
+ * attributes come back exactly as the driver decoded them: Spring Data hands Document-typed
+ * properties through without its per-value Map conversion, which {@link #typedAttributes} runs
+ * only when a caller needs it.
+ */
+public record ProductCard(String id, String productCode, String name, BigDecimal price, String brand,
+                          String category, Document attributes) {
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> typedAttributes(MongoConverter converter) {
+        return attributes != null ? converter.read(Map.class, attributes) : null;
+    }
+}
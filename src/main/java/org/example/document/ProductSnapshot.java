@@ -0,0 +1,74 @@
+package org.example.document;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of a {@link Product}, safe to hand to any number of readers from a cache.
+ * Tags and attributes (including nested maps and lists) are frozen when the snapshot is taken;
+ * {@link #toProduct} gives a caller its own Product whose top-level fields it may change.
+ */
+public record ProductSnapshot(String id, String productCode, String name, String description, BigDecimal price,
+                              String category, String brand, List<String> tags, Map<String, Object> attributes,
+                              Integer stockQuantity, Boolean isActive, LocalDateTime createdAt,
+                              LocalDateTime updatedAt, String contentHash) {
+
+    public ProductSnapshot {
+        tags = tags != null ? Collections.unmodifiableList(new ArrayList<>(tags)) : null;
+        attributes = attributes != null ? freezeMap(attributes) : null;
+    }
+
+    public static ProductSnapshot of(Product product) {
+        return new ProductSnapshot(product.getId(), product.getProductCode(), product.getName(),
+            product.getDescription(), product.getPrice(), product.getCategory(), product.getBrand(),
+            product.getTags(), product.getAttributes(), product.getStockQuantity(), product.getIsActive(),
+            product.getCreatedAt(), product.getUpdatedAt(), product.getContentHash());
+    }
+
+    public Product toProduct() {
+        Product product = new Product();
+        product.setId(id);
+        product.setProductCode(productCode);
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(price);
+        product.setCategory(category);
+        product.setBrand(brand);
+        product.setTags(tags != null ? new ArrayList<>(tags) : null);
+        product.setAttributes(attributes != null ? new LinkedHashMap<>(attributes) : null);
+        product.setStockQuantity(stockQuantity);
+        product.setIsActive(isActive);
+        product.setCreatedAt(createdAt);
+        product.setUpdatedAt(updatedAt);
+        product.setContentHash(contentHash);
+        return product;
+    }
+
+    // Not Map.copyOf or List.copyOf: they reject null values, which attributes and tags may hold
+    private static Map<String, Object> freezeMap(Map<?, ?> map) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            copy.put(String.valueOf(entry.getKey()), freeze(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static Object freeze(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return freezeMap(map);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(freeze(element));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.document;
+
+import java.math.BigDecimal;
+
+/**
+ * Compact product read model for list views. Used as a repository projection, only these fields
+ * are fetched from the products collection.
+ */
+public record ProductSummary(String id, String productCode, String name, BigDecimal price, String brand) {}
@@ -6,7 +6,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "users", indexes = {
     @Index(name = "idx_email", columnList = "email"),
-    @Index(name = "idx_username", columnList = "username")
+    @Index(name = "idx_username", columnList = "username"),
+    @Index(name = "idx_active_created", columnList = "is_active, created_at, id")
 })
 public class User {
     
@@ -1,15 +1,22 @@
 package org.example.repository;
 
 import org.example.document.Product;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends MongoRepository<Product, String> {
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
     
     // Basic CRUD operations
     List<Product> findByCategory(String category);
@@ -62,4 +69,59 @@ public interface ProductRepository extends MongoRepository<Product, String> {
            "{'isActive': true}" +
            "]}")
     List<Product> searchProducts(String searchText, String category, BigDecimal minPrice, BigDecimal maxPrice);
+    
+    // Keyset-paginated variants: each page seeks past the last _id of the previous one rather than
+    // skipping, so a deep page costs the same as the first. Start with ScrollPosition.keyset().
+    // type is Product or a read model such as ProductSummary, which fetches only its own fields;
+    // they are derived queries because string @Query methods do not narrow the fields for a type.
+    <T> Window<T> findByCategoryOrderByIdAsc(String category, ScrollPosition position, Limit limit, Class<T> type);
+    
+    <T> Window<T> findByBrandOrderByIdAsc(String brand, ScrollPosition position, Limit limit, Class<T> type);
+    
+    <T> Window<T> findByIsActiveTrueOrderByIdAsc(ScrollPosition position, Limit limit, Class<T> type);
+    
+    <T> Window<T> findByPriceBetweenOrderByIdAsc(BigDecimal minPrice, BigDecimal maxPrice, ScrollPosition position, Limit limit, Class<T> type);
+    
+    <T> Window<T> findByPriceLessThanOrderByIdAsc(BigDecimal price, ScrollPosition position, Limit limit, Class<T> type);
+    
+    <T> Window<T> findAllByOrderByIdAsc(TextCriteria text, ScrollPosition position, Limit limit, Class<T> type);
+    
+    // Range bounds are inclusive, like findByCategoryAndPriceRange
+    <T> Window<T> findByCategoryAndPriceBetweenAndIsActiveTrueOrderByIdAsc(String category, Range<BigDecimal> price,
+                                                                           ScrollPosition position, Limit limit, Class<T> type);
+    
+    <T> Window<T> findByTagsInAndIsActiveTrueOrderByIdAsc(List<String> tags, ScrollPosition position, Limit limit, Class<T> type);
+    
+    // name is matched literally
+    <T> Window<T> findByNameContainingIgnoreCaseAndIsActiveTrueOrderByIdAsc(String name, ScrollPosition position, Limit limit,
+                                                                            Class<T> type);
+    
+    // Streaming variants for exports: documents are read from a server cursor in batches, so
+    // memory stays flat however many match. Close the stream (try-with-resources) to free the cursor.
+    @Meta(cursorBatchSize = 1000)
+    <T> Stream<T> streamByCategoryOrderByIdAsc(String category, Class<T> type);
+    
+    @Meta(cursorBatchSize = 1000)
+    <T> Stream<T> streamByBrandOrderByIdAsc(String brand, Class<T> type);
+    
+    @Meta(cursorBatchSize = 1000)
+    <T> Stream<T> streamByIsActiveTrueOrderByIdAsc(Class<T> type);
+    
+    @Meta(cursorBatchSize = 1000)
+    <T> Stream<T> streamByPriceBetweenOrderByIdAsc(BigDecimal minPrice, BigDecimal maxPrice, Class<T> type);
+    
+    @Meta(cursorBatchSize = 1000)
+    <T> Stream<T> streamByPriceLessThanOrderByIdAsc(BigDecimal price, Class<T> type);
+    
+    @Meta(cursorBatchSize = 1000)
+    <T> Stream<T> streamAllByOrderByIdAsc(TextCriteria text, Class<T> type);
+    
+    @Meta(cursorBatchSize = 1000)
+    <T> Stream<T> streamByCategoryAndPriceBetweenAndIsActiveTrueOrderByIdAsc(String category, Range<BigDecimal> price, Class<T> type);
+    
+    @Meta(cursorBatchSize = 1000)
+    <T> Stream<T> streamByTagsInAndIsActiveTrueOrderByIdAsc(List<String> tags, Class<T> type);
+    
+    @Meta(cursorBatchSize = 1000)
+    <T> Stream<T> streamByNameContainingIgnoreCaseAndIsActiveTrueOrderByIdAsc(String name, Class<T> type);
 } 
\ No newline at end of file
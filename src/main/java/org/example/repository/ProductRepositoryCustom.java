@@ -0,0 +1,26 @@
+package org.example.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+/**
+ * Keyset and streaming variants of the ProductRepository finders that cannot be derived from a
+ * method name (a match on an attributes key, an $or across fields). Like the derived variants they
+ * seek on _id and narrow the fields to those of the requested type.
+ */
+public interface ProductRepositoryCustom {
+    
+    <T> Window<T> findByAttributeColor(String color, ScrollPosition position, Limit limit, Class<T> type);
+    
+    // searchText is a regular expression, as in searchProducts(String, String, BigDecimal, BigDecimal)
+    <T> Window<T> searchProducts(String searchText, String category, BigDecimal minPrice, BigDecimal maxPrice,
+                                 ScrollPosition position, Limit limit, Class<T> type);
+    
+    <T> Stream<T> streamByAttributeColor(String color, Class<T> type);
+    
+    <T> Stream<T> streamProducts(String searchText, String category, BigDecimal minPrice, BigDecimal maxPrice, Class<T> type);
+}
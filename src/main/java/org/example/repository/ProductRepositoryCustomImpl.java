@@ -0,0 +1,76 @@
+package org.example.repository;
+
+import org.example.document.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Override
+    public <T> Window<T> findByAttributeColor(String color, ScrollPosition position, Limit limit, Class<T> type) {
+        return scroll(attributeColor(color), position, limit, type);
+    }
+    
+    @Override
+    public <T> Window<T> searchProducts(String searchText, String category, BigDecimal minPrice, BigDecimal maxPrice,
+                                        ScrollPosition position, Limit limit, Class<T> type) {
+        return scroll(search(searchText, category, minPrice, maxPrice), position, limit, type);
+    }
+    
+    @Override
+    public <T> Stream<T> streamByAttributeColor(String color, Class<T> type) {
+        return stream(attributeColor(color), type);
+    }
+    
+    @Override
+    public <T> Stream<T> streamProducts(String searchText, String category, BigDecimal minPrice, BigDecimal maxPrice, Class<T> type) {
+        return stream(search(searchText, category, minPrice, maxPrice), type);
+    }
+    
+    private static Query attributeColor(String color) {
+        return Query.query(Criteria.where("attributes.color").is(color).and("isActive").is(true));
+    }
+    
+    private static Query search(String searchText, String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        return Query.query(new Criteria().andOperator(
+            new Criteria().orOperator(
+                Criteria.where("name").regex(searchText, "i"),
+                Criteria.where("description").regex(searchText, "i")),
+            Criteria.where("category").is(category),
+            Criteria.where("price").gte(minPrice).lte(maxPrice),
+            Criteria.where("isActive").is(true)));
+    }
+    
+    private <T> Window<T> scroll(Query query, ScrollPosition position, Limit limit, Class<T> type) {
+        query.with(Sort.by("id")).limit(limit);
+        return mongoTemplate.query(Product.class).as(type).matching(project(query, type)).scroll(position);
+    }
+    
+    private <T> Stream<T> stream(Query query, Class<T> type) {
+        query.with(Sort.by("id")).cursorBatchSize(1000);
+        return mongoTemplate.query(Product.class).as(type).matching(project(query, type)).stream();
+    }
+    
+    // Read models are records; fetch only their components
+    private static Query project(Query query, Class<?> type) {
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                query.fields().include(component.getName());
+            }
+        }
+        return query;
+    }
+}
@@ -1,16 +1,29 @@
 package org.example.repository;
 
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.criteria.Predicate;
 import org.example.entity.User;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     
     // Basic CRUD operations with optimized queries
     Optional<User> findByUsername(String username);
@@ -45,4 +58,59 @@ public interface UserRepository extends JpaRepository<User, Long> {
            "(:email IS NULL OR u.email LIKE %:email%) AND " +
            "u.isActive = true")
     List<User> searchUsers(@Param("username") String username, @Param("email") String email);
+    
+    // Keyset-paginated variants: each page seeks past the sort key of the previous one rather than
+    // using OFFSET. Start with ScrollPosition.keyset(). Keyset scrolling only works on derived and
+    // Specification queries, so the @Query finders above get equivalents written that way.
+    Window<User> findByIsActiveTrueOrderByIdAsc(ScrollPosition position, Limit limit);
+    
+    Window<User> findByUsernameContainingIgnoreCaseAndIsActiveTrueOrderByIdAsc(String username, ScrollPosition position, Limit limit);
+    
+    Window<User> findByIsActiveTrueAndCreatedAtGreaterThanEqualOrderByCreatedAtAscIdAsc(LocalDateTime startDate,
+                                                                                        ScrollPosition position, Limit limit);
+    
+    default Window<User> findActiveUsersCreatedAfter(LocalDateTime startDate, ScrollPosition position, Limit limit) {
+        return findByIsActiveTrueAndCreatedAtGreaterThanEqualOrderByCreatedAtAscIdAsc(startDate, position, limit);
+    }
+    
+    default Window<User> searchUsers(String username, String email, ScrollPosition position, Limit limit) {
+        Specification<User> spec = (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isTrue(root.get("isActive")));
+            if (username != null) {
+                predicates.add(cb.like(root.get("username"), "%" + username + "%"));
+            }
+            if (email != null) {
+                predicates.add(cb.like(root.get("email"), "%" + email + "%"));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+        return findBy(spec, q -> q.sortBy(Sort.by("id")).limit(limit.max()).scroll(position));
+    }
+    
+    // Streaming variants for exports. They must run inside a transaction and the caller should
+    // detach each user once written, or the persistence context grows with the result. MySQL only
+    // honors the fetch size with useCursorFetch=true on the JDBC URL.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<User> streamByIsActiveTrueOrderByIdAsc();
+    
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM User u WHERE u.isActive = true AND u.createdAt >= :startDate ORDER BY u.createdAt, u.id")
+    Stream<User> streamActiveUsersCreatedAfter(@Param("startDate") LocalDateTime startDate);
+    
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM User u WHERE " +
+           "(:username IS NULL OR u.username LIKE %:username%) AND " +
+           "(:email IS NULL OR u.email LIKE %:email%) AND " +
+           "u.isActive = true ORDER BY u.id")
+    Stream<User> streamSearchUsers(@Param("username") String username, @Param("email") String email);
 } 
\ No newline at end of file
@@ -0,0 +1,315 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import org.example.service.aws.AsyncLimiter;
+import org.example.service.aws.CompressionCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.FileTransformerConfiguration;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking counterpart of {@link AwsService} on top of {@link S3AsyncClient}. Every method
+ * returns immediately with a CompletableFuture, and at most aws.s3.async.max-outstanding requests
+ * are on the wire at once; the rest wait in a bounded queue instead of tying up caller threads.
+ */
+@Service
+@ConditionalOnProperty(name = "aws.region")
+public class AsyncAwsService {
+
+    @Autowired(required = false)
+    private S3AsyncClient s3AsyncClient;
+
+    @Value("${aws.s3.bucket:}")
+    private String defaultBucket;
+
+    @Value("${aws.s3.async.max-outstanding:200}")
+    private int maxOutstanding;
+
+    @Value("${aws.s3.async.max-queued:100000}")
+    private int maxQueued;
+
+    private AsyncLimiter limiter;
+
+    @PostConstruct
+    public void init() {
+        limiter = new AsyncLimiter(maxOutstanding, maxQueued);
+    }
+
+    public CompletableFuture<Boolean> uploadFile(String bucketName, String key, byte[] data) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .build();
+        return call("Failed to upload file to S3",
+            () -> s3AsyncClient.putObject(putObjectRequest, AsyncRequestBody.fromBytes(data)))
+            .thenApply(response -> true);
+    }
+
+    public CompletableFuture<Boolean> uploadFile(String bucketName, String key, Path file) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .build();
+        return call("Failed to upload file to S3",
+            () -> s3AsyncClient.putObject(putObjectRequest, AsyncRequestBody.fromFile(file)))
+            .thenApply(response -> true);
+    }
+
+    public CompletableFuture<byte[]> downloadFile(String bucketName, String key) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.completedFuture(new byte[0]);
+        }
+
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .build();
+        return call("Failed to download file from S3",
+            () -> s3AsyncClient.getObject(getObjectRequest, AsyncResponseTransformer.toBytes()))
+            .thenApply(response -> decode(response.asByteArray(), response.response().contentEncoding()));
+    }
+
+    // Streams the body to disk as it arrives; the file is replaced if it exists. Objects stored
+    // compressed by AwsService are decoded afterwards, as AwsService.downloadFile does
+    public CompletableFuture<Boolean> downloadToFile(String bucketName, String key, Path target) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .build();
+        return call("Failed to download file from S3", () -> s3AsyncClient.getObject(getObjectRequest,
+            AsyncResponseTransformer.toFile(target, FileTransformerConfiguration.defaultCreateOrReplaceExisting())))
+            .thenApply(response -> {
+                decodeInPlace(target, response.contentEncoding());
+                return true;
+            });
+    }
+
+    public CompletableFuture<Boolean> deleteFile(String bucketName, String key) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .build();
+        return call("Failed to delete file from S3", () -> s3AsyncClient.deleteObject(deleteObjectRequest))
+            .thenApply(response -> true);
+    }
+
+    public CompletableFuture<Boolean> fileExists(String bucketName, String key) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return headObject(bucketName, key)
+            .thenApply(response -> true)
+            .exceptionally(error -> {
+                if (unwrap(error) instanceof NoSuchKeyException) {
+                    return false;
+                }
+                throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+            });
+    }
+
+    public CompletableFuture<HeadObjectResponse> headObject(String bucketName, String key) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .build();
+        return call("Failed to check file existence in S3", () -> s3AsyncClient.headObject(headObjectRequest));
+    }
+
+    public CompletableFuture<Map<String, String>> getObjectMetadata(String bucketName, String key) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+
+        return headObject(bucketName, key).thenApply(HeadObjectResponse::metadata);
+    }
+
+    public CompletableFuture<Boolean> setObjectMetadata(String bucketName, String key, Map<String, String> metadata) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        CopyObjectRequest copyObjectRequest = CopyObjectRequest.builder()
+            .sourceBucket(bucketName)
+            .sourceKey(key)
+            .destinationBucket(bucketName)
+            .destinationKey(key)
+            .metadataDirective(MetadataDirective.REPLACE)
+            .metadata(metadata)
+            .build();
+        return call("Failed to set object metadata in S3", () -> s3AsyncClient.copyObject(copyObjectRequest))
+            .thenApply(response -> true);
+    }
+
+    public CompletableFuture<Boolean> copyObject(String sourceBucket, String sourceKey, String destinationBucket, String destinationKey) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        CopyObjectRequest copyObjectRequest = CopyObjectRequest.builder()
+            .sourceBucket(sourceBucket)
+            .sourceKey(sourceKey)
+            .destinationBucket(destinationBucket)
+            .destinationKey(destinationKey)
+            .build();
+        return call("Failed to copy object in S3", () -> s3AsyncClient.copyObject(copyObjectRequest))
+            .thenApply(response -> true);
+    }
+
+    // Follows continuation tokens, one limiter slot per page
+    public CompletableFuture<List<S3Object>> listObjects(String bucketName, String prefix) {
+        if (s3AsyncClient == null) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        List<S3Object> objects = Collections.synchronizedList(new ArrayList<>());
+        return listPage(bucketName, prefix, null, objects).thenApply(done -> List.copyOf(objects));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("outstanding", limiter.getOutstanding());
+        stats.put("queued", limiter.getQueued());
+        stats.put("maxOutstanding", limiter.getMaxOutstanding());
+        return stats;
+    }
+
+    private CompletableFuture<Void> listPage(String bucketName, String prefix, String continuationToken, List<S3Object> sink) {
+        ListObjectsV2Request listObjectsRequest = ListObjectsV2Request.builder()
+            .bucket(bucketName)
+            .prefix(prefix)
+            .continuationToken(continuationToken)
+            .build();
+        return call("Failed to list objects in S3", () -> s3AsyncClient.listObjectsV2(listObjectsRequest))
+            .thenCompose(response -> {
+                sink.addAll(response.contents());
+                if (Boolean.TRUE.equals(response.isTruncated()) && response.nextContinuationToken() != null) {
+                    return listPage(bucketName, prefix, response.nextContinuationToken(), sink);
+                }
+                return CompletableFuture.completedFuture(null);
+            });
+    }
+
+    private <T> CompletableFuture<T> call(String failureMessage, Supplier<CompletableFuture<T>> operation) {
+        return limiter.submit(operation).handle((value, error) -> {
+            if (error != null) {
+                throw new CompletionException(new RuntimeException(failureMessage, unwrap(error)));
+            }
+            return value;
+        });
+    }
+
+    // The SDK's own failures come wrapped in CompletionException, ours in RuntimeException(message)
+    private static Throwable unwrap(Throwable error) {
+        Throwable current = error;
+        while ((current instanceof CompletionException || (current instanceof RuntimeException
+                && current.getClass() == RuntimeException.class)) && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    // Convenience methods using default bucket
+    public CompletableFuture<Boolean> uploadFile(String key, byte[] data) {
+        return uploadFile(defaultBucket, key, data);
+    }
+
+    public CompletableFuture<byte[]> downloadFile(String key) {
+        return downloadFile(defaultBucket, key);
+    }
+
+    public CompletableFuture<Boolean> deleteFile(String key) {
+        return deleteFile(defaultBucket, key);
+    }
+
+    public CompletableFuture<Boolean> fileExists(String key) {
+        return fileExists(defaultBucket, key);
+    }
+
+    public CompletableFuture<HeadObjectResponse> headObject(String key) {
+        return headObject(defaultBucket, key);
+    }
+
+    public CompletableFuture<List<S3Object>> listObjects(String prefix) {
+        return listObjects(defaultBucket, prefix);
+    }
+
+    public CompletableFuture<Map<String, String>> getObjectMetadata(String key) {
+        return getObjectMetadata(defaultBucket, key);
+    }
+
+    private static byte[] decode(byte[] body, String contentEncoding) {
+        CompressionCodec codec = CompressionCodec.fromEncoding(contentEncoding);
+        if (codec == null) {
+            return body;
+        }
+        try (InputStream in = codec.decompress(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode " + contentEncoding + " object from S3", e);
+        }
+    }
+
+    private static void decodeInPlace(Path file, String contentEncoding) {
+        CompressionCodec codec = CompressionCodec.fromEncoding(contentEncoding);
+        if (codec == null) {
+            return;
+        }
+        Path decoded = file.resolveSibling(file.getFileName() + ".decoding");
+        try {
+            try (InputStream in = codec.decompress(Files.newInputStream(file))) {
+                Files.copy(in, decoded, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(decoded, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(decoded);
+            } catch (IOException ignored) {
+                // best effort cleanup of a failed decode
+            }
+            throw new UncheckedIOException("Failed to decode " + contentEncoding + " object from S3", e);
+        }
+    }
+}
@@ -1,9 +1,29 @@
 package org.example.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.service.aws.BulkObjectOperations;
+import org.example.service.aws.BulkObjectOperations.CopyRequest;
+import org.example.service.aws.BulkOperationReport;
+import org.example.service.aws.CircuitBreaker;
+import org.example.service.aws.CompressingInputStream;
+import org.example.service.aws.CompressionCodec;
+import org.example.service.aws.CompressionPolicy;
+import org.example.service.aws.HedgedReader;
+import org.example.service.aws.MultipartUploader;
+import org.example.service.aws.ParallelLister;
+import org.example.service.aws.RangedDownloader;
+import org.example.service.aws.S3MetadataCache;
+import org.example.service.aws.S3ObjectCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
@@ -12,55 +32,226 @@ import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignReques
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
 @Service
 @ConditionalOnProperty(name = "aws.region")
 public class AwsService {
     
+    private static final Logger log = LoggerFactory.getLogger(AwsService.class);
+    
     @Autowired(required = false)
     private S3Client s3Client;
     
     @Autowired(required = false)
     private S3Presigner s3Presigner;
     
+    @Autowired(required = false)
+    private S3ObjectCache objectCache;
+    
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+    
     @Value("${aws.s3.bucket:}")
     private String defaultBucket;
     
+    @Value("${aws.s3.multipart.part-size:8388608}")
+    private int multipartPartSize;
+    
+    @Value("${aws.s3.multipart.concurrency:4}")
+    private int multipartConcurrency;
+    
+    @Value("${aws.s3.multipart.max-retries:3}")
+    private int multipartMaxRetries;
+    
+    @Value("${aws.s3.multipart.max-buffers:16}")
+    private int multipartMaxBuffers;
+    
+    @Value("${aws.s3.download.range-size:8388608}")
+    private long downloadRangeSize;
+    
+    @Value("${aws.s3.download.concurrency:8}")
+    private int downloadConcurrency;
+    
+    @Value("${aws.s3.download.max-retries:3}")
+    private int downloadMaxRetries;
+    
+    @Value("${aws.s3.list.parallelism:8}")
+    private int listParallelism;
+    
+    @Value("${aws.s3.list.queue-capacity:10000}")
+    private int listQueueCapacity;
+    
+    @Value("${aws.s3.bulk.concurrency:16}")
+    private int bulkConcurrency;
+    
+    @Value("${aws.s3.bulk.copy-part-size:536870912}")
+    private long bulkCopyPartSize;
+    
+    @Value("${aws.s3.bulk.max-retries:3}")
+    private int bulkMaxRetries;
+    
+    // bucket[/prefix]=gzip|deflate|none, longest prefix wins; empty stores everything as-is
+    @Value("${aws.s3.compression.rules:}")
+    private List<String> compressionRules;
+    
+    @Value("${aws.s3.compression.level:6}")
+    private int compressionLevel;
+    
+    @Value("${aws.s3.compression.min-bytes:1024}")
+    private int compressionMinBytes;
+    
+    @Value("${aws.s3.metadata-cache.enabled:true}")
+    private boolean metadataCacheEnabled;
+    
+    @Value("${aws.s3.metadata-cache.max-entries:10000}")
+    private int metadataCacheMaxEntries;
+    
+    @Value("${aws.s3.metadata-cache.ttl-ms:30000}")
+    private long metadataCacheTtlMs;
+    
+    @Value("${aws.s3.metadata-cache.negative-ttl-ms:5000}")
+    private long metadataCacheNegativeTtlMs;
+    
+    @Value("${aws.s3.metadata-cache.presign-margin-ms:300000}")
+    private long presignMarginMs;
+    
+    // Hedged reads, per-operation deadlines and a circuit breaker for GET/HEAD
+    @Value("${aws.s3.resilience.enabled:true}")
+    private boolean resilienceEnabled;
+    
+    @Value("${aws.s3.resilience.get-deadline-ms:30000}")
+    private long getDeadlineMs;
+    
+    @Value("${aws.s3.resilience.open-deadline-ms:10000}")
+    private long openDeadlineMs;
+    
+    @Value("${aws.s3.resilience.head-deadline-ms:5000}")
+    private long headDeadlineMs;
+    
+    @Value("${aws.s3.resilience.hedge-percentile:0.95}")
+    private double hedgePercentile;
+    
+    @Value("${aws.s3.resilience.hedge-min-delay-ms:20}")
+    private long hedgeMinDelayMs;
+    
+    @Value("${aws.s3.resilience.hedge-max-ratio:0.1}")
+    private double hedgeMaxRatio;
+    
+    @Value("${aws.s3.resilience.breaker.window:100}")
+    private int breakerWindow;
+    
+    @Value("${aws.s3.resilience.breaker.minimum-calls:20}")
+    private int breakerMinimumCalls;
+    
+    @Value("${aws.s3.resilience.breaker.failure-rate:0.5}")
+    private double breakerFailureRate;
+    
+    @Value("${aws.s3.resilience.breaker.open-ms:30000}")
+    private long breakerOpenMs;
+    
+    @Value("${aws.s3.resilience.breaker.half-open-probes:3}")
+    private int breakerHalfOpenProbes;
+    
+    // Shared by all transfers; per-transfer concurrency is bounded by the transfer helpers
+    private ExecutorService transferExecutor;
+    private MultipartUploader multipartUploader;
+    private RangedDownloader rangedDownloader;
+    private ParallelLister parallelLister;
+    private BulkObjectOperations bulkOperations;
+    private S3MetadataCache metadataCache;
+    private CompressionPolicy compressionPolicy;
+    private HedgedReader hedgedReader;
+    
+    @PostConstruct
+    public void init() {
+        transferExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "s3-transfer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (s3Client != null) {
+            multipartUploader = new MultipartUploader(s3Client, transferExecutor, multipartPartSize,
+                multipartConcurrency, multipartMaxRetries, multipartMaxBuffers);
+            rangedDownloader = new RangedDownloader(s3Client, transferExecutor, downloadRangeSize,
+                downloadConcurrency, downloadMaxRetries);
+            parallelLister = new ParallelLister(s3Client, transferExecutor, listQueueCapacity);
+            bulkOperations = new BulkObjectOperations(s3Client, transferExecutor, bulkConcurrency,
+                bulkCopyPartSize, bulkMaxRetries, this::invalidateCached);
+            if (resilienceEnabled) {
+                CircuitBreaker breaker = new CircuitBreaker("s3-read", breakerWindow, breakerMinimumCalls,
+                    breakerFailureRate, breakerOpenMs, breakerHalfOpenProbes,
+                    (from, to) -> log.warn("S3 read circuit breaker {} -> {}", from, to));
+                hedgedReader = new HedgedReader(transferExecutor, breaker, AwsService::isS3Fault,
+                    hedgePercentile, hedgeMinDelayMs, hedgeMaxRatio);
+                if (meterRegistry != null) {
+                    hedgedReader.bindTo(meterRegistry);
+                }
+            }
+        }
+        compressionPolicy = new CompressionPolicy(compressionRules, compressionLevel, compressionMinBytes);
+        if (metadataCacheEnabled) {
+            metadataCache = new S3MetadataCache(metadataCacheMaxEntries, metadataCacheTtlMs,
+                metadataCacheNegativeTtlMs, presignMarginMs);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        transferExecutor.shutdownNow();
+    }
+    
     public boolean uploadFile(String bucketName, String key, byte[] data) {
         if (s3Client == null) {
             return false;
         }
         
         try {
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .build();
-            
-            s3Client.putObject(putObjectRequest, RequestBody.fromBytes(data));
+            putBytes(bucketName, key, data);
             return true;
         } catch (Exception e) {
             throw new RuntimeException("Failed to upload file to S3", e);
         }
     }
     
+    // Streams of unknown length go up as parallel multipart uploads in bounded memory
     public boolean uploadFile(String bucketName, String key, InputStream inputStream) {
         if (s3Client == null) {
             return false;
         }
         
         try {
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .build();
-            
-            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, -1));
+            CompressionCodec codec = compressionPolicy.codecFor(bucketName, key);
+            if (codec != null) {
+                // Compressed as the uploader reads, so the stream is still never held whole
+                try (CompressingInputStream compressed = codec.compress(inputStream, compressionPolicy.getLevel())) {
+                    multipartUploader.upload(bucketName, key, compressed, codec.encoding(), Map.of());
+                }
+            } else {
+                multipartUploader.upload(bucketName, key, inputStream);
+            }
+            invalidateCached(bucketName, key);
             return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to upload file to S3", e);
         } catch (Exception e) {
             throw new RuntimeException("Failed to upload file to S3", e);
         }
@@ -72,12 +263,7 @@ public class AwsService {
         }
         
         try {
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .build();
-            
-            s3Client.putObject(putObjectRequest, RequestBody.fromString(content));
+            putBytes(bucketName, key, content.getBytes(StandardCharsets.UTF_8));
             return true;
         } catch (Exception e) {
             throw new RuntimeException("Failed to upload file to S3", e);
@@ -90,29 +276,91 @@ public class AwsService {
         }
         
         try {
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+            return readObject(bucketName, key);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to download file from S3", e);
+        }
+    }
+    
+    // Parallel ranged GETs written straight to disk; the object is never held in memory
+    public boolean downloadToFile(String bucketName, String key, Path target) {
+        if (s3Client == null) {
+            return false;
+        }
+        
+        try {
+            HeadObjectResponse head = headCached(bucketName, key);
+            CompressionCodec codec = head != null ? CompressionCodec.fromEncoding(head.contentEncoding()) : null;
+            if (codec != null) {
+                // Ranges of a compressed body cannot be decoded independently; stream it through the decoder
+                downloadDecoded(bucketName, key, codec, target);
+            } else {
+                rangedDownloader.download(bucketName, key, target);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to download file from S3", e);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to download file from S3", e);
+        }
+    }
+    
+    // Caller must close the stream; range is an HTTP Range header value such as "bytes=0-1023"
+    public ResponseInputStream<GetObjectResponse> openStream(String bucketName, String key, String range) {
+        if (s3Client == null) {
+            return null;
+        }
+        
+        try {
+            GetObjectRequest.Builder request = GetObjectRequest.builder()
                 .bucket(bucketName)
-                .key(key)
-                .build();
-            
-            return s3Client.getObjectAsBytes(getObjectRequest).asByteArray();
+                .key(key);
+            if (range != null && !range.isEmpty()) {
+                request.range(range);
+            }
+            // Hedged on time to first byte; the caller reads the body outside the deadline
+            return guardedRead("open", openDeadlineMs, onCancel -> {
+                ResponseInputStream<GetObjectResponse> object = s3Client.getObject(request.build());
+                onCancel.accept(object::abort);
+                return object;
+            }, null);
         } catch (Exception e) {
             throw new RuntimeException("Failed to download file from S3", e);
         }
     }
     
+    // Like openStream without a range, but compressed objects come back decoded
+    public InputStream openDecodedStream(String bucketName, String key) {
+        if (s3Client == null) {
+            return InputStream.nullInputStream();
+        }
+        
+        ResponseInputStream<GetObjectResponse> object = openStream(bucketName, key, null);
+        try {
+            return decode(object, object.response().contentEncoding());
+        } catch (IOException e) {
+            object.abort();
+            throw new RuntimeException("Failed to download file from S3", e);
+        }
+    }
+    
     public String downloadFileAsString(String bucketName, String key) {
         if (s3Client == null) {
             return "";
         }
         
         try {
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .build();
+            if (isCached(bucketName, key)) {
+                S3ObjectCache.CachedObject cached = getCachedObject(bucketName, key);
+                if (CompressionCodec.fromEncoding(cached.contentEncoding()) == null) {
+                    // Decodes straight from the mapped file without an intermediate byte[]
+                    return StandardCharsets.UTF_8.decode(cached.payload().duplicate()).toString();
+                }
+                return new String(readCached(cached), StandardCharsets.UTF_8);
+            }
             
-            return s3Client.getObjectAsBytes(getObjectRequest).asUtf8String();
+            return new String(readUncached(bucketName, key), StandardCharsets.UTF_8);
         } catch (Exception e) {
             throw new RuntimeException("Failed to download file from S3", e);
         }
@@ -130,6 +378,7 @@ public class AwsService {
                 .build();
             
             s3Client.deleteObject(deleteObjectRequest);
+            invalidateCached(bucketName, key);
             return true;
         } catch (Exception e) {
             throw new RuntimeException("Failed to delete file from S3", e);
@@ -142,15 +391,7 @@ public class AwsService {
         }
         
         try {
-            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .build();
-            
-            s3Client.headObject(headObjectRequest);
-            return true;
-        } catch (NoSuchKeyException e) {
-            return false;
+            return headCached(bucketName, key) != null;
         } catch (Exception e) {
             throw new RuntimeException("Failed to check file existence in S3", e);
         }
@@ -162,24 +403,40 @@ public class AwsService {
         }
         
         try {
-            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                .signatureDuration(expiration)
-                .getObjectRequest(GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(key)
-                    .build())
-                .build();
-            
-            PresignedGetObjectRequest presignedRequest = s3Presigner.presignGetObject(presignRequest);
-            return presignedRequest.url().toString();
+            return presign(bucketName, key, expiration);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate presigned URL", e);
+        }
+    }
+    
+    // One call for a whole listing page; keys keep their order, cached URLs are reused
+    public Map<String, String> generatePresignedUrls(String bucketName, Collection<String> keys, Duration expiration) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        if (s3Presigner == null) {
+            return urls;
+        }
+        
+        try {
+            for (String key : keys) {
+                urls.put(key, presign(bucketName, key, expiration));
+            }
+            return urls;
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate presigned URL", e);
         }
     }
     
+    // Every matching object, not just the first page; prefer streamObjects for large prefixes
     public List<S3Object> listObjects(String bucketName, String prefix) {
+        try (Stream<S3Object> objects = streamObjects(bucketName, prefix)) {
+            return objects.toList();
+        }
+    }
+    
+    // Lazily follows continuation tokens, one page in memory at a time
+    public Stream<S3Object> streamObjects(String bucketName, String prefix) {
         if (s3Client == null) {
-            return List.of();
+            return Stream.empty();
         }
         
         try {
@@ -188,13 +445,21 @@ public class AwsService {
                 .prefix(prefix)
                 .build();
             
-            ListObjectsV2Response response = s3Client.listObjectsV2(listObjectsRequest);
-            return response.contents();
+            return s3Client.listObjectsV2Paginator(listObjectsRequest).contents().stream();
         } catch (Exception e) {
             throw new RuntimeException("Failed to list objects in S3", e);
         }
     }
     
+    // Lists "/"-delimited sub-prefixes concurrently; unordered, close the stream to stop early
+    public Stream<S3Object> streamObjectsParallel(String bucketName, String prefix) {
+        if (s3Client == null) {
+            return Stream.empty();
+        }
+        
+        return parallelLister.list(bucketName, prefix, "/", listParallelism);
+    }
+    
     public boolean copyObject(String sourceBucket, String sourceKey, String destinationBucket, String destinationKey) {
         if (s3Client == null) {
             return false;
@@ -209,6 +474,7 @@ public class AwsService {
                 .build();
             
             s3Client.copyObject(copyObjectRequest);
+            invalidateCached(destinationBucket, destinationKey);
             return true;
         } catch (Exception e) {
             throw new RuntimeException("Failed to copy object in S3", e);
@@ -221,40 +487,366 @@ public class AwsService {
         }
         
         try {
+            // REPLACE resets every header, so carry over the ones that describe the body
+            HeadObjectResponse current = head(bucketName, key);
+            if (current == null) {
+                throw NoSuchKeyException.builder().message("No such key: " + key).build();
+            }
             CopyObjectRequest copyObjectRequest = CopyObjectRequest.builder()
                 .sourceBucket(bucketName)
                 .sourceKey(key)
                 .destinationBucket(bucketName)
                 .destinationKey(key)
                 .metadataDirective(MetadataDirective.REPLACE)
+                .contentType(current.contentType())
+                .contentEncoding(current.contentEncoding())
+                .cacheControl(current.cacheControl())
+                .contentDisposition(current.contentDisposition())
                 .metadata(metadata)
                 .build();
             
             s3Client.copyObject(copyObjectRequest);
+            invalidateCached(bucketName, key);
             return true;
         } catch (Exception e) {
             throw new RuntimeException("Failed to set object metadata in S3", e);
         }
     }
     
+    // Null when the key does not exist; served from the metadata cache when possible
+    public HeadObjectResponse headObject(String bucketName, String key) {
+        if (s3Client == null) {
+            return null;
+        }
+        
+        try {
+            return headCached(bucketName, key);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get object metadata from S3", e);
+        }
+    }
+    
     public Map<String, String> getObjectMetadata(String bucketName, String key) {
         if (s3Client == null) {
             return Map.of();
         }
         
         try {
-            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .build();
-            
-            HeadObjectResponse response = s3Client.headObject(headObjectRequest);
+            HeadObjectResponse response = headCached(bucketName, key);
+            if (response == null) {
+                throw NoSuchKeyException.builder().message("No such key: " + key).build();
+            }
             return response.metadata();
         } catch (Exception e) {
             throw new RuntimeException("Failed to get object metadata from S3", e);
         }
     }
     
+    // Batched DeleteObjects requests of up to 1,000 keys, several batches in flight
+    public BulkOperationReport deleteFiles(String bucketName, Collection<String> keys) {
+        return deleteFiles(bucketName, keys.iterator());
+    }
+    
+    // Deletes while listing, so the prefix is never held in memory
+    public BulkOperationReport deleteByPrefix(String bucketName, String prefix) {
+        try (Stream<S3Object> objects = streamObjectsParallel(bucketName, prefix)) {
+            return deleteFiles(bucketName, objects.map(S3Object::key).iterator());
+        }
+    }
+    
+    public BulkOperationReport copyObjects(Collection<CopyRequest> copies) {
+        if (s3Client == null) {
+            return new BulkOperationReport("copy");
+        }
+        
+        try {
+            return bulkOperations.copy(copies.iterator());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to copy objects in S3", e);
+        }
+    }
+    
+    // Every object under sourcePrefix is copied to the same relative key under destinationPrefix
+    public BulkOperationReport copyByPrefix(String sourceBucket, String sourcePrefix,
+                                            String destinationBucket, String destinationPrefix) {
+        if (s3Client == null) {
+            return new BulkOperationReport("copy");
+        }
+        
+        String from = sourcePrefix == null ? "" : sourcePrefix;
+        String to = destinationPrefix == null ? "" : destinationPrefix;
+        // The listing is lazy, so copies written under the source prefix would be listed and copied again
+        if (Objects.equals(sourceBucket, destinationBucket) && to.startsWith(from)) {
+            throw new IllegalArgumentException("destinationPrefix must not be inside sourcePrefix in the same bucket");
+        }
+        try (Stream<S3Object> objects = streamObjectsParallel(sourceBucket, from)) {
+            return bulkOperations.copy(objects
+                .map(object -> new CopyRequest(sourceBucket, object.key(), destinationBucket,
+                    to + object.key().substring(from.length()), object.size()))
+                .iterator());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to copy objects in S3", e);
+        }
+    }
+    
+    // Each object is still a self-copy in S3, but they run in parallel instead of one by one
+    public BulkOperationReport setObjectMetadata(String bucketName, Collection<String> keys, Map<String, String> metadata) {
+        return replaceMetadata(keys.stream()
+            .map(key -> new CopyRequest(bucketName, key, bucketName, key, -1))
+            .iterator(), metadata);
+    }
+    
+    public BulkOperationReport setObjectMetadataByPrefix(String bucketName, String prefix, Map<String, String> metadata) {
+        try (Stream<S3Object> objects = streamObjectsParallel(bucketName, prefix)) {
+            return replaceMetadata(objects
+                .map(object -> new CopyRequest(bucketName, object.key(), bucketName, object.key(), object.size()))
+                .iterator(), metadata);
+        }
+    }
+    
+    private BulkOperationReport deleteFiles(String bucketName, Iterator<String> keys) {
+        if (s3Client == null) {
+            return new BulkOperationReport("delete");
+        }
+        
+        try {
+            return bulkOperations.delete(bucketName, keys);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to delete files from S3", e);
+        }
+    }
+    
+    private BulkOperationReport replaceMetadata(Iterator<CopyRequest> objects, Map<String, String> metadata) {
+        if (s3Client == null) {
+            return new BulkOperationReport("metadata");
+        }
+        
+        try {
+            return bulkOperations.replaceMetadata(objects, metadata);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to set object metadata in S3", e);
+        }
+    }
+    
+    // Small payloads are not worth a codec header, so they go up as-is even under a compressed prefix
+    private void putBytes(String bucketName, String key, byte[] data) throws IOException {
+        CompressionCodec codec = compressionPolicy.codecFor(bucketName, key);
+        PutObjectRequest.Builder request = PutObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key);
+        byte[] body = data;
+        if (codec != null && data.length >= compressionPolicy.getMinBytes()) {
+            try (CompressingInputStream compressed = codec.compress(new ByteArrayInputStream(data),
+                    compressionPolicy.getLevel())) {
+                body = compressed.readAllBytes();
+            }
+            request.contentEncoding(codec.encoding())
+                .metadata(Map.of(CompressionCodec.UNCOMPRESSED_SIZE_METADATA, String.valueOf(data.length)));
+        }
+        
+        s3Client.putObject(request.build(), RequestBody.fromBytes(body));
+        invalidateCached(bucketName, key);
+    }
+    
+    private byte[] readObject(String bucketName, String key) throws Exception {
+        if (isCached(bucketName, key)) {
+            return readCached(getCachedObject(bucketName, key));
+        }
+        return readUncached(bucketName, key);
+    }
+    
+    // Only time to first byte is hedged; a large body must not be fetched twice or count as an S3 fault
+    private byte[] readUncached(String bucketName, String key) throws Exception {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .build();
+        
+        ResponseInputStream<GetObjectResponse> object = guardedRead("get", openDeadlineMs, onCancel -> {
+            ResponseInputStream<GetObjectResponse> response = s3Client.getObject(getObjectRequest);
+            onCancel.accept(response::abort);
+            return response;
+        }, null);
+        try (InputStream in = decode(object, object.response().contentEncoding())) {
+            return in.readAllBytes();
+        } catch (IOException | RuntimeException e) {
+            object.abort();
+            throw e;
+        }
+    }
+    
+    // The cache already coalesces concurrent fetches of a key, so a hedge would only join the same download
+    private S3ObjectCache.CachedObject getCachedObject(String bucketName, String key) throws Exception {
+        if (hedgedReader == null) {
+            return objectCache.get(bucketName, key);
+        }
+        return hedgedReader.read("cached-get", getDeadlineMs, false,
+            onCancel -> objectCache.get(bucketName, key),
+            () -> objectCache.getStale(bucketName, key));
+    }
+    
+    private static byte[] readCached(S3ObjectCache.CachedObject cached) throws IOException {
+        ByteBuffer payload = cached.payload().duplicate();
+        CompressionCodec codec = CompressionCodec.fromEncoding(cached.contentEncoding());
+        if (codec == null) {
+            byte[] data = new byte[payload.remaining()];
+            payload.get(data);
+            return data;
+        }
+        try (InputStream in = codec.decompress(asStream(payload))) {
+            return in.readAllBytes();
+        }
+    }
+    
+    private void downloadDecoded(String bucketName, String key, CompressionCodec codec, Path target) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        if (absolute.getParent() != null) {
+            Files.createDirectories(absolute.getParent());
+        }
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".part");
+        try (InputStream in = codec.decompress(openStream(bucketName, key, null))) {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        CompressionCodec codec = CompressionCodec.fromEncoding(contentEncoding);
+        return codec != null ? codec.decompress(body) : body;
+    }
+    
+    private static InputStream asStream(ByteBuffer buffer) {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+            }
+            
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                int n = Math.min(len, buffer.remaining());
+                buffer.get(b, off, n);
+                return n;
+            }
+        };
+    }
+    
+    public Map<String, Object> getMetadataCacheStats() {
+        return metadataCache != null ? metadataCache.getStats() : Map.of();
+    }
+    
+    public Map<String, Object> getResilienceStats() {
+        return hedgedReader != null ? hedgedReader.getStats() : Map.of();
+    }
+    
+    // HEAD through the metadata cache; null when the key does not exist
+    private HeadObjectResponse headCached(String bucketName, String key) throws Exception {
+        if (metadataCache == null) {
+            return guardedHead(bucketName, key);
+        }
+        
+        S3MetadataCache.HeadEntry cached = metadataCache.getHead(bucketName, key);
+        if (cached != null) {
+            return cached.head();
+        }
+        long stamp = metadataCache.loadStamp();
+        HeadObjectResponse response = guardedHead(bucketName, key);
+        if (response != null) {
+            metadataCache.putHead(bucketName, key, response, stamp);
+        } else {
+            metadataCache.putMissing(bucketName, key, stamp);
+        }
+        return response;
+    }
+    
+    // Reads may fall back to an expired cache entry; writes that need the current headers call head directly
+    private HeadObjectResponse guardedHead(String bucketName, String key) throws Exception {
+        Optional<HeadObjectResponse> response = guardedRead("head", headDeadlineMs,
+            onCancel -> Optional.ofNullable(head(bucketName, key)),
+            () -> {
+                S3MetadataCache.HeadEntry stale = metadataCache != null ? metadataCache.getStaleHead(bucketName, key) : null;
+                return stale != null ? Optional.ofNullable(stale.head()) : null;
+            });
+        return response.orElse(null);
+    }
+    
+    private HeadObjectResponse head(String bucketName, String key) {
+        try {
+            return s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .overrideConfiguration(config -> config.apiCallTimeout(Duration.ofMillis(headDeadlineMs)))
+                .build());
+        } catch (NoSuchKeyException e) {
+            return null;
+        }
+    }
+    
+    private <T> T guardedRead(String operation, long deadlineMs, HedgedReader.Attempt<T> attempt,
+                              HedgedReader.Fallback<T> fallback) throws Exception {
+        if (hedgedReader == null) {
+            return attempt.run(onCancel -> { });
+        }
+        return hedgedReader.read(operation, deadlineMs, true, attempt, fallback);
+    }
+    
+    // Throttling, 5xx, timeouts and I/O errors mean S3 is struggling; other 4xx are answers
+    private static boolean isS3Fault(Throwable error) {
+        if (error instanceof AwsServiceException serviceError) {
+            int status = serviceError.statusCode();
+            return status >= 500 || status == 429 || serviceError.isThrottlingException();
+        }
+        return !(error instanceof IllegalArgumentException || error instanceof IllegalStateException);
+    }
+    
+    private String presign(String bucketName, String key, Duration expiration) {
+        if (metadataCache != null) {
+            String cached = metadataCache.getPresignedUrl(bucketName, key, expiration);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+            .signatureDuration(expiration)
+            .getObjectRequest(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build())
+            .build();
+        
+        PresignedGetObjectRequest presignedRequest = s3Presigner.presignGetObject(presignRequest);
+        String url = presignedRequest.url().toString();
+        if (metadataCache != null) {
+            metadataCache.putPresignedUrl(bucketName, key, expiration, url,
+                presignedRequest.expiration().toEpochMilli());
+        }
+        return url;
+    }
+    
+    private boolean isCached(String bucketName, String key) {
+        return objectCache != null && objectCache.isCacheable(bucketName, key);
+    }
+    
+    private void invalidateCached(String bucketName, String key) {
+        if (objectCache != null) {
+            objectCache.invalidate(bucketName, key);
+        }
+        if (metadataCache != null) {
+            metadataCache.invalidate(bucketName, key);
+        }
+    }
+    
     // Convenience methods using default bucket
     public boolean uploadFile(String key, byte[] data) {
         return uploadFile(defaultBucket, key, data);
@@ -276,6 +868,14 @@ public class AwsService {
         return downloadFileAsString(defaultBucket, key);
     }
     
+    public boolean downloadToFile(String key, Path target) {
+        return downloadToFile(defaultBucket, key, target);
+    }
+    
+    public ResponseInputStream<GetObjectResponse> openStream(String key, String range) {
+        return openStream(defaultBucket, key, range);
+    }
+    
     public boolean deleteFile(String key) {
         return deleteFile(defaultBucket, key);
     }
@@ -288,14 +888,54 @@ public class AwsService {
         return generatePresignedUrl(defaultBucket, key, expiration);
     }
     
+    public Map<String, String> generatePresignedUrls(Collection<String> keys, Duration expiration) {
+        return generatePresignedUrls(defaultBucket, keys, expiration);
+    }
+    
     public List<S3Object> listObjects(String prefix) {
         return listObjects(defaultBucket, prefix);
     }
     
+    public Stream<S3Object> streamObjects(String prefix) {
+        return streamObjects(defaultBucket, prefix);
+    }
+    
+    public Stream<S3Object> streamObjectsParallel(String prefix) {
+        return streamObjectsParallel(defaultBucket, prefix);
+    }
+    
     public Map<String, String> getObjectMetadata(String key) {
         return getObjectMetadata(defaultBucket, key);
     }
     
+    public HeadObjectResponse headObject(String key) {
+        return headObject(defaultBucket, key);
+    }
+    
+    public String getDefaultBucket() {
+        return defaultBucket;
+    }
+    
+    public BulkOperationReport deleteFiles(Collection<String> keys) {
+        return deleteFiles(defaultBucket, keys);
+    }
+    
+    public BulkOperationReport deleteByPrefix(String prefix) {
+        return deleteByPrefix(defaultBucket, prefix);
+    }
+    
+    public BulkOperationReport copyByPrefix(String sourcePrefix, String destinationPrefix) {
+        return copyByPrefix(defaultBucket, sourcePrefix, defaultBucket, destinationPrefix);
+    }
+    
+    public BulkOperationReport setObjectMetadata(Collection<String> keys, Map<String, String> metadata) {
+        return setObjectMetadata(defaultBucket, keys, metadata);
+    }
+    
+    public BulkOperationReport setObjectMetadataByPrefix(String prefix, Map<String, String> metadata) {
+        return setObjectMetadataByPrefix(defaultBucket, prefix, metadata);
+    }
+    
     public String downloadJson(String key) {
         return downloadFileAsString(key);
     }
@@ -0,0 +1,134 @@
+package org.example.service;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque continuation tokens for keyset-paginated endpoints. A token holds the sort key values of
+ * the last row of a page, written with their types and base64url-encoded, so the next request
+ * seeks with exactly the values (ObjectId, Long, LocalDateTime, ...) the previous page ended on.
+ */
+public final class ContinuationToken {
+
+    private static final int VERSION = 1;
+
+    private ContinuationToken() {}
+
+    // Token for the page after this one, or null on the last page
+    public static String next(Window<?> window) {
+        if (window.isEmpty() || !window.hasNext()) {
+            return null;
+        }
+        if (!(window.positionAt(window.size() - 1) instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalStateException("Continuation tokens need a keyset-scrolled window");
+        }
+        return encode(keyset);
+    }
+
+    // A null or empty token starts from the first page
+    public static KeysetScrollPosition decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)));
+            if (in.readUnsignedByte() != VERSION) {
+                throw new IllegalArgumentException("Invalid continuation token");
+            }
+            int count = in.readUnsignedByte();
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                keys.put(in.readUTF(), readValue(in));
+            }
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Invalid continuation token");
+            }
+            return ScrollPosition.forward(keys);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token", e);
+        }
+    }
+
+    private static String encode(KeysetScrollPosition position) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            out.writeByte(position.getKeys().size());
+            for (Map.Entry<String, Object> key : position.getKeys().entrySet()) {
+                out.writeUTF(key.getKey());
+                writeValue(out, key.getValue());
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte('n');
+        } else if (value instanceof ObjectId id) {
+            out.writeByte('o');
+            out.write(id.toByteArray());
+        } else if (value instanceof String string) {
+            out.writeByte('s');
+            out.writeUTF(string);
+        } else if (value instanceof Long number) {
+            out.writeByte('l');
+            out.writeLong(number);
+        } else if (value instanceof Integer number) {
+            out.writeByte('i');
+            out.writeInt(number);
+        } else if (value instanceof Boolean flag) {
+            out.writeByte('b');
+            out.writeBoolean(flag);
+        } else if (value instanceof BigDecimal decimal) {
+            out.writeByte('d');
+            out.writeUTF(decimal.toString());
+        } else if (value instanceof LocalDateTime time) {
+            out.writeByte('t');
+            out.writeUTF(time.toString());
+        } else if (value instanceof Date date) {
+            out.writeByte('D');
+            out.writeLong(date.getTime());
+        } else {
+            throw new IllegalStateException("Unsupported sort key type: " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        int type = in.readUnsignedByte();
+        return switch (type) {
+            case 'n' -> null;
+            case 'o' -> {
+                byte[] id = new byte[12];
+                in.readFully(id);
+                yield new ObjectId(id);
+            }
+            case 's' -> in.readUTF();
+            case 'l' -> in.readLong();
+            case 'i' -> in.readInt();
+            case 'b' -> in.readBoolean();
+            case 'd' -> new BigDecimal(in.readUTF());
+            case 't' -> LocalDateTime.parse(in.readUTF());
+            case 'D' -> new Date(in.readLong());
+            default -> throw new IllegalArgumentException("Invalid continuation token");
+        };
+    }
+}
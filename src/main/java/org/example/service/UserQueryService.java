@@ -0,0 +1,68 @@
+package org.example.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.entity.User;
+import org.example.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Keyset pages and streamed exports over active users. Needs a JDBC datasource, which means
+ * removing DataSourceAutoConfiguration from spring.autoconfigure.exclude as well.
+ */
+@Service
+@ConditionalOnProperty(name = "spring.datasource.url")
+public class UserQueryService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public Window<User> page(String username, String email, LocalDateTime createdAfter, ScrollPosition position, int limit) {
+        validate(username, email, createdAfter);
+        if (createdAfter != null) {
+            return userRepository.findActiveUsersCreatedAfter(createdAfter, position, Limit.of(limit));
+        }
+        if (username != null || email != null) {
+            return userRepository.searchUsers(username, email, position, Limit.of(limit));
+        }
+        return userRepository.findByIsActiveTrueOrderByIdAsc(position, Limit.of(limit));
+    }
+
+    // Each user is detached once the sink returns, so the persistence context stays small
+    @Transactional(readOnly = true)
+    public long export(String username, String email, LocalDateTime createdAfter, Consumer<User> sink) {
+        validate(username, email, createdAfter);
+        long count = 0;
+        try (Stream<User> users = createdAfter != null
+                ? userRepository.streamActiveUsersCreatedAfter(createdAfter)
+                : username != null || email != null
+                    ? userRepository.streamSearchUsers(username, email)
+                    : userRepository.streamByIsActiveTrueOrderByIdAsc()) {
+            for (User user : (Iterable<User>) users::iterator) {
+                sink.accept(user);
+                entityManager.detach(user);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void validate(String username, String email, LocalDateTime createdAfter) {
+        if (createdAfter != null && (username != null || email != null)) {
+            throw new IllegalArgumentException("createdAfter cannot be combined with username or email");
+        }
+    }
+}
@@ -1,19 +1,43 @@
 package org.example.service;
 
+import org.example.service.catalog.PriceHistoryStore;
+import org.example.service.catalog.ProductNormalizer;
+import org.example.service.crawler.CrawlerPageCache;
+import org.example.service.crawler.ExtractionRuleEngine;
+import org.example.service.crawler.SimHash;
+import org.example.service.crawler.SimHashIndex;
+import org.example.service.crawler.UrlCanonicalizer;
+import org.example.service.crawler.UrlSeenSet;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
 import org.jsoup.select.Elements;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 @Service
 @ConditionalOnProperty(name = "web.crawler.enabled", havingValue = "true", matchIfMissing = true)
@@ -22,18 +46,103 @@ public class WebCrawlerService {
     @Autowired(required = false)
     private RestTemplate restTemplate;
     
+    @Autowired(required = false)
+    private CrawlerPageCache pageCache;
+    
+    @Autowired(required = false)
+    private UrlSeenSet urlSeenSet;
+    
+    @Autowired(required = false)
+    private SimHashIndex simHashIndex;
+    
+    @Autowired(required = false)
+    private PriceHistoryStore priceHistoryStore;
+    
+    @Autowired
+    private ExtractionRuleEngine extractionRuleEngine;
+    
+    private static final Set<String> OPERATIONS = Set.of(
+        "links", "images", "new-links", "text", "fingerprint", "metadata");
+    
+    @Value("${web.crawler.user-agent:cloud-strategy-crawler}")
+    private String userAgent;
+    
+    @Value("${web.crawler.streaming.max-bytes:10485760}")
+    private long streamingMaxBytes;
+    
+    @Value("${web.crawler.near-dup.min-words:50}")
+    private int nearDuplicateMinWords;
+    
     public Document crawlPage(String url) throws IOException {
         if (restTemplate != null) {
-            String html = restTemplate.getForObject(url, String.class);
+            String html = pageCache != null ? fetchConditionally(url) : restTemplate.getForObject(url, String.class);
             return Jsoup.parse(html, url);
         } else {
             return Jsoup.connect(url)
-                .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
+                .userAgent(userAgent)
                 .timeout(10000)
                 .get();
         }
     }
     
+    public boolean isSupportedOperation(String operation) {
+        return operation != null && OPERATIONS.contains(operation);
+    }
+    
+    // Single entry point for the extract operations exposed over HTTP
+    public Object extract(String url, String operation, boolean streaming) throws IOException {
+        switch (operation) {
+            case "links":
+                return streaming ? extractLinksStreaming(url) : extractLinks(url);
+            case "images":
+                return streaming ? extractImagesStreaming(url) : extractImages(url);
+            case "new-links":
+                return extractNewLinks(url);
+            case "text":
+                return extractText(url);
+            case "fingerprint":
+                String text = extractText(url);
+                return Map.of(
+                    "simhash", String.format("%016x", SimHash.fingerprint(text)),
+                    "nearDuplicate", isNearDuplicate(url, text));
+            case "metadata":
+                return streaming ? extractMetaDataStreaming(url) : extractMetaData(url);
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+    
+    // Revalidates against the on-disk cache with If-None-Match / If-Modified-Since
+    private String fetchConditionally(String url) {
+        CrawlerPageCache.CachedPage cached = pageCache.lookup(url);
+        
+        return restTemplate.execute(url, HttpMethod.GET, request -> {
+            if (cached != null) {
+                if (cached.etag() != null) {
+                    request.getHeaders().set(HttpHeaders.IF_NONE_MATCH, cached.etag());
+                }
+                if (cached.lastModified() != null) {
+                    request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+                }
+            }
+        }, response -> {
+            if (cached != null && response.getStatusCode().value() == 304) {
+                pageCache.recordNotModified(url, cached);
+                return cached.body();
+            }
+            
+            MediaType contentType = response.getHeaders().getContentType();
+            Charset charset = contentType != null && contentType.getCharset() != null
+                ? contentType.getCharset() : StandardCharsets.UTF_8;
+            byte[] body = response.getBody().readAllBytes();
+            pageCache.store(url,
+                response.getHeaders().getFirst(HttpHeaders.ETAG),
+                response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED),
+                charset, body);
+            return new String(body, charset);
+        });
+    }
+    
     public List<String> extractLinks(String url) throws IOException {
         Document doc = crawlPage(url);
         Elements links = doc.select("a[href]");
@@ -49,6 +158,26 @@ public class WebCrawlerService {
         return linkList;
     }
     
+    // Links that have not been seen by this crawler before (canonicalized before the check)
+    public List<String> extractNewLinks(String url) throws IOException {
+        List<String> links = extractLinks(url);
+        if (urlSeenSet == null) {
+            return links;
+        }
+        
+        List<String> newLinks = new ArrayList<>();
+        for (String link : links) {
+            if (urlSeenSet.add(link)) {
+                newLinks.add(link);
+            }
+        }
+        return newLinks;
+    }
+    
+    public Map<String, Object> getDedupStats() {
+        return urlSeenSet != null ? urlSeenSet.getStats() : Map.of();
+    }
+    
     public List<String> extractImages(String url) throws IOException {
         Document doc = crawlPage(url);
         Elements images = doc.select("img[src]");
@@ -65,7 +194,10 @@ public class WebCrawlerService {
     }
     
     public Map<String, String> extractMetaData(String url) throws IOException {
-        Document doc = crawlPage(url);
+        return extractMetaData(crawlPage(url));
+    }
+    
+    private Map<String, String> extractMetaData(Document doc) {
         Map<String, String> metaData = new HashMap<>();
         
         // Extract title
@@ -97,6 +229,43 @@ public class WebCrawlerService {
         return doc.text();
     }
     
+    // SimHash of the page text, near-duplicate pages differ in only a few bits
+    public long fingerprint(String url) throws IOException {
+        return SimHash.fingerprint(extractText(url));
+    }
+    
+    // True when a different URL with near-identical text has been indexed; the page itself is not
+    // indexed. Pages with fewer than min-words words never count: empty or template-only text
+    // fingerprints alike however different the pages are
+    public boolean isNearDuplicate(String url, String text) {
+        if (simHashIndex == null || SimHash.wordCount(text) < nearDuplicateMinWords) {
+            return false;
+        }
+        long id = UrlCanonicalizer.hash64(UrlCanonicalizer.canonicalize(url));
+        return simHashIndex.findNearDuplicate(SimHash.fingerprint(text), id) != -1L;
+    }
+    
+    // Indexes the page so later copies of it are recognized, unless it is itself a near-duplicate
+    // of another indexed URL; false in that case
+    public boolean indexIfDistinct(String url, String text) {
+        if (simHashIndex == null || SimHash.wordCount(text) < nearDuplicateMinWords) {
+            return true;
+        }
+        long id = UrlCanonicalizer.hash64(UrlCanonicalizer.canonicalize(url));
+        long fingerprint = SimHash.fingerprint(text);
+        synchronized (simHashIndex) {
+            if (simHashIndex.findNearDuplicate(fingerprint, id) != -1L) {
+                return false;
+            }
+            simHashIndex.add(fingerprint, id);
+            return true;
+        }
+    }
+    
+    public Map<String, Object> getNearDuplicateStats() {
+        return simHashIndex != null ? simHashIndex.getStats() : Map.of();
+    }
+    
     public String extractTextBySelector(String url, String selector) throws IOException {
         Document doc = crawlPage(url);
         Elements elements = doc.select(selector);
@@ -146,89 +315,189 @@ public class WebCrawlerService {
     }
     
     public Map<String, Object> crawlProductPage(String url) throws IOException {
+        return crawlProductPage(url, false);
+    }
+    
+    // nearDuplicate flags a page whose text matches another indexed URL (mirrors, sort-order
+    // variants); with index set, a page that is not a duplicate is indexed for later lookups
+    public Map<String, Object> crawlProductPage(String url, boolean index) throws IOException {
         Document doc = crawlPage(url);
-        Map<String, Object> productData = new HashMap<>();
         
-        // Extract basic product information
+        // Title, price, description and images come from the site's extraction rules in one pass
+        Map<String, Object> productData = extractionRuleEngine.extractProduct(doc);
         productData.put("url", url);
-        productData.put("title", doc.selectFirst("title") != null ? doc.selectFirst("title").text() : "");
+        productData.putIfAbsent("title", "");
+        productData.putIfAbsent("images", List.of());
+        String text = doc.text();
+        productData.put("simhash", SimHash.fingerprint(text));
+        productData.put("nearDuplicate", index ? !indexIfDistinct(url, text) : isNearDuplicate(url, text));
         
-        // Extract price (common selectors)
-        String[] priceSelectors = {
-            ".price", ".product-price", "[data-price]", ".current-price", 
-            ".sale-price", ".regular-price", ".price-current"
-        };
+        // Extract additional metadata from the same document
+        productData.put("metadata", extractMetaData(doc));
         
-        for (String selector : priceSelectors) {
-            Element priceElement = doc.selectFirst(selector);
-            if (priceElement != null) {
-                productData.put("price", priceElement.text().trim());
-                break;
-            }
-        }
-        
-        // Extract description
-        String[] descSelectors = {
-            ".description", ".product-description", ".product-summary", 
-            ".product-details", "[data-description]"
-        };
-        
-        for (String selector : descSelectors) {
-            Element descElement = doc.selectFirst(selector);
-            if (descElement != null) {
-                productData.put("description", descElement.text().trim());
-                break;
-            }
+        // Every successful product crawl is one point in the product's price history
+        Object price = productData.get("price");
+        if (priceHistoryStore != null && price != null) {
+            priceHistoryStore.record(ProductNormalizer.deriveProductCode(productData),
+                System.currentTimeMillis() / 1000, price.toString());
         }
         
-        // Extract images
-        List<String> images = extractImages(url);
-        productData.put("images", images);
-        
-        // Extract additional metadata
-        Map<String, String> metaData = extractMetaData(url);
-        productData.put("metadata", metaData);
-        
         return productData;
     }
     
     public List<Map<String, Object>> crawlSearchResults(String searchUrl, String resultSelector) throws IOException {
         Document doc = crawlPage(searchUrl);
-        Elements results = doc.select(resultSelector);
-        List<Map<String, Object>> searchResults = new ArrayList<>();
+        return extractionRuleEngine.extractSearchResults(doc, resultSelector);
+    }
+    
+    // Streaming extraction: elements are handed to the handler as soon as they are closed
+    // and detached afterwards, so the partial DOM never grows with the page size.
+    // The handler returns false to stop reading the response early.
+    public void streamPage(String url, Predicate<Element> handler) throws IOException {
+        if (restTemplate != null) {
+            restTemplate.execute(url, HttpMethod.GET, null, response -> {
+                MediaType contentType = response.getHeaders().getContentType();
+                Charset charset = contentType != null && contentType.getCharset() != null
+                    ? contentType.getCharset() : StandardCharsets.UTF_8;
+                streamElements(response.getBody(), charset, url, handler);
+                return null;
+            });
+        } else {
+            org.jsoup.Connection.Response response = Jsoup.connect(url)
+                .userAgent(userAgent)
+                .timeout(10000)
+                .maxBodySize(0)
+                .execute();
+            Charset charset = response.charset() != null ? Charset.forName(response.charset()) : StandardCharsets.UTF_8;
+            streamElements(response.bodyStream(), charset, url, handler);
+        }
+    }
+    
+    private void streamElements(InputStream body, Charset charset, String baseUri, Predicate<Element> handler) throws IOException {
+        try (Reader reader = new InputStreamReader(new BoundedInputStream(body, streamingMaxBytes), charset);
+             StreamParser parser = new StreamParser(Parser.htmlParser()).parse(reader, baseUri)) {
+            Iterator<Element> elements = parser.iterator();
+            while (elements.hasNext()) {
+                Element element = elements.next();
+                boolean proceed = handler.test(element);
+                
+                // Keep the document and root elements attached, everything else is done with
+                if (element.parent() != null && element.parent() != parser.document()) {
+                    element.remove();
+                }
+                if (!proceed) {
+                    parser.stop();
+                    break;
+                }
+            }
+        }
+    }
+    
+    public void streamLinks(String url, Consumer<String> sink) throws IOException {
+        streamPage(url, element -> {
+            if (element.nameIs("a")) {
+                String href = element.attr("abs:href");
+                if (!href.isEmpty()) {
+                    sink.accept(href);
+                }
+            }
+            return true;
+        });
+    }
+    
+    public void streamImages(String url, Consumer<String> sink) throws IOException {
+        streamPage(url, element -> {
+            if (element.nameIs("img")) {
+                String src = element.attr("abs:src");
+                if (!src.isEmpty()) {
+                    sink.accept(src);
+                }
+            }
+            return true;
+        });
+    }
+    
+    public List<String> extractLinksStreaming(String url) throws IOException {
+        List<String> linkList = new ArrayList<>();
+        streamLinks(url, linkList::add);
+        return linkList;
+    }
+    
+    public List<String> extractImagesStreaming(String url) throws IOException {
+        List<String> imageList = new ArrayList<>();
+        streamImages(url, imageList::add);
+        return imageList;
+    }
+    
+    public Map<String, String> extractMetaDataStreaming(String url) throws IOException {
+        Map<String, String> metaData = new HashMap<>();
         
-        for (Element result : results) {
-            Map<String, Object> resultData = new HashMap<>();
-            
-            // Extract title
-            Element titleElement = result.selectFirst("h1, h2, h3, .title, .product-title");
-            if (titleElement != null) {
-                resultData.put("title", titleElement.text().trim());
+        // Title and meta tags live in <head>, so stop reading once it is closed
+        streamPage(url, element -> {
+            if (element.nameIs("title")) {
+                metaData.putIfAbsent("title", element.text());
+            } else if (element.nameIs("meta")) {
+                String name = element.attr("name");
+                String property = element.attr("property");
+                String content = element.attr("content");
+                
+                if (!name.isEmpty() && !content.isEmpty()) {
+                    metaData.put("meta:" + name, content);
+                }
+                if (!property.isEmpty() && !content.isEmpty()) {
+                    metaData.put("og:" + property, content);
+                }
             }
-            
-            // Extract link
-            Element linkElement = result.selectFirst("a");
-            if (linkElement != null) {
-                resultData.put("link", linkElement.attr("abs:href"));
+            return !element.nameIs("head");
+        });
+        
+        return metaData;
+    }
+    
+    // Ends the stream once the byte budget is spent, truncating oversized pages
+    private static class BoundedInputStream extends FilterInputStream {
+        
+        private long remaining;
+        
+        BoundedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.remaining = maxBytes > 0 ? maxBytes : Long.MAX_VALUE;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
             }
-            
-            // Extract price
-            Element priceElement = result.selectFirst(".price, .product-price");
-            if (priceElement != null) {
-                resultData.put("price", priceElement.text().trim());
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
             }
-            
-            // Extract image
-            Element imageElement = result.selectFirst("img");
-            if (imageElement != null) {
-                resultData.put("image", imageElement.attr("abs:src"));
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
             }
-            
-            if (!resultData.isEmpty()) {
-                searchResults.add(resultData);
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
             }
+            return n;
         }
         
-        return searchResults;
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+        
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
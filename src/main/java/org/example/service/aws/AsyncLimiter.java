@@ -0,0 +1,110 @@
+package org.example.service.aws;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of outstanding asynchronous operations without ever blocking the caller.
+ * Operations beyond the limit wait in a queue and are started as earlier ones complete; once the
+ * queue itself is full, new operations fail fast with {@link RejectedExecutionException}.
+ */
+public class AsyncLimiter {
+
+    private final int maxOutstanding;
+    private final int maxQueued;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    public AsyncLimiter(int maxOutstanding, int maxQueued) {
+        this.maxOutstanding = Math.max(1, maxOutstanding);
+        this.maxQueued = Math.max(0, maxQueued);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> started;
+            try {
+                started = operation.get();
+            } catch (Throwable t) {
+                started = CompletableFuture.failedFuture(t);
+            }
+            started.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        if (tryAcquire()) {
+            start.run();
+        } else if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            result.completeExceptionally(new RejectedExecutionException(
+                "Too many queued S3 operations (" + maxQueued + ")"));
+        } else {
+            waiting.add(start);
+            // A permit may have been released between tryAcquire and add
+            drain();
+        }
+        return result;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public int getMaxOutstanding() {
+        return maxOutstanding;
+    }
+
+    private void release() {
+        outstanding.decrementAndGet();
+        drain();
+    }
+
+    // Trampolined: an operation that completes inline re-enters here, and only the outermost
+    // call keeps looping, so a long queue of instant failures cannot blow the stack
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!waiting.isEmpty() && tryAcquire()) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    outstanding.decrementAndGet();
+                    break;
+                }
+                queued.decrementAndGet();
+                next.run();
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = outstanding.get();
+            if (current >= maxOutstanding) {
+                return false;
+            }
+        } while (!outstanding.compareAndSet(current, current + 1));
+        return true;
+    }
+}
@@ -0,0 +1,388 @@
+package org.example.service.aws;
+
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.MetadataDirective;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartCopyRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartCopyResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Bulk delete, copy and metadata rewrite over any number of keys. Deletes go out as DeleteObjects
+ * batches of up to 1,000 keys; copies and metadata rewrites (which S3 implements as a self-copy)
+ * run one object per task. Either way at most {@code concurrency} requests are in flight, and
+ * keys are pulled from an iterator as capacity frees up, so a listing can be fed straight in.
+ * Objects above the 5 GB CopyObject limit are copied server-side as a multipart upload of
+ * UploadPartCopy ranges. Failures are collected per key in a {@link BulkOperationReport}.
+ */
+public class BulkObjectOperations {
+
+    public static final int MAX_DELETE_BATCH = 1000;
+    // CopyObject refuses sources above 5 GB; multipart copies are limited to 10,000 parts
+    public static final long MAX_SINGLE_COPY_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+    private static final Set<String> RETRYABLE_CODES = Set.of("SlowDown", "InternalError", "ServiceUnavailable");
+
+    // size < 0 when unknown; the source is then only inspected if a plain copy is rejected
+    public record CopyRequest(String sourceBucket, String sourceKey, String destinationBucket,
+                              String destinationKey, long size) {}
+
+    private final S3Client s3Client;
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final long copyPartSize;
+    private final int maxRetries;
+    private final BiConsumer<String, String> onWrite;
+
+    // onWrite is told about every bucket/key that was deleted or overwritten
+    public BulkObjectOperations(S3Client s3Client, ExecutorService executor, int concurrency, long copyPartSize,
+                                int maxRetries, BiConsumer<String, String> onWrite) {
+        this.s3Client = s3Client;
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+        this.copyPartSize = Math.max(MultipartUploader.MIN_PART_SIZE, copyPartSize);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.onWrite = onWrite;
+    }
+
+    public BulkOperationReport delete(String bucket, Iterator<String> keys) throws InterruptedException {
+        BulkOperationReport report = new BulkOperationReport("delete");
+        Iterator<List<String>> batches = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public List<String> next() {
+                List<String> batch = new ArrayList<>(MAX_DELETE_BATCH);
+                while (batch.size() < MAX_DELETE_BATCH && keys.hasNext()) {
+                    batch.add(keys.next());
+                }
+                return batch;
+            }
+        };
+        runBounded(batches, batch -> {
+            report.recordRequested(batch.size());
+            deleteBatch(bucket, batch, report);
+        });
+        report.finish();
+        return report;
+    }
+
+    public BulkOperationReport copy(Iterator<CopyRequest> copies) throws InterruptedException {
+        BulkOperationReport report = new BulkOperationReport("copy");
+        runBounded(copies, copy -> {
+            report.recordRequested(1);
+            copyOne(copy, null, report);
+        });
+        report.finish();
+        return report;
+    }
+
+    // Same semantics as a single setObjectMetadata: the user metadata is replaced wholesale
+    public BulkOperationReport replaceMetadata(Iterator<CopyRequest> objects, Map<String, String> metadata)
+            throws InterruptedException {
+        BulkOperationReport report = new BulkOperationReport("metadata");
+        runBounded(objects, object -> {
+            report.recordRequested(1);
+            copyOne(object, metadata, report);
+        });
+        report.finish();
+        return report;
+    }
+
+    // Pulls the next item only once a permit is free, then waits for the tail to drain
+    private <T> void runBounded(Iterator<T> items, Consumer<T> task) throws InterruptedException {
+        Semaphore permits = new Semaphore(concurrency);
+        try {
+            while (items.hasNext()) {
+                permits.acquire();
+                try {
+                    T item = items.next();
+                    executor.execute(() -> {
+                        try {
+                            task.accept(item);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+        } finally {
+            permits.acquireUninterruptibly(concurrency);
+        }
+    }
+
+    private void deleteBatch(String bucket, List<String> keys, BulkOperationReport report) {
+        List<String> remaining = keys;
+        for (int attempt = 0; ; attempt++) {
+            List<ObjectIdentifier> identifiers = new ArrayList<>(remaining.size());
+            for (String key : remaining) {
+                identifiers.add(ObjectIdentifier.builder().key(key).build());
+            }
+            DeleteObjectsResponse response;
+            try {
+                // Quiet mode: only the keys that could not be deleted come back
+                response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucket)
+                    .delete(Delete.builder().objects(identifiers).quiet(true).build())
+                    .build());
+            } catch (RuntimeException e) {
+                for (String key : remaining) {
+                    report.recordFailure(key, errorCode(e), e.getMessage());
+                }
+                return;
+            }
+
+            List<String> retry = new ArrayList<>();
+            Set<String> failedKeys = new HashSet<>();
+            for (S3Error error : response.errors()) {
+                failedKeys.add(error.key());
+                if (RETRYABLE_CODES.contains(error.code()) && attempt < maxRetries) {
+                    retry.add(error.key());
+                } else {
+                    report.recordFailure(error.key(), error.code(), error.message());
+                }
+            }
+            report.recordSuccess(remaining.size() - failedKeys.size());
+            for (String key : remaining) {
+                if (!failedKeys.contains(key)) {
+                    notifyWrite(bucket, key);
+                }
+            }
+            if (retry.isEmpty()) {
+                return;
+            }
+            remaining = retry;
+            if (!backOff(attempt)) {
+                for (String key : remaining) {
+                    report.recordFailure(key, "Interrupted", "Interrupted before retrying the delete");
+                }
+                return;
+            }
+        }
+    }
+
+    private void copyOne(CopyRequest copy, Map<String, String> metadata, BulkOperationReport report) {
+        try {
+            if (metadata != null) {
+                // REPLACE resets Content-Type/Encoding too, so they are read first and carried over
+                HeadObjectResponse head = head(copy);
+                if (head.contentLength() > MAX_SINGLE_COPY_SIZE) {
+                    multipartCopy(copy, metadata, head);
+                } else {
+                    singleCopy(copy, metadata, head);
+                }
+            } else if (copy.size() > MAX_SINGLE_COPY_SIZE) {
+                multipartCopy(copy, null, null);
+            } else {
+                try {
+                    singleCopy(copy, null, null);
+                } catch (S3Exception e) {
+                    // Size unknown up front: a 400 may just mean the source is too big for CopyObject
+                    if (copy.size() >= 0 || e.statusCode() != 400) {
+                        throw e;
+                    }
+                    HeadObjectResponse head = head(copy);
+                    if (head.contentLength() <= MAX_SINGLE_COPY_SIZE) {
+                        throw e;
+                    }
+                    multipartCopy(copy, null, head);
+                }
+            }
+            report.recordSuccess(1);
+            notifyWrite(copy.destinationBucket(), copy.destinationKey());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.recordFailure(copy.sourceKey(), "Interrupted", e.getMessage());
+        } catch (Exception e) {
+            report.recordFailure(copy.sourceKey(), errorCode(e), e.getMessage());
+        }
+    }
+
+    private void singleCopy(CopyRequest copy, Map<String, String> metadata, HeadObjectResponse head) {
+        CopyObjectRequest.Builder request = CopyObjectRequest.builder()
+            .sourceBucket(copy.sourceBucket())
+            .sourceKey(copy.sourceKey())
+            .destinationBucket(copy.destinationBucket())
+            .destinationKey(copy.destinationKey());
+        if (metadata != null) {
+            request.metadataDirective(MetadataDirective.REPLACE)
+                .contentType(head.contentType())
+                .contentEncoding(head.contentEncoding())
+                .cacheControl(head.cacheControl())
+                .contentDisposition(head.contentDisposition())
+                .metadata(metadata);
+        }
+        s3Client.copyObject(request.build());
+    }
+
+    // Parts are copied in parallel by S3 itself; every range is pinned to the source ETag
+    private void multipartCopy(CopyRequest copy, Map<String, String> metadata, HeadObjectResponse head)
+            throws InterruptedException, ExecutionException {
+        if (head == null) {
+            head = head(copy);
+        }
+        long size = head.contentLength();
+        long partSize = Math.max(copyPartSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+        int partCount = (int) ((size + partSize - 1) / partSize);
+        String eTag = head.eTag();
+
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+            .bucket(copy.destinationBucket())
+            .key(copy.destinationKey())
+            .contentType(head.contentType())
+            .contentEncoding(head.contentEncoding())
+            .contentDisposition(head.contentDisposition())
+            .cacheControl(head.cacheControl())
+            .metadata(metadata != null ? metadata : head.metadata())
+            .build()).uploadId();
+
+        boolean completed = false;
+        try {
+            AtomicInteger nextPart = new AtomicInteger();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            CompletedPart[] parts = new CompletedPart[partCount];
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < Math.min(concurrency, partCount); w++) {
+                workers.add(executor.submit(() -> {
+                    int part;
+                    while (failure.get() == null && (part = nextPart.getAndIncrement()) < partCount) {
+                        long start = part * partSize;
+                        long end = Math.min(size, start + partSize) - 1;
+                        try {
+                            parts[part] = copyPart(copy, uploadId, eTag, part + 1, start, end);
+                        } catch (Throwable t) {
+                            failure.compareAndSet(null, t);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            if (failure.get() != null) {
+                throw new ExecutionException("Multipart copy of " + copy.sourceKey() + " failed", failure.get());
+            }
+
+            List<CompletedPart> ordered = new ArrayList<>(List.of(parts));
+            ordered.sort(Comparator.comparingInt(CompletedPart::partNumber));
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(copy.destinationBucket())
+                .key(copy.destinationKey())
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(ordered).build())
+                .build());
+            completed = true;
+        } finally {
+            if (!completed) {
+                try {
+                    s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(copy.destinationBucket())
+                        .key(copy.destinationKey())
+                        .uploadId(uploadId)
+                        .build());
+                } catch (RuntimeException ignored) {
+                    // the original failure is more useful; lifecycle rules clean up leftovers
+                }
+            }
+        }
+    }
+
+    private CompletedPart copyPart(CopyRequest copy, String uploadId, String eTag, int partNumber,
+                                   long start, long end) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                UploadPartCopyResponse response = s3Client.uploadPartCopy(UploadPartCopyRequest.builder()
+                    .sourceBucket(copy.sourceBucket())
+                    .sourceKey(copy.sourceKey())
+                    .destinationBucket(copy.destinationBucket())
+                    .destinationKey(copy.destinationKey())
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .copySourceRange("bytes=" + start + "-" + end)
+                    .copySourceIfMatch(eTag)
+                    .build());
+                return CompletedPart.builder()
+                    .partNumber(partNumber)
+                    .eTag(response.copyPartResult().eTag())
+                    .build();
+            } catch (S3Exception e) {
+                // 412: the source changed under us, retrying cannot help
+                if (e.statusCode() == 412 || attempt >= maxRetries) {
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+            }
+            Thread.sleep(200L << Math.min(attempt, 6));
+        }
+    }
+
+    private HeadObjectResponse head(CopyRequest copy) {
+        return s3Client.headObject(HeadObjectRequest.builder()
+            .bucket(copy.sourceBucket())
+            .key(copy.sourceKey())
+            .build());
+    }
+
+    private void notifyWrite(String bucket, String key) {
+        if (onWrite != null) {
+            onWrite.accept(bucket, key);
+        }
+    }
+
+    // Backs off 200 ms, 400 ms, 800 ms, ...; false if interrupted
+    private static boolean backOff(int attempt) {
+        try {
+            Thread.sleep(200L << Math.min(attempt, 6));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String errorCode(Throwable error) {
+        Throwable cause = error instanceof ExecutionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof S3Exception s3 && s3.awsErrorDetails() != null && s3.awsErrorDetails().errorCode() != null) {
+            return s3.awsErrorDetails().errorCode();
+        }
+        return cause.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.service.aws;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outcome of a bulk S3 operation. Successes are counted; every failed key is listed with the
+ * S3 error code and message, up to a cap so that a bulk job failing wholesale cannot exhaust the
+ * heap (the failed count stays exact beyond it). Safe to update from many worker threads.
+ */
+public class BulkOperationReport {
+
+    public static final int MAX_LISTED_FAILURES = 10_000;
+
+    public record Failure(String key, String code, String message) {}
+
+    private final String operation;
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger listedFailures = new AtomicInteger();
+    private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+    private volatile long elapsedMs = -1;
+
+    public BulkOperationReport(String operation) {
+        this.operation = operation;
+    }
+
+    void recordRequested(long count) {
+        requested.addAndGet(count);
+    }
+
+    void recordSuccess(long count) {
+        succeeded.addAndGet(count);
+    }
+
+    void recordFailure(String key, String code, String message) {
+        failed.incrementAndGet();
+        if (listedFailures.incrementAndGet() <= MAX_LISTED_FAILURES) {
+            failures.add(new Failure(key, code, message));
+        }
+    }
+
+    void finish() {
+        elapsedMs = System.currentTimeMillis() - startedAt;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getRequested() {
+        return requested.get();
+    }
+
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public List<Failure> getFailures() {
+        return new ArrayList<>(failures);
+    }
+
+    public boolean isFailuresTruncated() {
+        return listedFailures.get() > MAX_LISTED_FAILURES;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs >= 0 ? elapsedMs : System.currentTimeMillis() - startedAt;
+    }
+}
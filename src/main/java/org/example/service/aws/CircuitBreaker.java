@@ -0,0 +1,172 @@
+package org.example.service.aws;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Count-based circuit breaker. Outcomes of the last windowSize calls are kept in a ring; once at
+ * least minimumCalls are recorded and the failure rate reaches the threshold the breaker opens and
+ * rejects calls for openMs. It then lets halfOpenProbes calls through: if they all succeed it
+ * closes with a fresh window, the first failure opens it again.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Thrown instead of calling a backend the breaker considers down. */
+    public static class OpenException extends RuntimeException {
+        public OpenException(String name) {
+            super("Circuit breaker '" + name + "' is open");
+        }
+    }
+
+    private final String name;
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMs;
+    private final int halfOpenProbes;
+    private final BiConsumer<State, State> onTransition;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openUntil;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    private final Map<State, AtomicLong> transitions = new EnumMap<>(State.class);
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openMs, int halfOpenProbes, BiConsumer<State, State> onTransition) {
+        this.name = name;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMs = openMs;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.onTransition = onTransition;
+        for (State target : State.values()) {
+            transitions.put(target, new AtomicLong());
+        }
+    }
+
+    // Every call that returns true must be followed by exactly one onSuccess, onFailure or onIgnored
+    public boolean tryAcquire() {
+        State from;
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() < openUntil) {
+                    return false;
+                }
+                from = transition(State.HALF_OPEN);
+            } else {
+                from = null;
+            }
+            if (probesStarted >= halfOpenProbes) {
+                return false;
+            }
+            probesStarted++;
+        }
+        notifyTransition(from, State.HALF_OPEN);
+        return true;
+    }
+
+    public void onSuccess() {
+        State from = null;
+        State to = null;
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                if (++probesSucceeded >= halfOpenProbes) {
+                    to = State.CLOSED;
+                    from = transition(to);
+                }
+            } else if (state == State.CLOSED) {
+                record(false);
+            }
+        }
+        notifyTransition(from, to);
+    }
+
+    public void onFailure() {
+        State from = null;
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                from = transition(State.OPEN);
+            } else if (state == State.CLOSED) {
+                record(true);
+                if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+                    from = transition(State.OPEN);
+                }
+            }
+        }
+        notifyTransition(from, State.OPEN);
+    }
+
+    // For an acquired call that ended without telling anything about the backend (e.g. interrupted)
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+            probesStarted--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return recorded > 0 ? (double) failures / recorded : 0.0;
+    }
+
+    public long getTransitions(State to) {
+        return transitions.get(to).get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    // Caller holds the lock; returns the previous state for notifyTransition
+    private State transition(State to) {
+        State from = state;
+        state = to;
+        probesStarted = 0;
+        probesSucceeded = 0;
+        if (to == State.OPEN) {
+            openUntil = System.currentTimeMillis() + openMs;
+        } else if (to == State.CLOSED) {
+            recorded = 0;
+            next = 0;
+            failures = 0;
+        }
+        transitions.get(to).incrementAndGet();
+        return from;
+    }
+
+    private void notifyTransition(State from, State to) {
+        if (from != null && onTransition != null) {
+            onTransition.accept(from, to);
+        }
+    }
+}
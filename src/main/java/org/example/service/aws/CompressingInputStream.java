@@ -0,0 +1,127 @@
+package org.example.service.aws;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Pull-based compressor: reading from it yields the gzip (RFC 1952) or zlib (RFC 1950) encoding
+ * of the source stream, produced a buffer at a time as the reader asks for it. Unlike a
+ * GZIPOutputStream it needs no second thread or pipe to sit in front of an upload that reads an
+ * InputStream, and memory use stays at two small buffers whatever the size of the source.
+ */
+public class CompressingInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final InputStream source;
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private final byte[] input = new byte[BUFFER_SIZE];
+    private final byte[] output = new byte[BUFFER_SIZE];
+    private int outputPos;
+    private int outputLen;
+    // gzip header first, then the trailer once the deflater is done
+    private byte[] framing;
+    private int framingPos;
+    private boolean trailerWritten;
+    private boolean sourceDone;
+    private long bytesIn;
+    private long bytesOut;
+
+    public CompressingInputStream(InputStream source, boolean gzip, int level) {
+        this.source = source;
+        this.deflater = new Deflater(level, gzip);
+        this.crc = gzip ? new CRC32() : null;
+        this.framing = gzip ? GZIP_HEADER : null;
+        this.trailerWritten = !gzip;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (framing != null) {
+                int n = Math.min(len, framing.length - framingPos);
+                System.arraycopy(framing, framingPos, b, off, n);
+                framingPos += n;
+                if (framingPos == framing.length) {
+                    framing = null;
+                    framingPos = 0;
+                }
+                bytesOut += n;
+                return n;
+            }
+            if (outputPos < outputLen) {
+                int n = Math.min(len, outputLen - outputPos);
+                System.arraycopy(output, outputPos, b, off, n);
+                outputPos += n;
+                bytesOut += n;
+                return n;
+            }
+            if (deflater.finished()) {
+                if (trailerWritten) {
+                    return -1;
+                }
+                framing = gzipTrailer();
+                trailerWritten = true;
+                continue;
+            }
+            if (deflater.needsInput() && !sourceDone) {
+                int n = source.read(input, 0, input.length);
+                if (n < 0) {
+                    sourceDone = true;
+                    deflater.finish();
+                } else if (n > 0) {
+                    bytesIn += n;
+                    if (crc != null) {
+                        crc.update(input, 0, n);
+                    }
+                    deflater.setInput(input, 0, n);
+                }
+            }
+            outputLen = deflater.deflate(output, 0, output.length);
+            outputPos = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            source.close();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // CRC-32 and input size mod 2^32, both little-endian
+    private byte[] gzipTrailer() {
+        long value = crc.getValue();
+        long size = bytesIn & 0xffffffffL;
+        byte[] trailer = new byte[8];
+        for (int i = 0; i < 4; i++) {
+            trailer[i] = (byte) (value >>> (8 * i));
+            trailer[4 + i] = (byte) (size >>> (8 * i));
+        }
+        return trailer;
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.service.aws;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * In-process throughput and ratio benchmark for the upload compression codecs, run over seeded
+ * synthetic payloads shaped like what this service stores: JSON product records, access-log text
+ * and already-compressed (random) bytes. Everything streams through the same
+ * {@link CompressingInputStream} and decoders that S3 uploads and downloads use; no S3 traffic.
+ *
+ * <p>Run from the command line, not the served API:
+ * {@code java -cp <classpath> org.example.service.aws.CompressionBenchmark [sizeKb] [iterations]}.
+ */
+public class CompressionBenchmark {
+
+    private static final int[] LEVELS = {1, 6};
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String[] CATEGORIES = {"electronics", "books", "garden", "toys", "kitchen", "sports"};
+    private static final String[] PATHS = {"/api/v1/products", "/api/v1/search", "/api/v1/aws/stream", "/actuator/health"};
+
+    public record Result(String payload, String codec, int level, long originalBytes, long compressedBytes,
+                         double ratio, double compressMBps, double decompressMBps) {}
+
+    public static void main(String[] args) {
+        int sizeKb = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        System.out.printf("%-7s %-8s %5s %8s %12s %14s%n", "payload", "codec", "level", "ratio", "compressMBps",
+            "decompressMBps");
+        for (Result result : new CompressionBenchmark().run(sizeKb * 1024, iterations)) {
+            System.out.printf("%-7s %-8s %5d %8.2f %12.2f %14.2f%n", result.payload(), result.codec(), result.level(),
+                result.ratio(), result.compressMBps(), result.decompressMBps());
+        }
+    }
+
+    public List<Result> run(int sizeBytes, int iterations) {
+        Map<String, byte[]> payloads = new LinkedHashMap<>();
+        payloads.put("json", jsonPayload(sizeBytes));
+        payloads.put("log", logPayload(sizeBytes));
+        payloads.put("random", randomPayload(sizeBytes));
+
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, byte[]> payload : payloads.entrySet()) {
+            for (CompressionCodec codec : CompressionCodec.values()) {
+                for (int level : LEVELS) {
+                    results.add(measure(payload.getKey(), payload.getValue(), codec, level, Math.max(1, iterations)));
+                }
+            }
+        }
+        return results;
+    }
+
+    private Result measure(String name, byte[] data, CompressionCodec codec, int level, int iterations) {
+        try {
+            // One untimed round to warm up the JIT and verify the round trip
+            byte[] compressed = compress(data, codec, level);
+            if (decompress(compressed, codec) != data.length) {
+                throw new IllegalStateException("Round trip changed the size of the " + name + " payload");
+            }
+
+            long compressNanos = 0;
+            long decompressNanos = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                compressed = compress(data, codec, level);
+                compressNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                decompress(compressed, codec);
+                decompressNanos += System.nanoTime() - start;
+            }
+
+            double totalMb = (double) data.length * iterations / (1024 * 1024);
+            return new Result(name, codec.encoding(), level, data.length, compressed.length,
+                round((double) data.length / compressed.length),
+                round(totalMb / (compressNanos / 1e9)),
+                round(totalMb / (decompressNanos / 1e9)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Compression benchmark failed", e);
+        }
+    }
+
+    private static byte[] compress(byte[] data, CompressionCodec codec, int level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+        try (InputStream in = codec.compress(new ByteArrayInputStream(data), level)) {
+            in.transferTo(out);
+        }
+        return out.toByteArray();
+    }
+
+    private static long decompress(byte[] data, CompressionCodec codec) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        try (InputStream in = codec.decompress(new ByteArrayInputStream(data))) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    private static byte[] jsonPayload(int size) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder(size + 256).append('[');
+        for (int i = 0; json.length() < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"p-").append(100000 + i)
+                .append("\",\"name\":\"Product ").append(random.nextInt(50000))
+                .append("\",\"category\":\"").append(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                .append("\",\"price\":").append(random.nextInt(100000) / 100.0)
+                .append(",\"stock\":").append(random.nextInt(500))
+                .append(",\"tags\":[\"sale\",\"new\"],\"active\":").append(random.nextBoolean())
+                .append('}');
+        }
+        json.append(']');
+        return truncate(json, size);
+    }
+
+    private static byte[] logPayload(int size) {
+        Random random = new Random(7);
+        StringBuilder log = new StringBuilder(size + 256);
+        long timestamp = 1_700_000_000_000L;
+        while (log.length() < size) {
+            timestamp += random.nextInt(50);
+            log.append(timestamp).append(" INFO  10.0.").append(random.nextInt(256)).append('.')
+                .append(random.nextInt(256)).append(" GET ").append(PATHS[random.nextInt(PATHS.length)])
+                .append("?page=").append(random.nextInt(100)).append(" 200 ")
+                .append(random.nextInt(2000)).append("ms\n");
+        }
+        return truncate(log, size);
+    }
+
+    private static byte[] randomPayload(int size) {
+        byte[] data = new byte[size];
+        new Random(1).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] truncate(StringBuilder text, int size) {
+        text.setLength(Math.min(text.length(), size));
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
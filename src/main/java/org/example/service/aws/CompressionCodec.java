@@ -0,0 +1,97 @@
+package org.example.service.aws;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Codecs usable as an S3 Content-Encoding. The encoding name is what gets stored on the object,
+ * so downloads pick the decoder from the object itself, not from the current upload policy.
+ */
+public enum CompressionCodec {
+
+    GZIP("gzip"),
+    DEFLATE("deflate");
+
+    // User metadata recording the decoded length, when it was known at upload time
+    public static final String UNCOMPRESSED_SIZE_METADATA = "uncompressed-size";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String encoding;
+
+    CompressionCodec(String encoding) {
+        this.encoding = encoding;
+    }
+
+    public String encoding() {
+        return encoding;
+    }
+
+    public CompressingInputStream compress(InputStream source, int level) {
+        return new CompressingInputStream(source, this == GZIP, level);
+    }
+
+    public InputStream decompress(InputStream source) throws IOException {
+        if (this == GZIP) {
+            return new GZIPInputStream(source, BUFFER_SIZE);
+        }
+        Inflater inflater = new Inflater();
+        return new InflaterInputStream(source, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    // Whether an Accept-Encoding header admits this codec (RFC 9110 12.5.3): it must be listed, or
+    // covered by "*", with a non-zero q-value, so "gzip;q=0" refuses gzip. No header admits nothing
+    public boolean isAcceptedBy(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double wildcard = 0;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parameters = element.split(";");
+            String coding = parameters[0].trim();
+            double q = 1.0;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equalsIgnoreCase(encoding) || this == GZIP && coding.equalsIgnoreCase("x-gzip")) {
+                return q > 0;
+            }
+            if (coding.equals("*")) {
+                wildcard = q;
+            }
+        }
+        return wildcard > 0;
+    }
+
+    // Null for a missing, identity or unknown Content-Encoding
+    public static CompressionCodec fromEncoding(String contentEncoding) {
+        if (contentEncoding == null) {
+            return null;
+        }
+        for (CompressionCodec codec : values()) {
+            if (codec.encoding.equalsIgnoreCase(contentEncoding.trim())) {
+                return codec;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.service.aws;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides which uploads are compressed, from rules of the form {@code bucket[/prefix]=codec}.
+ * The longest matching prefix wins, and {@code none} switches compression off beneath a
+ * compressed prefix (for example for images that are already compressed).
+ */
+public class CompressionPolicy {
+
+    private record Rule(String bucket, String prefix, CompressionCodec codec) {}
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final int level;
+    private final int minBytes;
+
+    public CompressionPolicy(List<String> ruleSpecs, int level, int minBytes) {
+        this.level = level;
+        this.minBytes = Math.max(0, minBytes);
+        for (String spec : ruleSpecs) {
+            String trimmed = spec.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int equals = trimmed.lastIndexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Compression rule must be bucket[/prefix]=codec: " + trimmed);
+            }
+            String target = trimmed.substring(0, equals).trim();
+            String codecName = trimmed.substring(equals + 1).trim();
+            CompressionCodec codec = "none".equalsIgnoreCase(codecName) ? null : CompressionCodec.fromEncoding(codecName);
+            if (codec == null && !"none".equalsIgnoreCase(codecName)) {
+                throw new IllegalArgumentException("Unknown compression codec: " + codecName);
+            }
+            int slash = target.indexOf('/');
+            rules.add(slash < 0
+                ? new Rule(target, "", codec)
+                : new Rule(target.substring(0, slash), target.substring(slash + 1), codec));
+        }
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getMinBytes() {
+        return minBytes;
+    }
+
+    // Null when objects under this key are stored as-is
+    public CompressionCodec codecFor(String bucket, String key) {
+        Rule best = null;
+        for (Rule rule : rules) {
+            if (rule.bucket().equals(bucket) && key.startsWith(rule.prefix())
+                    && (best == null || rule.prefix().length() > best.prefix().length())) {
+                best = rule;
+            }
+        }
+        return best != null ? best.codec() : null;
+    }
+}
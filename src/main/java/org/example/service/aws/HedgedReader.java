@@ -0,0 +1,368 @@
+package org.example.service.aws;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Runs idempotent reads with hedging, a deadline and a {@link CircuitBreaker}. If the first
+ * attempt has not answered after the operation's recent latency percentile, a second identical
+ * attempt is started and whichever succeeds first wins; the other is cancelled. Hedges are capped
+ * at a fraction of calls so a degraded backend does not get twice the load. A call that fails with
+ * a fault, or outlives its deadline, counts against the breaker; while the breaker is open calls
+ * fail fast. In both cases a fallback (typically a cached copy) is served when there is one.
+ */
+public class HedgedReader {
+
+    private static final int LATENCY_WINDOW = 1024;
+    private static final int MIN_SAMPLES = 20;
+    private static final Handle NO_WINNER = new Handle();
+
+    /** One attempt at the read; cleanup registered with onCancel runs if the attempt loses or times out. */
+    @FunctionalInterface
+    public interface Attempt<T> {
+        T run(Consumer<Runnable> onCancel) throws Exception;
+    }
+
+    /** Returns a stale value to serve instead of failing, or null when there is none. */
+    @FunctionalInterface
+    public interface Fallback<T> {
+        T get();
+    }
+
+    private final ExecutorService executor;
+    private final CircuitBreaker breaker;
+    private final Predicate<Throwable> isFault;
+    private final double hedgePercentile;
+    private final long minHedgeDelayMs;
+    private final double maxHedgeRatio;
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+
+    public HedgedReader(ExecutorService executor, CircuitBreaker breaker, Predicate<Throwable> isFault,
+                        double hedgePercentile, long minHedgeDelayMs, double maxHedgeRatio) {
+        this.executor = executor;
+        this.breaker = breaker;
+        this.isFault = isFault;
+        this.hedgePercentile = Math.min(1.0, Math.max(0.0, hedgePercentile));
+        this.minHedgeDelayMs = Math.max(1, minHedgeDelayMs);
+        this.maxHedgeRatio = Math.max(0.0, maxHedgeRatio);
+    }
+
+    /**
+     * deadlineMs bounds the whole call including the hedge; hedge=false still applies the deadline
+     * and the breaker, for reads that must not run twice (e.g. ones that already coalesce).
+     */
+    public <T> T read(String operation, long deadlineMs, boolean hedge, Attempt<T> attempt,
+                      Fallback<T> fallback) throws Exception {
+        OperationStats stats = stats(operation);
+        stats.calls.incrementAndGet();
+        if (!breaker.tryAcquire()) {
+            stats.rejected.incrementAndGet();
+            T stale = fallback != null ? fallback.get() : null;
+            if (stale != null) {
+                stats.fallbacks.incrementAndGet();
+                return stale;
+            }
+            throw new CircuitBreaker.OpenException(breaker.getName());
+        }
+
+        long start = System.nanoTime();
+        Race<T> race = new Race<>();
+        try {
+            race.launch(attempt, false, stats);
+            T result;
+            long hedgeDelay = hedge ? stats.hedgeDelayMs(hedgePercentile, minHedgeDelayMs) : -1;
+            if (hedgeDelay >= 0 && hedgeDelay < deadlineMs && stats.hedgeAllowed(maxHedgeRatio)) {
+                try {
+                    result = race.winner.get(hedgeDelay, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException slow) {
+                    if (race.launch(attempt, true, stats)) {
+                        stats.hedges.incrementAndGet();
+                    }
+                    result = race.winner.get(remainingMs(start, deadlineMs), TimeUnit.MILLISECONDS);
+                }
+            } else {
+                result = race.winner.get(deadlineMs, TimeUnit.MILLISECONDS);
+            }
+            stats.recordLatency((System.nanoTime() - start) / 1_000_000);
+            breaker.onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            stats.timeouts.incrementAndGet();
+            breaker.onFailure();
+            return fallbackOr(stats, fallback, new TimeoutException(
+                "S3 " + operation + " exceeded its " + deadlineMs + " ms deadline"));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (!isFault.test(cause)) {
+                // The backend answered (e.g. 404); that is a healthy call with a failed result
+                breaker.onSuccess();
+                throw asException(cause);
+            }
+            stats.failures.incrementAndGet();
+            breaker.onFailure();
+            return fallbackOr(stats, fallback, asException(cause));
+        } catch (InterruptedException e) {
+            breaker.onIgnored();
+            throw e;
+        } finally {
+            race.cancelLosers();
+        }
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        meterRegistry = registry;
+        Gauge.builder("s3.circuit.state", breaker, b -> b.getState().ordinal())
+            .description("0 = closed, 1 = open, 2 = half-open")
+            .tag("breaker", breaker.getName())
+            .register(registry);
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            FunctionCounter.builder("s3.circuit.transitions", breaker, b -> b.getTransitions(state))
+                .tag("breaker", breaker.getName())
+                .tag("to", state.name().toLowerCase())
+                .register(registry);
+        }
+        operations.forEach((name, stats) -> stats.register(registry, name));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("circuitState", breaker.getState().name());
+        stats.put("failureRate", breaker.getFailureRate());
+        Map<String, Object> transitions = new HashMap<>();
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            transitions.put(state.name(), breaker.getTransitions(state));
+        }
+        stats.put("transitions", transitions);
+        Map<String, Object> perOperation = new HashMap<>();
+        operations.forEach((name, operation) -> perOperation.put(name, operation.toMap(hedgePercentile, minHedgeDelayMs)));
+        stats.put("operations", perOperation);
+        return stats;
+    }
+
+    private OperationStats stats(String operation) {
+        OperationStats stats = operations.get(operation);
+        if (stats == null) {
+            stats = operations.computeIfAbsent(operation, name -> {
+                OperationStats created = new OperationStats();
+                MeterRegistry registry = meterRegistry;
+                if (registry != null) {
+                    created.register(registry, name);
+                }
+                return created;
+            });
+        }
+        return stats;
+    }
+
+    private static <T> T fallbackOr(OperationStats stats, Fallback<T> fallback, Exception error) throws Exception {
+        T stale = fallback != null ? fallback.get() : null;
+        if (stale == null) {
+            throw error;
+        }
+        stats.fallbacks.incrementAndGet();
+        return stale;
+    }
+
+    private static Exception asException(Throwable cause) {
+        if (cause instanceof Exception exception) {
+            return exception;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new RuntimeException(cause);
+    }
+
+    private static long remainingMs(long startNanos, long deadlineMs) {
+        return Math.max(0, deadlineMs - (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    // Attempts racing for one call; the winner is the first success, or the last failure
+    private class Race<T> {
+        final CompletableFuture<T> winner = new CompletableFuture<>();
+        final AtomicInteger running = new AtomicInteger();
+        final List<Handle> handles = new CopyOnWriteArrayList<>();
+        // Claimed before the winner completes, so the caller never cancels the attempt it returns
+        final AtomicReference<Handle> won = new AtomicReference<>();
+
+        boolean launch(Attempt<T> attempt, boolean isHedge, OperationStats stats) {
+            if (winner.isDone()) {
+                return false;
+            }
+            Handle handle = new Handle();
+            handles.add(handle);
+            running.incrementAndGet();
+            handle.future = executor.submit(() -> {
+                T value;
+                try {
+                    value = attempt.run(handle::onCancel);
+                } catch (Throwable t) {
+                    if (running.decrementAndGet() == 0 || !isFault.test(t)) {
+                        winner.completeExceptionally(t);
+                    }
+                    return;
+                }
+                running.decrementAndGet();
+                if (won.compareAndSet(null, handle)) {
+                    winner.complete(value);
+                    (isHedge ? stats.hedgeWins : stats.primaryWins).incrementAndGet();
+                } else {
+                    // Lost the race, or the caller gave up: release whatever the attempt opened
+                    handle.cancel();
+                }
+            });
+            return true;
+        }
+
+        // Everything except the attempt whose result was returned
+        void cancelLosers() {
+            won.compareAndSet(null, NO_WINNER);
+            winner.completeExceptionally(new CancellationException());
+            Handle winning = won.get();
+            for (Handle handle : handles) {
+                if (handle != winning) {
+                    handle.cancel();
+                }
+            }
+        }
+    }
+
+    private static class Handle {
+        final List<Runnable> cancellers = new CopyOnWriteArrayList<>();
+        volatile Future<?> future;
+        volatile boolean cancelled;
+
+        void onCancel(Runnable canceller) {
+            cancellers.add(canceller);
+            if (cancelled) {
+                runQuietly(canceller);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            for (Runnable canceller : cancellers) {
+                runQuietly(canceller);
+            }
+            Future<?> running = future;
+            if (running != null) {
+                running.cancel(true);
+            }
+        }
+
+        private static void runQuietly(Runnable canceller) {
+            try {
+                canceller.run();
+            } catch (RuntimeException ignored) {
+                // Best effort: the attempt is being abandoned anyway
+            }
+        }
+    }
+
+    private static class OperationStats {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong primaryWins = new AtomicLong();
+        final AtomicLong hedges = new AtomicLong();
+        final AtomicLong hedgeWins = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong timeouts = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong fallbacks = new AtomicLong();
+
+        private final long[] latencies = new long[LATENCY_WINDOW];
+        private int samples;
+        private int next;
+        private long cachedDelay = -1;
+        private int sinceRecompute;
+
+        synchronized void recordLatency(long ms) {
+            latencies[next] = ms;
+            next = (next + 1) % latencies.length;
+            samples = Math.min(samples + 1, latencies.length);
+            sinceRecompute++;
+        }
+
+        // -1 until enough latencies are known to pick a meaningful percentile
+        synchronized long hedgeDelayMs(double percentile, long minDelayMs) {
+            if (samples < MIN_SAMPLES) {
+                return -1;
+            }
+            // Sorting the window on every call is wasteful; the percentile moves slowly
+            if (cachedDelay < 0 || sinceRecompute >= 64) {
+                long[] sorted = Arrays.copyOf(latencies, samples);
+                Arrays.sort(sorted);
+                int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+                cachedDelay = Math.max(minDelayMs, sorted[Math.max(0, index)]);
+                sinceRecompute = 0;
+            }
+            return cachedDelay;
+        }
+
+        // Small burst allowance so the first slow calls can be hedged before the ratio means anything
+        boolean hedgeAllowed(double maxRatio) {
+            return hedges.get() < maxRatio * calls.get() + 1;
+        }
+
+        double hedgeWinRatio() {
+            long sent = hedges.get();
+            return sent > 0 ? (double) hedgeWins.get() / sent : 0.0;
+        }
+
+        void register(MeterRegistry registry, String operation) {
+            counter(registry, "s3.read.calls", operation, "outcome", "total", calls);
+            counter(registry, "s3.read.calls", operation, "outcome", "failure", failures);
+            counter(registry, "s3.read.calls", operation, "outcome", "timeout", timeouts);
+            counter(registry, "s3.read.calls", operation, "outcome", "rejected", rejected);
+            counter(registry, "s3.read.calls", operation, "outcome", "fallback", fallbacks);
+            counter(registry, "s3.read.hedges", operation, "result", "sent", hedges);
+            counter(registry, "s3.read.hedges", operation, "result", "won", hedgeWins);
+            Gauge.builder("s3.read.hedge.win.ratio", this, OperationStats::hedgeWinRatio)
+                .tag("operation", operation)
+                .register(registry);
+        }
+
+        Map<String, Object> toMap(double percentile, long minDelayMs) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("calls", calls.get());
+            map.put("primaryWins", primaryWins.get());
+            map.put("hedges", hedges.get());
+            map.put("hedgeWins", hedgeWins.get());
+            map.put("hedgeWinRatio", hedgeWinRatio());
+            map.put("hedgeDelayMs", hedgeDelayMs(percentile, minDelayMs));
+            map.put("failures", failures.get());
+            map.put("timeouts", timeouts.get());
+            map.put("rejected", rejected.get());
+            map.put("fallbacks", fallbacks.get());
+            return map;
+        }
+
+        private static void counter(MeterRegistry registry, String name, String operation, String tag,
+                                    String value, AtomicLong count) {
+            FunctionCounter.builder(name, count, AtomicLong::get)
+                .tag("operation", operation)
+                .tag(tag, value)
+                .register(registry);
+        }
+    }
+}
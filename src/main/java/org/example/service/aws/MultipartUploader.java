@@ -0,0 +1,260 @@
+package org.example.service.aws;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams an InputStream of unknown length to S3 as a multipart upload. The stream is read into
+ * fixed-size part buffers taken from a shared pool, parts are uploaded in parallel and retried
+ * individually, and the upload is aborted if any part finally fails. Memory is bounded by the
+ * pool: a reader that outpaces the network blocks until a buffer is returned. Streams that fit
+ * in a single part are sent with one PutObject.
+ */
+public class MultipartUploader {
+
+    // S3 limits: parts (except the last) must be at least 5 MiB, at most 10,000 parts per upload
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
+    private final S3Client s3Client;
+    private final ExecutorService executor;
+    private final int partSize;
+    private final int concurrency;
+    private final int maxRetries;
+    private final BlockingQueue<byte[]> bufferPool;
+    private final AtomicInteger allocatedBuffers = new AtomicInteger();
+    private final int maxBuffers;
+
+    public MultipartUploader(S3Client s3Client, ExecutorService executor, int partSize, int concurrency,
+                             int maxRetries, int maxBuffers) {
+        this.s3Client = s3Client;
+        this.executor = executor;
+        this.partSize = Math.max(MIN_PART_SIZE, partSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.maxBuffers = Math.max(this.concurrency + 1, maxBuffers);
+        this.bufferPool = new ArrayBlockingQueue<>(this.maxBuffers);
+    }
+
+    public int getPartSize() {
+        return partSize;
+    }
+
+    public long getPooledBytes() {
+        return (long) allocatedBuffers.get() * partSize;
+    }
+
+    public void upload(String bucket, String key, InputStream input) throws IOException, InterruptedException {
+        upload(bucket, key, input, null, Map.of());
+    }
+
+    // contentEncoding and metadata are set on the resulting object; null encoding leaves it unset
+    public void upload(String bucket, String key, InputStream input, String contentEncoding,
+                       Map<String, String> metadata) throws IOException, InterruptedException {
+        byte[] pending = acquireBuffer();
+        String uploadId = null;
+        List<Future<CompletedPart>> futures = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            int length = readFully(input, pending);
+            if (length < partSize) {
+                s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentEncoding(contentEncoding)
+                        .metadata(metadata)
+                        .build(),
+                    RequestBody.fromInputStream(new ByteArrayInputStream(pending, 0, length), length));
+                return;
+            }
+
+            uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentEncoding(contentEncoding)
+                .metadata(metadata)
+                .build()).uploadId();
+
+            Semaphore inFlight = new Semaphore(concurrency);
+            int partNumber = 1;
+            while (failure.get() == null) {
+                if (partNumber > MAX_PARTS) {
+                    throw new IOException("Stream exceeds " + MAX_PARTS + " parts of " + partSize
+                        + " bytes; raise aws.s3.multipart.part-size");
+                }
+                inFlight.acquire();
+                futures.add(submitPart(bucket, key, uploadId, partNumber++, pending, length, inFlight, failure));
+                pending = null;
+                if (length < partSize) {
+                    break;
+                }
+                pending = acquireBuffer();
+                length = readFully(input, pending);
+                if (length == 0) {
+                    break;
+                }
+            }
+
+            List<CompletedPart> parts = new ArrayList<>(futures.size());
+            for (Future<CompletedPart> future : futures) {
+                parts.add(future.get());
+            }
+            parts.sort(Comparator.comparing(CompletedPart::partNumber));
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                .build());
+        } catch (Exception e) {
+            // Queued parts see the failure and skip; let running ones finish so their buffers come
+            // back to the pool and nothing lands after the abort
+            failure.compareAndSet(null, e);
+            awaitQuietly(futures);
+            if (uploadId != null) {
+                abort(bucket, key, uploadId);
+            }
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof InterruptedException interrupted) {
+                throw interrupted;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Multipart upload of " + key + " failed", cause);
+        } finally {
+            if (pending != null) {
+                bufferPool.offer(pending);
+            }
+        }
+    }
+
+    private Future<CompletedPart> submitPart(String bucket, String key, String uploadId, int partNumber,
+                                             byte[] buffer, int length, Semaphore inFlight,
+                                             AtomicReference<Throwable> failure) {
+        return executor.submit(() -> {
+            try {
+                if (failure.get() != null) {
+                    throw new IOException("Upload of " + key + " already failed");
+                }
+                return uploadPartWithRetry(bucket, key, uploadId, partNumber, buffer, length, failure);
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+                throw t;
+            } finally {
+                bufferPool.offer(buffer);
+                inFlight.release();
+            }
+        });
+    }
+
+    private CompletedPart uploadPartWithRetry(String bucket, String key, String uploadId, int partNumber,
+                                              byte[] buffer, int length, AtomicReference<Throwable> failure)
+            throws InterruptedException {
+        UploadPartRequest request = UploadPartRequest.builder()
+            .bucket(bucket)
+            .key(key)
+            .uploadId(uploadId)
+            .partNumber(partNumber)
+            .contentLength((long) length)
+            .build();
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                String eTag = s3Client.uploadPart(request,
+                    RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length)).eTag();
+                return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries || failure.get() != null || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                // Exponential backoff: 200 ms, 400 ms, 800 ms, ...
+                Thread.sleep(200L << Math.min(attempt, 6));
+            }
+        }
+    }
+
+    private static void awaitQuietly(List<Future<CompletedPart>> futures) {
+        boolean interrupted = false;
+        for (Future<CompletedPart> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void abort(String bucket, String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .build());
+        } catch (RuntimeException ignored) {
+            // Best effort; a bucket lifecycle rule should clean up anything left behind
+        }
+    }
+
+    // Buffers are allocated lazily up to maxBuffers and then recycled
+    private byte[] acquireBuffer() throws InterruptedException {
+        byte[] buffer = bufferPool.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (allocatedBuffers.incrementAndGet() <= maxBuffers) {
+            return new byte[partSize];
+        }
+        allocatedBuffers.decrementAndGet();
+        return bufferPool.take();
+    }
+
+    private static int readFully(InputStream input, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = input.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.service.aws;
+
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lists a prefix with several ListObjectsV2 paginations running at once. The key space is split
+ * on the delimiter: a shard is first listed with the delimiter, its direct objects are emitted
+ * and its common prefixes become new shards, until there are enough shards to keep every worker
+ * busy; from then on shards are listed flat. Results flow through a bounded queue, so memory
+ * stays constant however many keys there are. Objects arrive in no particular order.
+ */
+public class ParallelLister {
+
+    private static final int MAX_SPLIT_DEPTH = 3;
+    private static final Object WORKER_DONE = new Object();
+
+    private final S3Client s3Client;
+    private final ExecutorService executor;
+    private final int queueCapacity;
+
+    public ParallelLister(S3Client s3Client, ExecutorService executor, int queueCapacity) {
+        this.s3Client = s3Client;
+        this.executor = executor;
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    // Workers start on first read; close the stream to stop them early
+    public Stream<S3Object> list(String bucket, String prefix, String delimiter, int parallelism) {
+        Listing listing = new Listing(bucket, prefix == null ? "" : prefix, delimiter, Math.max(1, parallelism));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(listing,
+                Spliterator.NONNULL | Spliterator.DISTINCT), false)
+            .onClose(listing::cancel);
+    }
+
+    private record Shard(String prefix, int depth) {}
+
+    private final class Listing implements Iterator<S3Object> {
+        private final String bucket;
+        private final String rootPrefix;
+        private final String delimiter;
+        private final int workers;
+        private final BlockingQueue<Object> results = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<Shard> shards = new LinkedBlockingQueue<>();
+        private final AtomicInteger unfinishedShards = new AtomicInteger();
+        private final AtomicInteger knownShards = new AtomicInteger();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private boolean started;
+        private int finishedWorkers;
+        private S3Object next;
+
+        Listing(String bucket, String rootPrefix, String delimiter, int workers) {
+            this.bucket = bucket;
+            this.rootPrefix = rootPrefix;
+            this.delimiter = delimiter;
+            this.workers = workers;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!started) {
+                start();
+            }
+            while (next == null && finishedWorkers < workers) {
+                Object item;
+                try {
+                    item = results.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancel();
+                    throw new RuntimeException("Interrupted while listing objects in S3", e);
+                }
+                if (item == WORKER_DONE) {
+                    finishedWorkers++;
+                } else {
+                    next = (S3Object) item;
+                }
+            }
+            if (next == null && failure.get() != null) {
+                throw failure.get();
+            }
+            return next != null;
+        }
+
+        @Override
+        public S3Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            S3Object current = next;
+            next = null;
+            return current;
+        }
+
+        void cancel() {
+            cancelled.set(true);
+        }
+
+        private void start() {
+            started = true;
+            addShard(new Shard(rootPrefix, 0));
+            for (int i = 0; i < workers; i++) {
+                executor.execute(this::work);
+            }
+        }
+
+        private void addShard(Shard shard) {
+            unfinishedShards.incrementAndGet();
+            knownShards.incrementAndGet();
+            shards.add(shard);
+        }
+
+        private void work() {
+            try {
+                while (!cancelled.get() && unfinishedShards.get() > 0) {
+                    Shard shard = shards.poll(50, TimeUnit.MILLISECONDS);
+                    if (shard == null) {
+                        continue; // another worker may still be splitting
+                    }
+                    try {
+                        listShard(shard);
+                    } finally {
+                        unfinishedShards.decrementAndGet();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                cancelled.set(true);
+            } finally {
+                emit(WORKER_DONE, true);
+            }
+        }
+
+        private void listShard(Shard shard) throws InterruptedException {
+            boolean split = delimiter != null && !delimiter.isEmpty()
+                && shard.depth() < MAX_SPLIT_DEPTH && knownShards.get() < workers * 4;
+            ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(shard.prefix())
+                .delimiter(split ? delimiter : null)
+                .build();
+
+            for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(request)) {
+                if (cancelled.get()) {
+                    return;
+                }
+                if (split) {
+                    for (CommonPrefix commonPrefix : page.commonPrefixes()) {
+                        addShard(new Shard(commonPrefix.prefix(), shard.depth() + 1));
+                    }
+                }
+                for (S3Object object : page.contents()) {
+                    if (!emit(object, false)) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        // Blocks while the consumer is behind, but gives up once the listing is cancelled
+        private boolean emit(Object item, boolean always) {
+            try {
+                while (!results.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                    if (cancelled.get() && !always) {
+                        return false;
+                    }
+                    if (cancelled.get() && results.remainingCapacity() == 0) {
+                        results.poll(); // consumer is gone, make room for the done marker
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
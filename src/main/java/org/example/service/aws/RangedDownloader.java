@@ -0,0 +1,155 @@
+package org.example.service.aws;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Downloads an S3 object to a file as parallel byte-range GETs, each written straight into a
+ * shared FileChannel at its offset through a small per-worker copy buffer, so the object never sits
+ * on the heap. Ranges are pinned to the ETag seen up front, a failed range resumes from the last
+ * byte written, and the file only appears at its final path once every range has landed.
+ */
+public class RangedDownloader {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final S3Client s3Client;
+    private final ExecutorService executor;
+    private final long rangeSize;
+    private final int concurrency;
+    private final int maxRetries;
+
+    public RangedDownloader(S3Client s3Client, ExecutorService executor, long rangeSize, int concurrency, int maxRetries) {
+        this.s3Client = s3Client;
+        this.executor = executor;
+        this.rangeSize = Math.max(1024 * 1024, rangeSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    // Returns the object's metadata as of the download
+    public HeadObjectResponse download(String bucket, String key, Path target) throws IOException, InterruptedException {
+        HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+        long size = head.contentLength();
+        String eTag = head.eTag();
+        int rangeCount = (int) Math.max(1, (size + rangeSize - 1) / rangeSize);
+
+        Path absolute = target.toAbsolutePath();
+        if (absolute.getParent() != null) {
+            Files.createDirectories(absolute.getParent());
+        }
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".part");
+
+        AtomicInteger nextRange = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<Future<?>> workers = new ArrayList<>();
+            int workerCount = Math.min(concurrency, rangeCount);
+            for (int w = 0; w < workerCount; w++) {
+                workers.add(executor.submit(() -> {
+                    byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                    int range;
+                    while (failure.get() == null && (range = nextRange.getAndIncrement()) < rangeCount) {
+                        long start = range * rangeSize;
+                        long end = Math.min(size, start + rangeSize) - 1;
+                        try {
+                            downloadRange(bucket, key, eTag, start, end, channel, buffer);
+                        } catch (Throwable t) {
+                            failure.compareAndSet(null, t);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            channel.force(false);
+            completed = true;
+        } catch (ExecutionException e) {
+            throw new IOException("Ranged download of " + key + " failed", e.getCause());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IOException("Ranged download of " + key + " failed", t);
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return head;
+    }
+
+    private void downloadRange(String bucket, String key, String eTag, long start, long end,
+                               FileChannel channel, byte[] buffer) throws IOException, InterruptedException {
+        long[] position = {start};
+        for (int attempt = 0; ; attempt++) {
+            if (position[0] > end) {
+                return; // empty object
+            }
+            GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range("bytes=" + position[0] + "-" + end)
+                .ifMatch(eTag)
+                .build();
+            try (ResponseInputStream<GetObjectResponse> body = s3Client.getObject(request)) {
+                copy(body, channel, position, buffer);
+                if (position[0] > end) {
+                    return;
+                }
+                throw new IOException("Range ended early at byte " + position[0] + " of " + key);
+            } catch (S3Exception e) {
+                // 412: the object changed since we started, retrying cannot help
+                if (e.statusCode() == 412 || attempt >= maxRetries) {
+                    throw e;
+                }
+            } catch (IOException | RuntimeException e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+            }
+            // Resume from the last byte written, backing off 200 ms, 400 ms, 800 ms, ...
+            Thread.sleep(200L << Math.min(attempt, 6));
+        }
+    }
+
+    // Advances position[0] as bytes land, so a retry can pick up where a broken stream stopped
+    private static void copy(InputStream in, FileChannel channel, long[] position, byte[] buffer) throws IOException {
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+            while (chunk.hasRemaining()) {
+                position[0] += channel.write(chunk, position[0]);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.service.aws;
+
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of HEAD results and presigned GET URLs. HEAD responses are kept for a TTL,
+ * keys known to be missing for a shorter negative TTL, both in a size-bounded LRU. The owner
+ * must {@link #invalidate} a key whenever it writes, copies or deletes it. Presigned URLs are
+ * reused until a safety margin before they expire, so a caller always gets at least that much
+ * validity (or half the requested duration, for short ones).
+ */
+public class S3MetadataCache {
+
+    private final long ttlMs;
+    private final long negativeTtlMs;
+    private final long presignMarginMs;
+    private final Map<String, HeadEntry> heads;
+    private final Map<String, PresignEntry> presigned;
+
+    // Bumped on every invalidation so a HEAD that raced with a write is not cached
+    private long invalidations;
+
+    private final AtomicLong headHits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong headMisses = new AtomicLong();
+    private final AtomicLong presignHits = new AtomicLong();
+    private final AtomicLong presignMisses = new AtomicLong();
+
+    // head is null for a key that did not exist when it was looked up
+    public record HeadEntry(HeadObjectResponse head, long expiresAt) {
+        public boolean exists() {
+            return head != null;
+        }
+    }
+
+    private record PresignEntry(String url, long expiresAt) {}
+
+    public S3MetadataCache(int maxEntries, long ttlMs, long negativeTtlMs, long presignMarginMs) {
+        this.ttlMs = ttlMs;
+        this.negativeTtlMs = negativeTtlMs;
+        this.presignMarginMs = Math.max(0, presignMarginMs);
+        this.heads = lru(maxEntries);
+        this.presigned = lru(maxEntries);
+    }
+
+    // Returns null when the key has to be looked up in S3
+    public HeadEntry getHead(String bucket, String key) {
+        String cacheKey = bucket + "/" + key;
+        HeadEntry entry;
+        synchronized (heads) {
+            entry = heads.get(cacheKey);
+            // Expired entries stay until evicted or invalidated, as a fallback while S3 is unreachable
+            if (entry != null && entry.expiresAt() <= System.currentTimeMillis()) {
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            headMisses.incrementAndGet();
+        } else if (entry.exists()) {
+            headHits.incrementAndGet();
+        } else {
+            negativeHits.incrementAndGet();
+        }
+        return entry;
+    }
+
+    // Last known result regardless of age; null if the key was never looked up or has been written since
+    public HeadEntry getStaleHead(String bucket, String key) {
+        synchronized (heads) {
+            return heads.get(bucket + "/" + key);
+        }
+    }
+
+    // Take a stamp before sending the HEAD and hand it back with the result
+    public long loadStamp() {
+        synchronized (heads) {
+            return invalidations;
+        }
+    }
+
+    public void putHead(String bucket, String key, HeadObjectResponse head, long stamp) {
+        store(bucket, key, head, ttlMs, stamp);
+    }
+
+    public void putMissing(String bucket, String key, long stamp) {
+        store(bucket, key, null, negativeTtlMs, stamp);
+    }
+
+    // Presigned URLs are left alone: a presigned GET stays valid across overwrites
+    public void invalidate(String bucket, String key) {
+        synchronized (heads) {
+            invalidations++;
+            heads.remove(bucket + "/" + key);
+        }
+    }
+
+    public String getPresignedUrl(String bucket, String key, Duration expiration) {
+        String cacheKey = presignKey(bucket, key, expiration);
+        synchronized (presigned) {
+            PresignEntry entry = presigned.get(cacheKey);
+            if (entry != null && System.currentTimeMillis() < entry.expiresAt() - margin(expiration)) {
+                presignHits.incrementAndGet();
+                return entry.url();
+            }
+        }
+        presignMisses.incrementAndGet();
+        return null;
+    }
+
+    // expiresAt is the signature's own expiry, not now + expiration
+    public void putPresignedUrl(String bucket, String key, Duration expiration, String url, long expiresAt) {
+        PresignEntry entry = new PresignEntry(url, expiresAt);
+        synchronized (presigned) {
+            presigned.put(presignKey(bucket, key, expiration), entry);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (heads) {
+            stats.put("headEntries", heads.size());
+        }
+        synchronized (presigned) {
+            stats.put("presignedEntries", presigned.size());
+        }
+        stats.put("headHits", headHits.get());
+        stats.put("negativeHits", negativeHits.get());
+        stats.put("headMisses", headMisses.get());
+        stats.put("presignHits", presignHits.get());
+        stats.put("presignMisses", presignMisses.get());
+        return stats;
+    }
+
+    private void store(String bucket, String key, HeadObjectResponse head, long ttl, long stamp) {
+        if (ttl <= 0) {
+            return;
+        }
+        HeadEntry entry = new HeadEntry(head, System.currentTimeMillis() + ttl);
+        synchronized (heads) {
+            if (stamp == invalidations) {
+                heads.put(bucket + "/" + key, entry);
+            }
+        }
+    }
+
+    private long margin(Duration expiration) {
+        return Math.min(presignMarginMs, expiration.toMillis() / 2);
+    }
+
+    private static String presignKey(String bucket, String key, Duration expiration) {
+        return expiration.toSeconds() + ":" + bucket + "/" + key;
+    }
+
+    private static <V> Map<String, V> lru(int maxEntries) {
+        int bound = Math.max(1, maxEntries);
+        return new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > bound;
+            }
+        };
+    }
+}
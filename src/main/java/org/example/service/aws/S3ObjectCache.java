@@ -0,0 +1,250 @@
+package org.example.service.aws;
+
+import jakarta.annotation.PostConstruct;
+import org.example.service.cache.DiskLruStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through disk cache for S3 objects. Bodies are streamed to disk on a miss and read back as
+ * memory-mapped buffers; once an entry is older than the freshness window it is revalidated with
+ * a conditional GET (If-None-Match) and only re-downloaded if the ETag changed. Concurrent
+ * requests for the same object share one download. Only buckets / prefixes listed in
+ * aws.s3.cache.include are cached, and only objects up to max-object-bytes: larger ones are
+ * returned from an ordinary GET without being stored, so they never evict the rest of the cache.
+ */
+@Component
+@ConditionalOnProperty(name = "aws.s3.cache.enabled", havingValue = "true")
+public class S3ObjectCache {
+
+    @Autowired
+    private S3Client s3Client;
+
+    @Value("${aws.s3.cache.dir:${java.io.tmpdir}/s3-object-cache}")
+    private String cacheDir;
+
+    @Value("${aws.s3.cache.max-bytes:1073741824}")
+    private long maxBytes;
+
+    @Value("${aws.s3.cache.freshness-ms:60000}")
+    private long freshnessMs;
+
+    // 0 admits objects up to a quarter of max-bytes
+    @Value("${aws.s3.cache.max-object-bytes:0}")
+    private long maxObjectBytes;
+
+    // Comma-separated bucket or bucket/prefix entries; empty caches every bucket
+    @Value("${aws.s3.cache.include:}")
+    private List<String> include;
+
+    private DiskLruStore store;
+    private final List<String[]> rules = new ArrayList<>();
+    // Validation times live only in memory, so after a restart every entry is revalidated once
+    private final Map<String, Long> validatedAt = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<CachedObject>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong freshHits = new AtomicLong();
+    private final AtomicLong revalidatedHits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong tooLarge = new AtomicLong();
+    private final AtomicLong bytesServedLocally = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+
+    // payload holds the body as stored, still compressed if contentEncoding is set
+    public record CachedObject(String eTag, String contentType, String contentEncoding, long size, ByteBuffer payload) {}
+
+    @PostConstruct
+    public void init() {
+        store = new DiskLruStore(Path.of(cacheDir), maxBytes);
+        if (maxObjectBytes <= 0) {
+            maxObjectBytes = maxBytes / 4;
+        }
+        for (String entry : include) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int slash = trimmed.indexOf('/');
+            rules.add(slash < 0
+                ? new String[] {trimmed, ""}
+                : new String[] {trimmed.substring(0, slash), trimmed.substring(slash + 1)});
+        }
+    }
+
+    public boolean isCacheable(String bucket, String key) {
+        if (rules.isEmpty()) {
+            return true;
+        }
+        for (String[] rule : rules) {
+            if (rule[0].equals(bucket) && key.startsWith(rule[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The payload is a read-only view of the mapped file; duplicate() it before sharing
+    public CachedObject get(String bucket, String key) {
+        requests.incrementAndGet();
+        String cacheKey = bucket + "/" + key;
+
+        CachedObject cached = lookup(cacheKey);
+        Long validated = validatedAt.get(cacheKey);
+        if (cached != null && validated != null && System.currentTimeMillis() - validated < freshnessMs) {
+            freshHits.incrementAndGet();
+            bytesServedLocally.addAndGet(cached.size());
+            return cached;
+        }
+
+        // Misses and revalidations for one key collapse into a single request
+        CompletableFuture<CachedObject> mine = new CompletableFuture<>();
+        CompletableFuture<CachedObject> shared = inFlight.putIfAbsent(cacheKey, mine);
+        if (shared != null) {
+            try {
+                CachedObject result = shared.join();
+                coalesced.incrementAndGet();
+                bytesServedLocally.addAndGet(result.size());
+                return result;
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+            }
+        }
+
+        try {
+            CachedObject result = fetch(bucket, key, cacheKey, cached);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    // The local copy however old it is, without contacting S3; null if there is none
+    public CachedObject getStale(String bucket, String key) {
+        CachedObject cached = lookup(bucket + "/" + key);
+        if (cached != null) {
+            staleHits.incrementAndGet();
+            bytesServedLocally.addAndGet(cached.size());
+        }
+        return cached;
+    }
+
+    // Called after writes through this service so readers never see a stale copy
+    public void invalidate(String bucket, String key) {
+        String cacheKey = bucket + "/" + key;
+        validatedAt.remove(cacheKey);
+        store.remove(cacheKey);
+    }
+
+    public Map<String, Object> getStats() {
+        long total = requests.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requests", total);
+        stats.put("freshHits", freshHits.get());
+        stats.put("revalidatedHits", revalidatedHits.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("misses", misses.get());
+        stats.put("staleHits", staleHits.get());
+        stats.put("tooLargeToCache", tooLarge.get());
+        // Everything that did not cost a full download counts as a hit
+        stats.put("hitRatio", total > 0 ? 1.0 - (double) misses.get() / total : 0.0);
+        stats.put("bytesServedLocally", bytesServedLocally.get());
+        stats.put("bytesDownloaded", bytesDownloaded.get());
+        stats.put("entries", store.size());
+        stats.put("totalBytes", store.totalBytes());
+        stats.put("maxBytes", store.maxBytes());
+        return stats;
+    }
+
+    private CachedObject fetch(String bucket, String key, String cacheKey, CachedObject cached) {
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+            .bucket(bucket)
+            .key(key);
+        if (cached != null && cached.eTag() != null) {
+            request.ifNoneMatch(cached.eTag());
+        }
+
+        try (ResponseInputStream<GetObjectResponse> body = s3Client.getObject(request.build())) {
+            GetObjectResponse response = body.response();
+            Long length = response.contentLength();
+            if (length == null || length > maxObjectBytes) {
+                // Served from memory, as an uncached read would be; any older, smaller copy goes
+                invalidate(bucket, key);
+                byte[] data = body.readAllBytes();
+                tooLarge.incrementAndGet();
+                misses.incrementAndGet();
+                bytesDownloaded.addAndGet(data.length);
+                return new CachedObject(response.eTag(), response.contentType(), response.contentEncoding(),
+                    data.length, ByteBuffer.wrap(data).asReadOnlyBuffer());
+            }
+
+            Map<String, String> metadata = new HashMap<>();
+            if (response.eTag() != null) {
+                metadata.put("etag", response.eTag());
+            }
+            if (response.contentType() != null) {
+                metadata.put("content-type", response.contentType());
+            }
+            if (response.contentEncoding() != null) {
+                metadata.put("content-encoding", response.contentEncoding());
+            }
+            store.put(cacheKey, metadata, body);
+            validatedAt.put(cacheKey, System.currentTimeMillis());
+
+            CachedObject stored = lookup(cacheKey);
+            if (stored == null) {
+                throw new IllegalStateException("Object " + cacheKey + " was evicted from the S3 cache while being read");
+            }
+            misses.incrementAndGet();
+            bytesDownloaded.addAndGet(stored.size());
+            return stored;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 304 && cached != null) {
+                validatedAt.put(cacheKey, System.currentTimeMillis());
+                store.touch(cacheKey);
+                revalidatedHits.incrementAndGet();
+                bytesServedLocally.addAndGet(cached.size());
+                return cached;
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to cache " + cacheKey, e);
+        }
+    }
+
+    private CachedObject lookup(String cacheKey) {
+        DiskLruStore.Entry entry = store.get(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+        Map<String, String> metadata = entry.metadata();
+        return new CachedObject(metadata.get("etag"), metadata.get("content-type"),
+            metadata.get("content-encoding"), entry.payload().remaining(), entry.payload());
+    }
+}
@@ -0,0 +1,299 @@
+package org.example.service.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Size-bounded on-disk key/value store with LRU eviction.
+ *
+ * Each entry is one file holding a small header (key and string metadata) followed by the
+ * payload. Reads map the file read-only, so payloads are served from the page cache without
+ * copying them onto the heap. The index is rebuilt from the directory on startup, ordered by
+ * last access time, so the store survives restarts.
+ */
+public class DiskLruStore {
+
+    private static final int MAGIC = 0x444C5255; // "DLRU"
+    private static final String SUFFIX = ".entry";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public DiskLruStore(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open disk store at " + directory, e);
+        }
+    }
+
+    public record Entry(Map<String, String> metadata, ByteBuffer payload) {}
+
+    public Entry get(String key) {
+        Path file = fileFor(key);
+        synchronized (this) {
+            if (index.get(key) == null) {
+                return null;
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Header header = readHeader(mapped);
+            if (header == null || !header.key.equals(key)) {
+                remove(key);
+                return null;
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(header.metadata, mapped.slice().asReadOnlyBuffer());
+        } catch (IOException e) {
+            remove(key);
+            return null;
+        }
+    }
+
+    public void put(String key, Map<String, String> metadata, byte[] payload) {
+        put(key, metadata, out -> out.write(payload));
+    }
+
+    public void put(String key, Map<String, String> metadata, InputStream payload) {
+        put(key, metadata, payload::transferTo);
+    }
+
+    public void put(String key, Map<String, String> metadata, PayloadWriter writer) {
+        Path file = fileFor(key);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, "put-", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                out.write(encodeHeader(key, metadata));
+                writer.writeTo(out);
+            }
+            long size = Files.size(temp);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+
+            synchronized (this) {
+                Long previous = index.put(key, size);
+                totalBytes += size - (previous != null ? previous : 0L);
+            }
+            evict();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write disk store entry", e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // best effort cleanup of a failed write
+                }
+            }
+        }
+    }
+
+    public void touch(String key) {
+        synchronized (this) {
+            index.get(key);
+        }
+        try {
+            Files.setLastModifiedTime(fileFor(key), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // access time is only a hint for ordering after a restart
+        }
+    }
+
+    // Counts as an access, like get
+    public boolean contains(String key) {
+        synchronized (this) {
+            return index.get(key) != null;
+        }
+    }
+
+    public void remove(String key) {
+        synchronized (this) {
+            Long size = index.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        try {
+            Files.deleteIfExists(fileFor(key));
+        } catch (IOException ignored) {
+            // the entry is already unreachable through the index
+        }
+    }
+
+    public synchronized long size() {
+        return index.size();
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    @FunctionalInterface
+    public interface PayloadWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private void evict() {
+        List<String> victims = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                totalBytes -= eldest.getValue();
+                victims.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        for (String key : victims) {
+            try {
+                Files.deleteIfExists(fileFor(key));
+            } catch (IOException ignored) {
+                // orphaned files are picked up again on the next load
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        Map<Path, FileTime> accessTimes = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SUFFIX)) {
+                    files.add(file);
+                    accessTimes.put(file, Files.getLastModifiedTime(file));
+                }
+            }
+        }
+
+        // Oldest access first so the LinkedHashMap ends up in LRU order
+        files.sort(Comparator.comparing(accessTimes::get));
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer head = ByteBuffer.allocate((int) Math.min(channel.size(), 64 * 1024));
+                channel.read(head, 0);
+                head.flip();
+                Header header = readHeader(head);
+                if (header != null && fileFor(header.key).equals(file)) {
+                    index.put(header.key, channel.size());
+                    totalBytes += channel.size();
+                    continue;
+                }
+            } catch (IOException | RuntimeException e) {
+                // fall through and drop the unreadable entry
+            }
+            Files.deleteIfExists(file);
+        }
+        evict();
+    }
+
+    // SHA-256 rather than a 64-bit hash, so two keys never share (and overwrite) one file
+    private Path fileFor(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest) + SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] encodeHeader(String key, Map<String, String> metadata) {
+        List<byte[]> parts = new ArrayList<>();
+        parts.add(key.getBytes(StandardCharsets.UTF_8));
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            parts.add(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            parts.add(entry.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+
+        int length = 8;
+        for (byte[] part : parts) {
+            length += 4 + part.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(MAGIC);
+        buffer.putInt(metadata.size());
+        for (byte[] part : parts) {
+            buffer.putInt(part.length);
+            buffer.put(part);
+        }
+        return buffer.array();
+    }
+
+    private static Header readHeader(ByteBuffer buffer) {
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            return null;
+        }
+        int metadataCount = buffer.getInt();
+        String key = readString(buffer);
+        if (key == null) {
+            return null;
+        }
+        Map<String, String> metadata = new HashMap<>();
+        for (int i = 0; i < metadataCount; i++) {
+            String name = readString(buffer);
+            String value = readString(buffer);
+            if (name == null || value == null) {
+                return null;
+            }
+            metadata.put(name, value);
+        }
+        return new Header(key, Collections.unmodifiableMap(metadata));
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        if (buffer.remaining() < 4) {
+            return null;
+        }
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private record Header(String key, Map<String, String> metadata) {}
+}
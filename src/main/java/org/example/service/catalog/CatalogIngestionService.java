@@ -0,0 +1,193 @@
+package org.example.service.catalog;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.document.Product;
+import org.example.service.WebCrawlerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams crawl results into the Product catalog. Results are normalized and routed by
+ * productCode to one of several writer queues, each drained in batches into unordered bulk
+ * upserts. Queues are bounded, so a crawler that outpaces Mongo blocks in {@link #submit}.
+ */
+@Service
+@ConditionalOnProperty(name = "spring.data.mongodb.uri")
+public class CatalogIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogIngestionService.class);
+
+    @Autowired
+    private ProductBulkWriter bulkWriter;
+
+    @Autowired(required = false)
+    private WebCrawlerService webCrawlerService;
+
+    @Value("${catalog.ingest.writers:2}")
+    private int writerCount;
+
+    @Value("${catalog.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${catalog.ingest.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${catalog.ingest.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    // Off by default: pages built from one template can read alike yet be different products
+    @Value("${catalog.ingest.skip-near-duplicates:false}")
+    private boolean skipNearDuplicates;
+
+    private final List<BlockingQueue<Product>> queues = new ArrayList<>();
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong upserted = new AtomicLong();
+    private final AtomicLong modified = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong nearDuplicates = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        int perQueue = Math.max(batchSize, queueCapacity / Math.max(1, writerCount));
+        for (int i = 0; i < Math.max(1, writerCount); i++) {
+            BlockingQueue<Product> queue = new ArrayBlockingQueue<>(perQueue);
+            Thread writer = new Thread(() -> drain(queue), "catalog-ingest-" + i);
+            writer.setDaemon(true);
+            queues.add(queue);
+            writers.add(writer);
+            writer.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    // Blocks while the target writer queue is full, which throttles the calling crawler; false
+    // when the result was skipped as a near-duplicate
+    public boolean submit(Map<String, Object> crawlResult) throws InterruptedException {
+        if (isSkippedNearDuplicate(crawlResult)) {
+            nearDuplicates.incrementAndGet();
+            return false;
+        }
+        submit(ProductNormalizer.fromCrawlResult(crawlResult));
+        return true;
+    }
+
+    public void submit(Product product) throws InterruptedException {
+        if (!running) {
+            throw new IllegalStateException("Catalog ingestion is stopped");
+        }
+        // Same code always lands on the same writer, so concurrent upserts never race on it
+        int shard = Math.floorMod(product.getProductCode().hashCode(), queues.size());
+        queues.get(shard).put(product);
+        accepted.incrementAndGet();
+    }
+
+    public int ingestProductPage(String url) throws IOException, InterruptedException {
+        Map<String, Object> productData = requireCrawler().crawlProductPage(url, skipNearDuplicates);
+        return submit(productData) ? 1 : 0;
+    }
+
+    public int ingestSearchResults(String searchUrl, String resultSelector) throws IOException, InterruptedException {
+        int count = 0;
+        for (Map<String, Object> result : requireCrawler().crawlSearchResults(searchUrl, resultSelector)) {
+            if (result.get("link") != null && submit(result)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Mirrors and sort-order variants of a page get distinct URL-derived codes and would be stored
+    // as separate products; a page with an explicit SKU is kept, since the SKU already dedupes it
+    private boolean isSkippedNearDuplicate(Map<String, Object> crawlResult) {
+        return skipNearDuplicates
+            && Boolean.TRUE.equals(crawlResult.get("nearDuplicate"))
+            && !ProductNormalizer.hasExplicitCode(crawlResult);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("accepted", accepted.get());
+        stats.put("upserted", upserted.get());
+        stats.put("modified", modified.get());
+        stats.put("skippedUnchanged", skipped.get());
+        stats.put("failed", failed.get());
+        stats.put("skippedNearDuplicate", nearDuplicates.get());
+        stats.put("queued", queues.stream().mapToInt(BlockingQueue::size).sum());
+        stats.put("writers", queues.size());
+        return stats;
+    }
+
+    private void drain(BlockingQueue<Product> queue) {
+        List<Product> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Product first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                // Shutting down: flush whatever is still queued
+                queue.drainTo(batch, batchSize);
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Product> batch) {
+        try {
+            ProductBulkWriter.Result result = bulkWriter.write(batch);
+            upserted.addAndGet(result.upserted());
+            modified.addAndGet(result.modified());
+            skipped.addAndGet(result.skipped());
+            if (!result.failures().isEmpty()) {
+                failed.addAndGet(result.failures().size());
+                log.warn("Failed to write {} crawled products to the catalog, e.g. {}", result.failures().size(),
+                    result.failures().values().iterator().next());
+            }
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            log.warn("Failed to write {} crawled products to the catalog", batch.size(), e);
+        }
+    }
+
+    private WebCrawlerService requireCrawler() {
+        if (webCrawlerService == null) {
+            throw new IllegalStateException("Web crawler service not available");
+        }
+        return webCrawlerService;
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.service.catalog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mutable facet counts for one cached filter. Products are added and removed one at a time as
+ * change events arrive, so every count stays exact rather than being recomputed.
+ */
+final class FacetCounts {
+
+    private final Map<String, Long> categories = new HashMap<>();
+    private final Map<String, Long> brands = new HashMap<>();
+    // Index i counts prices in [boundaries[i], boundaries[i + 1]); the last one everything above
+    private final long[] prices;
+    private final long computedAt;
+    private long total;
+
+    FacetCounts(int priceBuckets, long computedAt) {
+        this.prices = new long[priceBuckets];
+        this.computedAt = computedAt;
+    }
+
+    long computedAt() {
+        return computedAt;
+    }
+
+    void setTotal(long total) {
+        this.total = total;
+    }
+
+    void setCategory(String category, long count) {
+        categories.put(category, count);
+    }
+
+    void setBrand(String brand, long count) {
+        brands.put(brand, count);
+    }
+
+    void setPriceBucket(int bucket, long count) {
+        prices[bucket] = count;
+    }
+
+    // sign is +1 when a product starts matching the filter and -1 when it stops
+    void add(String category, String brand, int priceBucket, int sign) {
+        total += sign;
+        if (category != null) {
+            adjust(categories, category, sign);
+        }
+        if (brand != null) {
+            adjust(brands, brand, sign);
+        }
+        if (priceBucket >= 0) {
+            prices[priceBucket] += sign;
+        }
+    }
+
+    long total() {
+        return total;
+    }
+
+    long priceCount(int bucket) {
+        return prices[bucket];
+    }
+
+    List<ProductFacetService.FacetValue> topCategories(int maxValues) {
+        return top(categories, maxValues);
+    }
+
+    List<ProductFacetService.FacetValue> topBrands(int maxValues) {
+        return top(brands, maxValues);
+    }
+
+    private static void adjust(Map<String, Long> counts, String value, int sign) {
+        long count = counts.getOrDefault(value, 0L) + sign;
+        if (count > 0) {
+            counts.put(value, count);
+        } else {
+            counts.remove(value);
+        }
+    }
+
+    // Highest counts first, ties by value so the order is stable between requests
+    private static List<ProductFacetService.FacetValue> top(Map<String, Long> counts, int maxValues) {
+        List<ProductFacetService.FacetValue> values = new ArrayList<>(counts.size());
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            values.add(new ProductFacetService.FacetValue(entry.getKey(), entry.getValue()));
+        }
+        values.sort((a, b) -> a.count() != b.count()
+            ? Long.compare(b.count(), a.count())
+            : a.value().compareTo(b.value()));
+        return values.size() > maxValues ? new ArrayList<>(values.subList(0, maxValues)) : values;
+    }
+}
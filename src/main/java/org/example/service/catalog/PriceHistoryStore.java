@@ -0,0 +1,216 @@
+package org.example.service.catalog;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-memory price history for crawled products, one compressed {@link PriceSeries} per product
+ * code. Supports raw range reads and downsampled (open/high/low/close per step) reads, and is
+ * snapshotted to disk when a state file is configured.
+ */
+@Component
+@ConditionalOnProperty(name = "catalog.prices.enabled", havingValue = "true", matchIfMissing = true)
+public class PriceHistoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryStore.class);
+    private static final int SNAPSHOT_MAGIC = 0x50525331; // "PRS1"
+
+    private static final ThreadLocal<PriceParser.ParsedPrice> PARSED = ThreadLocal.withInitial(PriceParser.ParsedPrice::new);
+
+    @Value("${catalog.prices.default-currency:USD}")
+    private String defaultCurrency;
+
+    @Value("${catalog.prices.state-file:}")
+    private String stateFile;
+
+    private final Map<String, PriceSeries> series = new ConcurrentHashMap<>();
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong unparseable = new AtomicLong();
+
+    public record PricePoint(long timestamp, long minorUnits) {}
+
+    public record PriceBucket(long start, long open, long high, long low, long close, int count) {}
+
+    public record PriceHistory(String currency, int fractionDigits, List<PricePoint> points, List<PriceBucket> buckets) {}
+
+    @PostConstruct
+    public void load() {
+        if (stateFile == null || stateFile.isEmpty() || !Files.exists(Path.of(stateFile))) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(Path.of(stateFile))), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring unrecognized price history snapshot {}", stateFile);
+                return;
+            }
+            while (in.readBoolean()) {
+                String productCode = in.readUTF();
+                series.put(productCode, PriceSeries.readFrom(in));
+            }
+            log.info("Restored price history for {} products from {}", series.size(), stateFile);
+        } catch (IOException e) {
+            log.warn("Failed to restore price history snapshot {}", stateFile, e);
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${catalog.prices.snapshot-interval-ms:300000}",
+               initialDelayString = "${catalog.prices.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        if (stateFile == null || stateFile.isEmpty()) {
+            return;
+        }
+        Path target = Path.of(stateFile);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp)), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                for (Map.Entry<String, PriceSeries> entry : series.entrySet()) {
+                    out.writeBoolean(true);
+                    out.writeUTF(entry.getKey());
+                    synchronized (entry.getValue()) {
+                        entry.getValue().writeTo(out);
+                    }
+                }
+                out.writeBoolean(false);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to snapshot price history to {}", target, e);
+        }
+    }
+
+    // Raw scraped text, e.g. "$1,299.99"; returns false when it holds no price
+    public boolean record(String productCode, long epochSeconds, String priceText) {
+        PriceParser.ParsedPrice parsed = PARSED.get();
+        if (!PriceParser.parse(priceText, defaultCurrency, parsed)) {
+            unparseable.incrementAndGet();
+            return false;
+        }
+        return record(productCode, epochSeconds, parsed.getMinorUnits(), parsed.getCurrency(), parsed.getFractionDigits());
+    }
+
+    // A series keeps the currency of its first point; points in another currency are rejected
+    public boolean record(String productCode, long epochSeconds, long minorUnits, String currency, int fractionDigits) {
+        PriceSeries target = series.computeIfAbsent(productCode, code -> new PriceSeries(currency, fractionDigits));
+        boolean appended;
+        synchronized (target) {
+            boolean sameCurrency = target.getCurrency() == null ? currency == null : target.getCurrency().equals(currency);
+            appended = sameCurrency && target.getFractionDigits() == fractionDigits && target.append(epochSeconds, minorUnits);
+        }
+        (appended ? recorded : rejected).incrementAndGet();
+        return appended;
+    }
+
+    public boolean contains(String productCode) {
+        return series.containsKey(productCode);
+    }
+
+    // stepSeconds <= 0 returns raw points, otherwise one bucket per step aligned to the epoch
+    public PriceHistory query(String productCode, long from, long to, long stepSeconds) {
+        PriceSeries target = series.get(productCode);
+        if (target == null) {
+            return null;
+        }
+        List<PricePoint> points = new ArrayList<>();
+        List<PriceBucket> buckets = new ArrayList<>();
+        synchronized (target) {
+            if (stepSeconds <= 0) {
+                target.forEach(from, to, (timestamp, value) -> points.add(new PricePoint(timestamp, value)));
+            } else {
+                BucketBuilder builder = new BucketBuilder(stepSeconds, buckets);
+                target.forEach(from, to, builder::add);
+                builder.flush();
+            }
+        }
+        return new PriceHistory(target.getCurrency(), target.getFractionDigits(),
+            stepSeconds <= 0 ? points : null, stepSeconds > 0 ? buckets : null);
+    }
+
+    public Map<String, Object> getStats() {
+        long points = 0;
+        long bytes = 0;
+        for (PriceSeries value : series.values()) {
+            synchronized (value) {
+                points += value.size();
+                bytes += value.sizeInBytes();
+            }
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("products", series.size());
+        stats.put("points", points);
+        stats.put("encodedBytes", bytes);
+        stats.put("bytesPerPoint", points > 0 ? (double) bytes / points : 0.0);
+        stats.put("recorded", recorded.get());
+        stats.put("rejected", rejected.get());
+        stats.put("unparseable", unparseable.get());
+        return stats;
+    }
+
+    private static final class BucketBuilder {
+        private final long step;
+        private final List<PriceBucket> out;
+        private long start = Long.MIN_VALUE;
+        private long open;
+        private long high;
+        private long low;
+        private long close;
+        private int count;
+
+        BucketBuilder(long step, List<PriceBucket> out) {
+            this.step = step;
+            this.out = out;
+        }
+
+        void add(long timestamp, long value) {
+            long bucketStart = timestamp - Math.floorMod(timestamp, step);
+            if (bucketStart != start) {
+                flush();
+                start = bucketStart;
+                open = high = low = value;
+                count = 0;
+            }
+            high = Math.max(high, value);
+            low = Math.min(low, value);
+            close = value;
+            count++;
+        }
+
+        void flush() {
+            if (count > 0) {
+                out.add(new PriceBucket(start, open, high, low, close, count));
+                count = 0;
+            }
+        }
+    }
+}
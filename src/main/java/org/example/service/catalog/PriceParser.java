@@ -0,0 +1,189 @@
+package org.example.service.catalog;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Currency;
+
+/**
+ * Parses scraped price text into integer minor units plus an ISO 4217 currency code without
+ * allocating: results go into a caller-owned {@link ParsedPrice} that can be reused across calls.
+ * "$1,299.99", "1.299,99 €", "NT$ 1,200" and "EUR 15" all parse; the last separator followed
+ * by one or two digits is the decimal point, any other separator groups thousands.
+ */
+public final class PriceParser {
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    // Symbols checked longest first so "NT$" wins over "$"
+    private static final String[] SYMBOLS = {"NT$", "US$", "HK$", "R$", "A$", "C$", "S$", "€", "£", "¥", "₩", "₹", "$"};
+    private static final String[] SYMBOL_CURRENCIES = {"TWD", "USD", "HKD", "BRL", "AUD", "CAD", "SGD", "EUR", "GBP", "JPY", "KRW", "INR", null};
+
+    // ISO codes packed into ints and sorted, so code lookup is a binary search with no allocation
+    private static final int[] ISO_KEYS;
+    private static final String[] ISO_CODES;
+    private static final int[] ISO_FRACTION_DIGITS;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+
+        String[] codes = Currency.getAvailableCurrencies().stream()
+            .map(Currency::getCurrencyCode)
+            .filter(code -> code.length() == 3)
+            .sorted((a, b) -> Integer.compare(pack(a, 0), pack(b, 0)))
+            .toArray(String[]::new);
+        ISO_KEYS = new int[codes.length];
+        ISO_CODES = new String[codes.length];
+        ISO_FRACTION_DIGITS = new int[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            ISO_KEYS[i] = pack(codes[i], 0);
+            ISO_CODES[i] = codes[i];
+            ISO_FRACTION_DIGITS[i] = Math.max(0, Currency.getInstance(codes[i]).getDefaultFractionDigits());
+        }
+    }
+
+    private PriceParser() {}
+
+    /** Mutable parse result; reuse one instance per thread to keep parsing garbage-free. */
+    public static final class ParsedPrice {
+        private long minorUnits;
+        private int fractionDigits;
+        private String currency;
+
+        public long getMinorUnits() {
+            return minorUnits;
+        }
+
+        public int getFractionDigits() {
+            return fractionDigits;
+        }
+
+        public String getCurrency() {
+            return currency;
+        }
+
+        public BigDecimal toBigDecimal() {
+            return BigDecimal.valueOf(minorUnits, fractionDigits);
+        }
+    }
+
+    /**
+     * Parses {@code text} into {@code out}. Returns false when there is no number or it does not
+     * fit in a long; {@code defaultCurrency} applies when the text names none (or only "$").
+     */
+    public static boolean parse(CharSequence text, String defaultCurrency, ParsedPrice out) {
+        if (text == null) {
+            return false;
+        }
+        String currency = null;
+        long value = 0;
+        int digitCount = 0;
+        int digitsAfterSeparator = 0;
+        boolean sawSeparator = false;
+        int length = text.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digitCount >= 18) {
+                    return false;
+                }
+                value = value * 10 + (c - '0');
+                digitCount++;
+                digitsAfterSeparator++;
+            } else if ((c == '.' || c == ',') && digitCount > 0) {
+                sawSeparator = true;
+                digitsAfterSeparator = 0;
+            } else if (Character.isWhitespace(c) || c == '\u00A0' || c == '\'') {
+                // NBSP and apostrophe are common thousands separators
+                continue;
+            } else if (digitCount > 0 && currency != null) {
+                break;
+            } else if (currency == null) {
+                int symbol = matchSymbol(text, i);
+                if (symbol >= 0) {
+                    currency = SYMBOL_CURRENCIES[symbol] != null ? SYMBOL_CURRENCIES[symbol] : defaultCurrency;
+                    i += SYMBOLS[symbol].length() - 1;
+                } else if (i + 3 <= length && isUpper(text, i, 3) && (i + 3 == length || !Character.isLetter(text.charAt(i + 3)))) {
+                    int index = Arrays.binarySearch(ISO_KEYS, pack(text, i));
+                    if (index >= 0) {
+                        currency = ISO_CODES[index];
+                        i += 2;
+                    } else if (digitCount > 0) {
+                        break;
+                    }
+                } else if (digitCount > 0) {
+                    break;
+                }
+            } else if (digitCount > 0) {
+                break;
+            }
+        }
+        if (digitCount == 0) {
+            return false;
+        }
+
+        int parsedFraction = sawSeparator && digitsAfterSeparator >= 1 && digitsAfterSeparator <= 2 ? digitsAfterSeparator : 0;
+        String resolved = currency != null ? currency : defaultCurrency;
+        int targetFraction = fractionDigits(resolved, parsedFraction);
+
+        // Rescale to the currency's minor units, rounding half up if the text is more precise
+        long minor = value;
+        if (targetFraction > parsedFraction) {
+            long factor = POWERS_OF_TEN[targetFraction - parsedFraction];
+            if (minor > Long.MAX_VALUE / factor) {
+                return false;
+            }
+            minor *= factor;
+        } else if (targetFraction < parsedFraction) {
+            long factor = POWERS_OF_TEN[parsedFraction - targetFraction];
+            minor = (minor + factor / 2) / factor;
+        }
+
+        out.minorUnits = minor;
+        out.fractionDigits = targetFraction;
+        out.currency = resolved;
+        return true;
+    }
+
+    public static int fractionDigits(String currency, int fallback) {
+        if (currency == null || currency.length() != 3) {
+            return fallback;
+        }
+        int index = Arrays.binarySearch(ISO_KEYS, pack(currency, 0));
+        return index >= 0 ? ISO_FRACTION_DIGITS[index] : fallback;
+    }
+
+    private static int matchSymbol(CharSequence text, int offset) {
+        for (int s = 0; s < SYMBOLS.length; s++) {
+            String symbol = SYMBOLS[s];
+            if (offset + symbol.length() > text.length()) {
+                continue;
+            }
+            boolean matches = true;
+            for (int k = 0; k < symbol.length() && matches; k++) {
+                matches = Character.toUpperCase(text.charAt(offset + k)) == symbol.charAt(k);
+            }
+            if (matches) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isUpper(CharSequence text, int offset, int count) {
+        for (int k = 0; k < count; k++) {
+            char c = text.charAt(offset + k);
+            if (c < 'A' || c > 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int pack(CharSequence code, int offset) {
+        return (code.charAt(offset) << 16) | (code.charAt(offset + 1) << 8) | code.charAt(offset + 2);
+    }
+}
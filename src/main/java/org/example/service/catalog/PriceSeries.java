@@ -0,0 +1,239 @@
+package org.example.service.catalog;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Append-only price history for one product, bit-packed Gorilla style: timestamps (epoch
+ * seconds) as delta-of-delta and prices (minor units) as zigzag deltas, each behind a short
+ * prefix code. Regular crawls of an unchanged price cost two bits per point. Not thread-safe;
+ * {@link PriceHistoryStore} synchronizes on the series.
+ */
+public final class PriceSeries {
+
+    /** Receives decoded points without boxing. */
+    @FunctionalInterface
+    public interface PointConsumer {
+        void accept(long timestamp, long minorUnits);
+    }
+
+    private final String currency;
+    private final int fractionDigits;
+
+    private long[] words = new long[1];
+    private int bitCount;
+    private int count;
+    private long firstTimestamp;
+    private long firstValue;
+    private long lastTimestamp;
+    private long lastDelta;
+    private long lastValue;
+
+    public PriceSeries(String currency, int fractionDigits) {
+        this.currency = currency;
+        this.fractionDigits = fractionDigits;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public int getFractionDigits() {
+        return fractionDigits;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public long getLastValue() {
+        return lastValue;
+    }
+
+    // Encoded size: the words holding points, not the spare capacity the array has grown by
+    public long sizeInBytes() {
+        return (long) ((bitCount + 63) >>> 6) * Long.BYTES;
+    }
+
+    // Points must arrive in time order; an out-of-order or same-second point is rejected
+    public boolean append(long timestamp, long minorUnits) {
+        if (count == 0) {
+            firstTimestamp = lastTimestamp = timestamp;
+            firstValue = lastValue = minorUnits;
+            count = 1;
+            return true;
+        }
+        long delta = timestamp - lastTimestamp;
+        if (delta <= 0 || delta > Integer.MAX_VALUE) {
+            return false;
+        }
+
+        long dod = zigzag(delta - lastDelta);
+        if (dod == 0) {
+            writeBits(0, 1);
+        } else if (dod < (1 << 7)) {
+            writeBits(0b01, 2);
+            writeBits(dod, 7);
+        } else if (dod < (1 << 9)) {
+            writeBits(0b011, 3);
+            writeBits(dod, 9);
+        } else if (dod < (1 << 12)) {
+            writeBits(0b0111, 4);
+            writeBits(dod, 12);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(dod, 32);
+        }
+
+        long change = zigzag(minorUnits - lastValue);
+        if (change == 0) {
+            writeBits(0, 1);
+        } else if (change < (1 << 8)) {
+            writeBits(0b01, 2);
+            writeBits(change, 8);
+        } else if (change < (1 << 16)) {
+            writeBits(0b011, 3);
+            writeBits(change, 16);
+        } else if (change < (1L << 32)) {
+            writeBits(0b0111, 4);
+            writeBits(change, 32);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(change, 64);
+        }
+
+        lastDelta = delta;
+        lastTimestamp = timestamp;
+        lastValue = minorUnits;
+        count++;
+        return true;
+    }
+
+    // Decodes from the start; points outside [from, to] are skipped without being handed out
+    public void forEach(long from, long to, PointConsumer consumer) {
+        if (count == 0 || firstTimestamp > to || lastTimestamp < from) {
+            return;
+        }
+        long timestamp = firstTimestamp;
+        long value = firstValue;
+        long delta = 0;
+        int position = 0;
+        if (timestamp >= from) {
+            consumer.accept(timestamp, value);
+        }
+
+        for (int i = 1; i < count; i++) {
+            int prefix = prefixLength(position);
+            position += prefix == 4 ? 4 : prefix + 1;
+            long dod;
+            switch (prefix) {
+                case 0 -> dod = 0;
+                case 1 -> { dod = readBits(position, 7); position += 7; }
+                case 2 -> { dod = readBits(position, 9); position += 9; }
+                case 3 -> { dod = readBits(position, 12); position += 12; }
+                default -> { dod = readBits(position, 32); position += 32; }
+            }
+            delta += unzigzag(dod);
+            timestamp += delta;
+
+            prefix = prefixLength(position);
+            position += prefix == 4 ? 4 : prefix + 1;
+            long change;
+            switch (prefix) {
+                case 0 -> change = 0;
+                case 1 -> { change = readBits(position, 8); position += 8; }
+                case 2 -> { change = readBits(position, 16); position += 16; }
+                case 3 -> { change = readBits(position, 32); position += 32; }
+                default -> { change = readBits(position, 64); position += 64; }
+            }
+            value += unzigzag(change);
+
+            if (timestamp > to) {
+                return;
+            }
+            if (timestamp >= from) {
+                consumer.accept(timestamp, value);
+            }
+        }
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeUTF(currency != null ? currency : "");
+        out.writeInt(fractionDigits);
+        out.writeInt(count);
+        out.writeInt(bitCount);
+        out.writeLong(firstTimestamp);
+        out.writeLong(firstValue);
+        out.writeLong(lastTimestamp);
+        out.writeLong(lastDelta);
+        out.writeLong(lastValue);
+        int used = (bitCount + 63) >>> 6;
+        for (int i = 0; i < used; i++) {
+            out.writeLong(words[i]);
+        }
+    }
+
+    public static PriceSeries readFrom(DataInputStream in) throws IOException {
+        String currency = in.readUTF();
+        PriceSeries series = new PriceSeries(currency.isEmpty() ? null : currency, in.readInt());
+        series.count = in.readInt();
+        series.bitCount = in.readInt();
+        series.firstTimestamp = in.readLong();
+        series.firstValue = in.readLong();
+        series.lastTimestamp = in.readLong();
+        series.lastDelta = in.readLong();
+        series.lastValue = in.readLong();
+        series.words = new long[Math.max(1, (series.bitCount + 63) >>> 6)];
+        for (int i = 0; i < (series.bitCount + 63) >>> 6; i++) {
+            series.words[i] = in.readLong();
+        }
+        return series;
+    }
+
+    // Prefix codes are 0, 10, 110, 1110, 1111 (read LSB first); returns the number of leading ones
+    private int prefixLength(int position) {
+        int ones = 0;
+        while (ones < 4 && readBits(position + ones, 1) == 1) {
+            ones++;
+        }
+        return ones;
+    }
+
+    private void writeBits(long value, int bits) {
+        int index = bitCount >>> 6;
+        int offset = bitCount & 63;
+        if (index + 1 >= words.length) {
+            words = Arrays.copyOf(words, words.length + (words.length >> 1) + 2);
+        }
+        long masked = bits == 64 ? value : value & ((1L << bits) - 1);
+        words[index] |= masked << offset;
+        if (offset + bits > 64) {
+            words[index + 1] |= masked >>> (64 - offset);
+        }
+        bitCount += bits;
+    }
+
+    private long readBits(int position, int bits) {
+        int index = position >>> 6;
+        int offset = position & 63;
+        long value = words[index] >>> offset;
+        if (offset + bits > 64) {
+            value |= words[index + 1] << (64 - offset);
+        }
+        return bits == 64 ? value : value & ((1L << bits) - 1);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
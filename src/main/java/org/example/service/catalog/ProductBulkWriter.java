@@ -0,0 +1,207 @@
+package org.example.service.catalog;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.example.document.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes batches of products as unordered bulk upserts keyed by productCode. Products whose
+ * content hash matches what is already stored are skipped without touching Mongo; known hashes
+ * are remembered in a bounded LRU so steady-state recrawls rarely need the lookup query.
+ *
+ * <p>By default an upsert replaces every product field. In merge mode only the fields a product
+ * carries are set, so a partial feed leaves the rest of the stored product as it was.
+ *
+ * <p>One instance is shared by every bulk writer in the application so the remembered hashes
+ * follow all of them. Saves and deletes through the repository drop the affected hashes, and
+ * hash-cache-ttl-ms bounds how long a write from another node can go unnoticed.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.data.mongodb.uri")
+public class ProductBulkWriter extends AbstractMongoEventListener<Product> {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${catalog.ingest.hash-cache-size:200000}")
+    private int hashCacheSize;
+
+    @Value("${catalog.ingest.hash-cache-ttl-ms:600000}")
+    private long hashCacheTtlMs;
+
+    private record KnownHash(String hash, long expiresAt) {}
+
+    private Map<String, KnownHash> knownHashes;
+
+    @PostConstruct
+    public void init() {
+        int bound = hashCacheSize;
+        knownHashes = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, KnownHash> eldest) {
+                return size() > bound;
+            }
+        };
+    }
+
+    // failures maps the productCode of each upsert the server rejected to its error message
+    public record Result(int upserted, int modified, int skipped, Map<String, String> failures) {}
+
+    public Result write(Collection<Product> products) {
+        return write(products, false);
+    }
+
+    // merge sets only the non-null fields; the content hash then covers just those
+    public Result write(Collection<Product> products, boolean merge) {
+        // Last write wins for codes that appear more than once in the batch
+        Map<String, Product> byCode = new LinkedHashMap<>();
+        for (Product product : products) {
+            if (product.getContentHash() == null) {
+                product.setContentHash(ProductNormalizer.contentHash(product));
+            }
+            byCode.put(product.getProductCode(), product);
+        }
+
+        Map<String, String> storedHashes = lookupHashes(byCode.keySet());
+        List<Product> changed = new ArrayList<>(byCode.size());
+        for (Product product : byCode.values()) {
+            if (!product.getContentHash().equals(storedHashes.get(product.getProductCode()))) {
+                changed.add(product);
+            }
+        }
+        int skipped = byCode.size() - changed.size();
+        if (changed.isEmpty()) {
+            return new Result(0, 0, skipped, Map.of());
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (Product product : changed) {
+            bulk.upsert(Query.query(Criteria.where("productCode").is(product.getProductCode())), toUpdate(product, merge));
+        }
+        BulkWriteResult result;
+        Map<String, String> failures = new HashMap<>();
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException e) {
+            // Unordered: everything except the reported operations was still applied
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(changed.get(error.getIndex()).getProductCode(), error.getMessage());
+            }
+            result = e.getResult();
+        }
+
+        long expiresAt = System.currentTimeMillis() + hashCacheTtlMs;
+        synchronized (knownHashes) {
+            for (Product product : changed) {
+                if (!failures.containsKey(product.getProductCode())) {
+                    knownHashes.put(product.getProductCode(), new KnownHash(product.getContentHash(), expiresAt));
+                }
+            }
+        }
+        return new Result(result.getUpserts().size(), result.getModifiedCount(), skipped, failures);
+    }
+
+    private Map<String, String> lookupHashes(Collection<String> codes) {
+        Map<String, String> hashes = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (knownHashes) {
+            for (String code : codes) {
+                KnownHash known = knownHashes.get(code);
+                if (known != null && known.expiresAt() > now) {
+                    hashes.put(code, known.hash());
+                } else {
+                    unknown.add(code);
+                }
+            }
+        }
+        if (unknown.isEmpty()) {
+            return hashes;
+        }
+
+        Query query = Query.query(Criteria.where("productCode").in(unknown));
+        query.fields().include("productCode").include("contentHash").exclude("_id");
+        for (Document stored : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Product.class))) {
+            String code = stored.getString("productCode");
+            String hash = stored.getString("contentHash");
+            if (code != null && hash != null) {
+                hashes.put(code, hash);
+            }
+        }
+        return hashes;
+    }
+
+    // Bulk upserts raise no mapping events, so these only fire for other writers
+    @Override
+    public void onAfterSave(AfterSaveEvent<Product> event) {
+        synchronized (knownHashes) {
+            knownHashes.remove(event.getSource().getProductCode());
+        }
+    }
+
+    // The event carries the delete query, not the deleted codes
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Product> event) {
+        synchronized (knownHashes) {
+            Object code = event.getSource().get("productCode");
+            if (code instanceof String productCode) {
+                knownHashes.remove(productCode);
+            } else {
+                knownHashes.clear();
+            }
+        }
+    }
+
+    private static Update toUpdate(Product product, boolean merge) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update();
+        set(update, "name", product.getName(), merge);
+        set(update, "description", product.getDescription(), merge);
+        set(update, "price", product.getPrice(), merge);
+        set(update, "category", product.getCategory(), merge);
+        set(update, "brand", product.getBrand(), merge);
+        set(update, "tags", product.getTags(), merge);
+        set(update, "attributes", product.getAttributes(), merge);
+        set(update, "stockQuantity", product.getStockQuantity(), merge);
+        if (product.getIsActive() != null) {
+            update.set("isActive", product.getIsActive());
+        } else if (merge) {
+            update.setOnInsert("isActive", Boolean.TRUE);
+        } else {
+            update.set("isActive", Boolean.TRUE);
+        }
+        return update
+            .set("contentHash", product.getContentHash())
+            .set("updatedAt", now)
+            .setOnInsert("createdAt", product.getCreatedAt() != null ? product.getCreatedAt() : now);
+    }
+
+    private static void set(Update update, String field, Object value, boolean merge) {
+        if (value != null || !merge) {
+            update.set(field, value);
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package org.example.service.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.example.document.Product;
+import org.example.document.ProductSnapshot;
+import org.example.repository.ProductRepository;
+import org.example.service.search.ProductChangeEvent;
+import org.example.service.search.ProductChangeStreamListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache in front of {@link ProductRepository#findByProductCode}. Lookups go to a
+ * bounded local LRU of immutable {@link ProductSnapshot}s, then to Redis when it is configured,
+ * then to Mongo; codes that do not exist are remembered locally for a short negative TTL.
+ * Concurrent misses for one code share a single load.
+ *
+ * <p>Saves and deletes made through the repository or MongoTemplate on this node invalidate
+ * straight away via Mongo mapping events. Writes from other nodes and bulk upserts, which raise
+ * no events, arrive through a change stream. Without change streams, Redis copies are kept for
+ * ttl-ms instead of redis.ttl-ms and a local copy never outlives the Redis copy it came from, so
+ * a product read is at most ttl-ms old.
+ */
+@Service
+@ConditionalOnExpression("'${spring.data.mongodb.uri:}' != '' and ${catalog.cache.enabled:true}")
+public class ProductCacheService extends AbstractMongoEventListener<Product> {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCacheService.class);
+
+    private static final String CODE_KEY = "product:code:";
+    // Change-stream deletes carry only the _id, so Redis also maps ids back to codes
+    private static final String ID_KEY = "product:id:";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.cache.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${catalog.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${catalog.cache.negative-ttl-ms:30000}")
+    private long negativeTtlMs;
+
+    // The shared tier is used only where Redis is configured for the rest of the application
+    @Value("${spring.data.redis.host:}")
+    private String redisHost;
+
+    @Value("${catalog.cache.redis.enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${catalog.cache.redis.ttl-ms:600000}")
+    private long redisTtlMs;
+
+    // After a Redis error the shared tier is skipped for this long
+    @Value("${catalog.cache.redis.retry-ms:5000}")
+    private long redisRetryMs;
+
+    // product is null for a code that did not exist when it was looked up
+    private record CachedProduct(ProductSnapshot product, long expiresAt) {}
+
+    private Map<String, CachedProduct> entries;
+    // Ids of the cached products, so a delete by id finds the code to drop; guarded by entries
+    private final Map<String, String> codesById = new HashMap<>();
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private long invalidations;
+    private final Map<String, CompletableFuture<ProductSnapshot>> inFlight = new ConcurrentHashMap<>();
+
+    private boolean redisConfigured;
+    private volatile long redisRetryAt;
+    private volatile boolean running;
+    private volatile String mode = "starting";
+    private ProductChangeStreamListener listener;
+    private Thread worker;
+    private Timer mongoLoadTimer;
+    private Timer redisLoadTimer;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong mongoLoadNanos = new AtomicLong();
+    private final AtomicLong invalidatedKeys = new AtomicLong();
+    private final AtomicLong changeEvents = new AtomicLong();
+    private final AtomicLong redisErrors = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        int bound = Math.max(1, maxEntries);
+        entries = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedProduct> eldest) {
+                if (size() <= bound) {
+                    return false;
+                }
+                if (eldest.getValue().product() != null) {
+                    codesById.remove(eldest.getValue().product().id());
+                }
+                return true;
+            }
+        };
+        redisConfigured = redisEnabled && !redisHost.isBlank() && redisTemplate != null;
+        if (meterRegistry != null) {
+            bindTo(meterRegistry);
+        }
+
+        running = true;
+        listener = new ProductChangeStreamListener(mongoTemplate, this::apply);
+        worker = new Thread(this::follow, "product-cache-invalidation");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        listener.close();
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public Optional<ProductSnapshot> findByProductCode(String productCode) {
+        CachedProduct entry = lookup(productCode);
+        if (entry != null) {
+            return Optional.ofNullable(entry.product());
+        }
+
+        CompletableFuture<ProductSnapshot> mine = new CompletableFuture<>();
+        CompletableFuture<ProductSnapshot> shared = inFlight.putIfAbsent(productCode, mine);
+        if (shared != null) {
+            coalesced.incrementAndGet();
+            try {
+                return Optional.ofNullable(shared.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            ProductSnapshot product = load(productCode);
+            mine.complete(product);
+            return Optional.ofNullable(product);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(productCode, mine);
+        }
+    }
+
+    public boolean existsByProductCode(String productCode) {
+        return findByProductCode(productCode).isPresent();
+    }
+
+    // Drops productCode, and whatever code productId was cached under, from both tiers
+    public void invalidate(String productCode, String productId) {
+        Set<String> codes = new LinkedHashSet<>();
+        if (productCode != null) {
+            codes.add(productCode);
+        }
+        synchronized (entries) {
+            invalidations++;
+            if (productId != null) {
+                String previous = codesById.remove(productId);
+                if (previous != null) {
+                    codes.add(previous);
+                }
+            }
+            for (String code : codes) {
+                CachedProduct removed = entries.remove(code);
+                if (removed != null && removed.product() != null) {
+                    codesById.remove(removed.product().id());
+                }
+            }
+        }
+        invalidatedKeys.addAndGet(codes.size());
+        if (redisUsable()) {
+            try {
+                List<String> keys = new ArrayList<>();
+                if (productId != null) {
+                    String previous = redisTemplate.opsForValue().get(ID_KEY + productId);
+                    if (previous != null) {
+                        codes.add(previous);
+                    }
+                    keys.add(ID_KEY + productId);
+                }
+                for (String code : codes) {
+                    keys.add(CODE_KEY + code);
+                }
+                redisTemplate.delete(keys);
+            } catch (RuntimeException e) {
+                redisFailed(e);
+            }
+        }
+    }
+
+    // Local tier only; the shared tier is left to expire
+    public void clear() {
+        synchronized (entries) {
+            invalidations++;
+            entries.clear();
+            codesById.clear();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+        }
+        long loads = misses.get();
+        stats.put("mode", mode);
+        stats.put("redis", redisConfigured);
+        stats.put("hits", hits.get());
+        stats.put("negativeHits", negativeHits.get());
+        stats.put("redisHits", redisHits.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("misses", loads);
+        stats.put("hitRatio", hitRatio());
+        stats.put("avgMongoLoadMicros", loads > 0 ? mongoLoadNanos.get() / loads / 1_000 : 0);
+        stats.put("invalidatedKeys", invalidatedKeys.get());
+        stats.put("changeEvents", changeEvents.get());
+        stats.put("redisErrors", redisErrors.get());
+        return stats;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Product> event) {
+        invalidate(event.getSource().getProductCode(), event.getSource().getId());
+    }
+
+    // The event carries the delete query rather than the deleted documents
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Product> event) {
+        Document query = event.getSource();
+        Object code = query.get("productCode");
+        Object id = query.get("_id");
+        if (id instanceof Document operators && operators.get("$in") instanceof List<?> ids) {
+            for (Object each : ids) {
+                invalidate(null, idString(each));
+            }
+        } else if (code instanceof String || id != null) {
+            invalidate(code instanceof String productCode ? productCode : null, idString(id));
+        } else {
+            clear();
+        }
+    }
+
+    private CachedProduct lookup(String productCode) {
+        CachedProduct entry;
+        synchronized (entries) {
+            entry = entries.get(productCode);
+            if (entry != null && entry.expiresAt() <= System.currentTimeMillis()) {
+                entries.remove(productCode);
+                if (entry.product() != null) {
+                    codesById.remove(entry.product().id());
+                }
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            (entry.product() != null ? hits : negativeHits).incrementAndGet();
+        }
+        return entry;
+    }
+
+    private ProductSnapshot load(String productCode) {
+        long stamp;
+        synchronized (entries) {
+            stamp = invalidations;
+        }
+
+        CachedProduct shared = readRedis(productCode);
+        if (shared != null) {
+            redisHits.incrementAndGet();
+            store(productCode, shared.product(), shared.expiresAt() - System.currentTimeMillis(), stamp);
+            return shared.product();
+        }
+
+        misses.incrementAndGet();
+        long start = System.nanoTime();
+        Product product = productRepository.findByProductCode(productCode);
+        long elapsed = System.nanoTime() - start;
+        mongoLoadNanos.addAndGet(elapsed);
+        if (mongoLoadTimer != null) {
+            mongoLoadTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+
+        if (product == null) {
+            store(productCode, null, negativeTtlMs, stamp);
+            return null;
+        }
+        ProductSnapshot snapshot = ProductSnapshot.of(product);
+        if (store(productCode, snapshot, ttlMs, stamp)) {
+            writeRedis(snapshot);
+        }
+        return snapshot;
+    }
+
+    // False when an invalidation happened since the stamp was taken
+    private boolean store(String productCode, ProductSnapshot product, long ttl, long stamp) {
+        if (ttl <= 0) {
+            return true;
+        }
+        CachedProduct entry = new CachedProduct(product, System.currentTimeMillis() + ttl);
+        synchronized (entries) {
+            if (stamp != invalidations) {
+                return false;
+            }
+            entries.put(productCode, entry);
+            if (product != null && product.id() != null) {
+                codesById.put(product.id(), productCode);
+            }
+            return true;
+        }
+    }
+
+    // The entry expires when the Redis copy does, or after ttl-ms if that is sooner
+    private CachedProduct readRedis(String productCode) {
+        if (!redisUsable()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            byte[] key = (CODE_KEY + productCode).getBytes(StandardCharsets.UTF_8);
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.stringCommands().get(key);
+                connection.keyCommands().pTtl(key);
+                return null;
+            });
+            if (redisLoadTimer != null) {
+                redisLoadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (!(results.get(0) instanceof String json)) {
+                return null;
+            }
+            // PTTL is -1 for a key without an expiry
+            long remaining = results.get(1) instanceof Long ms && ms >= 0 ? Math.min(ms, ttlMs) : ttlMs;
+            return new CachedProduct(objectMapper.readValue(json, ProductSnapshot.class), System.currentTimeMillis() + remaining);
+        } catch (JsonProcessingException e) {
+            // Written by an incompatible version; reload it from Mongo
+            log.debug("Ignoring unreadable cached product {}", productCode, e);
+            return null;
+        } catch (RuntimeException e) {
+            redisFailed(e);
+            return null;
+        }
+    }
+
+    // A write that lands between the Mongo read and this put leaves a stale copy until its change
+    // event is processed or the Redis TTL passes. Without a change stream nothing invalidates
+    // the copy, so it is kept no longer than a local entry would be.
+    private void writeRedis(ProductSnapshot product) {
+        if (!redisUsable()) {
+            return;
+        }
+        try {
+            Duration ttl = Duration.ofMillis("change-stream".equals(mode) ? redisTtlMs : Math.min(redisTtlMs, ttlMs));
+            redisTemplate.opsForValue().set(CODE_KEY + product.productCode(), objectMapper.writeValueAsString(product), ttl);
+            if (product.id() != null) {
+                redisTemplate.opsForValue().set(ID_KEY + product.id(), product.productCode(), ttl);
+            }
+        } catch (JsonProcessingException e) {
+            log.debug("Could not serialize product {} for Redis", product.productCode(), e);
+        } catch (RuntimeException e) {
+            redisFailed(e);
+        }
+    }
+
+    private boolean redisUsable() {
+        return redisConfigured && System.currentTimeMillis() >= redisRetryAt;
+    }
+
+    private void redisFailed(RuntimeException e) {
+        redisErrors.incrementAndGet();
+        redisRetryAt = System.currentTimeMillis() + redisRetryMs;
+        log.warn("Redis product cache unavailable, skipping it for {} ms: {}", redisRetryMs, e.getMessage());
+    }
+
+    private void follow() {
+        try {
+            listener.open();
+        } catch (MongoException e) {
+            mode = "ttl";
+            log.info("Mongo change streams unavailable ({}); cached products from other nodes' writes expire after {} ms",
+                e.getMessage(), ttlMs);
+            return;
+        }
+        mode = "change-stream";
+        listener.run();
+    }
+
+    private void apply(ProductChangeEvent event) {
+        changeEvents.incrementAndGet();
+        switch (event.type()) {
+            case UPSERT -> invalidate(event.product().getProductCode(), event.productId());
+            case DELETE -> invalidate(null, event.productId());
+            case RESYNC -> clear();
+        }
+    }
+
+    private double hitRatio() {
+        long served = hits.get() + negativeHits.get() + redisHits.get() + coalesced.get();
+        long total = served + misses.get();
+        return total > 0 ? (double) served / total : 0.0;
+    }
+
+    private void bindTo(MeterRegistry registry) {
+        counter(registry, "hit", hits);
+        counter(registry, "negative-hit", negativeHits);
+        counter(registry, "redis-hit", redisHits);
+        counter(registry, "coalesced", coalesced);
+        counter(registry, "miss", misses);
+        Gauge.builder("catalog.product.cache.hit.ratio", this, ProductCacheService::hitRatio)
+            .register(registry);
+        Gauge.builder("catalog.product.cache.entries", this, cache -> {
+                synchronized (cache.entries) {
+                    return cache.entries.size();
+                }
+            })
+            .register(registry);
+        FunctionCounter.builder("catalog.product.cache.invalidations", invalidatedKeys, AtomicLong::get)
+            .register(registry);
+        FunctionCounter.builder("catalog.product.cache.redis.errors", redisErrors, AtomicLong::get)
+            .register(registry);
+        mongoLoadTimer = Timer.builder("catalog.product.cache.load").tag("source", "mongo").register(registry);
+        redisLoadTimer = Timer.builder("catalog.product.cache.load").tag("source", "redis").register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String result, AtomicLong count) {
+        FunctionCounter.builder("catalog.product.cache.requests", count, AtomicLong::get)
+            .tag("result", result)
+            .register(registry);
+    }
+
+    private static String idString(Object id) {
+        if (id instanceof ObjectId objectId) {
+            return objectId.toHexString();
+        }
+        return id != null ? id.toString() : null;
+    }
+}
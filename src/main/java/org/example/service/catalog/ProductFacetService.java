@@ -0,0 +1,428 @@
+package org.example.service.catalog;
+
+import com.mongodb.MongoException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.example.document.Product;
+import org.example.service.search.ProductChangeEvent;
+import org.example.service.search.ProductChangeStreamListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Category, brand and price-range counts for a product filter, computed in a single $facet
+ * aggregation and cached per filter. While a change stream is available, every cached entry is
+ * adjusted in place as products change, using an in-memory copy of each product's facet fields to
+ * know what it counted towards before. Without change streams entries just expire after max-age.
+ */
+@Service
+@ConditionalOnExpression("'${spring.data.mongodb.uri:}' != '' and ${catalog.facets.enabled:true}")
+public class ProductFacetService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductFacetService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Ascending lower bounds of the price ranges; the last range is open-ended
+    @Value("${catalog.facets.price-boundaries:0,10,25,50,100,250,500,1000}")
+    private List<String> priceBoundaries;
+
+    @Value("${catalog.facets.cache-size:1000}")
+    private int cacheSize;
+
+    // Also bounds drift from writes that race an aggregation, see facets()
+    @Value("${catalog.facets.max-age-ms:600000}")
+    private long maxAgeMs;
+
+    @Value("${catalog.facets.max-values:100}")
+    private int maxValues;
+
+    @Value("${catalog.facets.load-batch-size:5000}")
+    private int loadBatchSize;
+
+    /** Unset fields are null; active=null counts active and inactive products alike. */
+    public record FacetFilter(String category, String brand, String tag, Boolean active,
+                              BigDecimal minPrice, BigDecimal maxPrice) {
+        public FacetFilter {
+            // 10 and 10.00 are the same filter and share a cache entry
+            minPrice = minPrice != null ? minPrice.stripTrailingZeros() : null;
+            maxPrice = maxPrice != null ? maxPrice.stripTrailingZeros() : null;
+        }
+    }
+
+    public record FacetValue(String value, long count) {}
+
+    /** to is null for the open-ended top range. */
+    public record PriceRange(BigDecimal from, BigDecimal to, long count) {}
+
+    public record Facets(long total, List<FacetValue> categories, List<FacetValue> brands,
+                         List<PriceRange> prices, boolean cached, long tookMicros) {}
+
+    // The facet fields of one product; price is null when missing or not a number
+    private record Facts(String category, String brand, List<String> tags, BigDecimal price, int priceBucket,
+                         boolean active) {
+
+        boolean matches(FacetFilter filter) {
+            if (filter.category() != null && !filter.category().equals(category)) {
+                return false;
+            }
+            if (filter.brand() != null && !filter.brand().equals(brand)) {
+                return false;
+            }
+            if (filter.tag() != null && (tags == null || !tags.contains(filter.tag()))) {
+                return false;
+            }
+            if (filter.active() != null && filter.active() != active) {
+                return false;
+            }
+            if (filter.minPrice() != null || filter.maxPrice() != null) {
+                return price != null
+                    && (filter.minPrice() == null || price.compareTo(filter.minPrice()) >= 0)
+                    && (filter.maxPrice() == null || price.compareTo(filter.maxPrice()) <= 0);
+            }
+            return true;
+        }
+    }
+
+    private BigDecimal[] boundaries;
+    private Map<FacetFilter, FacetCounts> cache;
+    // Bumped under the cache lock whenever cached counts change; see facets()
+    private long changeSequence;
+
+    // Written only by the worker thread
+    private final Map<String, Facts> facts = new ConcurrentHashMap<>();
+    private final Map<String, String> values = new HashMap<>();
+
+    private volatile boolean cacheable;
+    private volatile boolean running;
+    private volatile String mode = "starting";
+    private volatile long lastLoadMs = -1;
+    private ProductChangeStreamListener listener;
+    private Thread worker;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong racedFills = new AtomicLong();
+    private final AtomicLong productChanges = new AtomicLong();
+    private final AtomicLong entryUpdates = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        boundaries = new BigDecimal[priceBoundaries.size()];
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = new BigDecimal(priceBoundaries.get(i).trim());
+            if (i > 0 && boundaries[i].compareTo(boundaries[i - 1]) <= 0) {
+                throw new IllegalStateException("catalog.facets.price-boundaries must be strictly ascending");
+            }
+        }
+        if (boundaries.length < 2) {
+            throw new IllegalStateException("catalog.facets.price-boundaries needs at least two values");
+        }
+        int bound = Math.max(1, cacheSize);
+        cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FacetFilter, FacetCounts> eldest) {
+                return size() > bound;
+            }
+        };
+
+        running = true;
+        listener = new ProductChangeStreamListener(mongoTemplate, this::apply);
+        worker = new Thread(this::maintain, "product-facets");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        listener.close();
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public Facets facets(FacetFilter filter) {
+        if (filter.minPrice() != null && filter.maxPrice() != null && filter.minPrice().compareTo(filter.maxPrice()) > 0) {
+            throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+        }
+        long start = System.nanoTime();
+        long sequence;
+        synchronized (cache) {
+            FacetCounts counts = cache.get(filter);
+            if (counts != null && System.currentTimeMillis() - counts.computedAt() > maxAgeMs) {
+                cache.remove(filter);
+                expirations.incrementAndGet();
+                counts = null;
+            }
+            if (counts != null) {
+                hits.incrementAndGet();
+                return toFacets(counts, true, start);
+            }
+            sequence = changeSequence;
+        }
+
+        misses.incrementAndGet();
+        FacetCounts counts = aggregate(filter);
+        synchronized (cache) {
+            // A product that changed while the aggregation ran may or may not be in its counts, so
+            // those are not cached. Writes the change stream has not delivered yet can still be
+            // counted twice; max-age bounds how long that lasts.
+            if (cacheable && changeSequence == sequence) {
+                cache.put(filter, counts);
+            } else {
+                racedFills.incrementAndGet();
+            }
+            return toFacets(counts, false, start);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (cache) {
+            stats.put("cachedFilters", cache.size());
+        }
+        stats.put("mode", mode);
+        stats.put("cacheable", cacheable);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("expirations", expirations.get());
+        stats.put("racedFills", racedFills.get());
+        stats.put("trackedProducts", facts.size());
+        stats.put("productChanges", productChanges.get());
+        stats.put("entryUpdates", entryUpdates.get());
+        stats.put("lastLoadMs", lastLoadMs);
+        stats.put("changeEvents", listener.getEventCount());
+        return stats;
+    }
+
+    // One pass over the matching products: the price is converted to a decimal first because
+    // BigDecimal fields are stored as strings by default, which would bucket lexicographically
+    private FacetCounts aggregate(FacetFilter filter) {
+        Document match = new Document();
+        if (filter.category() != null) {
+            match.append("category", filter.category());
+        }
+        if (filter.brand() != null) {
+            match.append("brand", filter.brand());
+        }
+        if (filter.tag() != null) {
+            match.append("tags", filter.tag());
+        }
+        if (filter.active() != null) {
+            match.append("isActive", filter.active() ? true : new Document("$ne", true));
+        }
+
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", match));
+        pipeline.add(new Document("$project", new Document("_id", 0)
+            .append("category", 1)
+            .append("brand", 1)
+            .append("price", new Document("$convert", new Document("input", "$price")
+                .append("to", "decimal").append("onError", null).append("onNull", null)))));
+        if (filter.minPrice() != null || filter.maxPrice() != null) {
+            Document range = new Document();
+            if (filter.minPrice() != null) {
+                range.append("$gte", new Decimal128(filter.minPrice()));
+            }
+            if (filter.maxPrice() != null) {
+                range.append("$lte", new Decimal128(filter.maxPrice()));
+            }
+            pipeline.add(new Document("$match", new Document("price", range)));
+        }
+        List<Decimal128> bucketBoundaries = new ArrayList<>(boundaries.length);
+        for (BigDecimal boundary : boundaries) {
+            bucketBoundaries.add(new Decimal128(boundary));
+        }
+        pipeline.add(new Document("$facet", new Document()
+            .append("total", List.of(new Document("$count", "n")))
+            .append("categories", List.of(
+                new Document("$match", new Document("category", new Document("$type", "string"))),
+                new Document("$group", new Document("_id", "$category").append("n", new Document("$sum", 1)))))
+            .append("brands", List.of(
+                new Document("$match", new Document("brand", new Document("$type", "string"))),
+                new Document("$group", new Document("_id", "$brand").append("n", new Document("$sum", 1)))))
+            .append("prices", List.of(
+                new Document("$match", new Document("price", new Document("$gte", bucketBoundaries.get(0)))),
+                new Document("$bucket", new Document("groupBy", "$price")
+                    .append("boundaries", bucketBoundaries)
+                    .append("default", "open")
+                    .append("output", new Document("n", new Document("$sum", 1))))))));
+
+        long computedAt = System.currentTimeMillis();
+        Document result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class))
+            .aggregate(pipeline)
+            .first();
+
+        FacetCounts counts = new FacetCounts(boundaries.length, computedAt);
+        if (result == null) {
+            return counts;
+        }
+        for (Document total : result.getList("total", Document.class)) {
+            counts.setTotal(((Number) total.get("n")).longValue());
+        }
+        for (Document category : result.getList("categories", Document.class)) {
+            counts.setCategory(category.getString("_id"), ((Number) category.get("n")).longValue());
+        }
+        for (Document brand : result.getList("brands", Document.class)) {
+            counts.setBrand(brand.getString("_id"), ((Number) brand.get("n")).longValue());
+        }
+        for (Document bucket : result.getList("prices", Document.class)) {
+            Object id = bucket.get("_id");
+            int index = id instanceof Decimal128 lower
+                ? bucketOf(lower.bigDecimalValue())
+                : boundaries.length - 1;
+            counts.setPriceBucket(index, ((Number) bucket.get("n")).longValue());
+        }
+        return counts;
+    }
+
+    private Facets toFacets(FacetCounts counts, boolean cached, long start) {
+        List<PriceRange> prices = new ArrayList<>(boundaries.length);
+        for (int i = 0; i < boundaries.length; i++) {
+            prices.add(new PriceRange(boundaries[i], i + 1 < boundaries.length ? boundaries[i + 1] : null,
+                counts.priceCount(i)));
+        }
+        return new Facets(counts.total(), counts.topCategories(maxValues), counts.topBrands(maxValues), prices,
+            cached, (System.nanoTime() - start) / 1_000);
+    }
+
+    // Index of the range holding price, -1 below the first boundary
+    private int bucketOf(BigDecimal price) {
+        if (price == null || price.compareTo(boundaries[0]) < 0) {
+            return -1;
+        }
+        int bucket = 0;
+        while (bucket + 1 < boundaries.length && price.compareTo(boundaries[bucket + 1]) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    // Runs on the worker thread: the only thread that writes to facts
+    private void maintain() {
+        try {
+            listener.open();
+        } catch (MongoException e) {
+            mode = "expiry";
+            cacheable = true;
+            log.info("Mongo change streams unavailable ({}); cached product facets expire after {} ms",
+                e.getMessage(), maxAgeMs);
+            return;
+        }
+        mode = "change-stream";
+        while (running && !cacheable) {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("Failed to load product facet fields, retrying", e);
+                sleep(10_000);
+            }
+        }
+        listener.run();
+    }
+
+    private void apply(ProductChangeEvent event) {
+        switch (event.type()) {
+            case UPSERT -> update(event.productId(), factsOf(event.product()));
+            case DELETE -> update(event.productId(), null);
+            case RESYNC -> {
+                cacheable = false;
+                synchronized (cache) {
+                    cache.clear();
+                    changeSequence++;
+                }
+                reload();
+            }
+        }
+    }
+
+    private void update(String productId, Facts now) {
+        if (productId == null) {
+            return;
+        }
+        Facts before = now != null ? facts.put(productId, now) : facts.remove(productId);
+        if (Objects.equals(before, now)) {
+            return;
+        }
+        productChanges.incrementAndGet();
+        synchronized (cache) {
+            changeSequence++;
+            for (Map.Entry<FacetFilter, FacetCounts> entry : cache.entrySet()) {
+                boolean matchedBefore = before != null && before.matches(entry.getKey());
+                boolean matchesNow = now != null && now.matches(entry.getKey());
+                if (matchedBefore) {
+                    entry.getValue().add(before.category(), before.brand(), before.priceBucket(), -1);
+                }
+                if (matchesNow) {
+                    entry.getValue().add(now.category(), now.brand(), now.priceBucket(), 1);
+                }
+                if (matchedBefore || matchesNow) {
+                    entryUpdates.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // Nothing is cached until every product's facet fields are known
+    private void reload() {
+        long start = System.currentTimeMillis();
+        facts.clear();
+        values.clear();
+        Query query = new Query();
+        query.fields().include("category", "brand", "tags", "price", "isActive");
+        query.cursorBatchSize(loadBatchSize);
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            products.forEach(product -> facts.put(product.getId(), factsOf(product)));
+        }
+        cacheable = true;
+        lastLoadMs = System.currentTimeMillis() - start;
+        log.info("Product facet fields loaded for {} products in {} ms", facts.size(), lastLoadMs);
+    }
+
+    // Category, brand and tag strings repeat across products, so one copy of each is kept
+    private Facts factsOf(Product product) {
+        List<String> tags = null;
+        if (product.getTags() != null) {
+            tags = new ArrayList<>(product.getTags().size());
+            for (String tag : product.getTags()) {
+                tags.add(shared(tag));
+            }
+        }
+        return new Facts(shared(product.getCategory()), shared(product.getBrand()), tags, product.getPrice(),
+            bucketOf(product.getPrice()), Boolean.TRUE.equals(product.getIsActive()));
+    }
+
+    private String shared(String value) {
+        return value == null ? null : values.computeIfAbsent(value, v -> v);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
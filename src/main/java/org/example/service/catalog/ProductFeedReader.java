@@ -0,0 +1,174 @@
+package org.example.service.catalog;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits an NDJSON or CSV product feed into rows while it streams in, holding at most one row in
+ * memory. CSV follows RFC 4180: quoted fields may contain commas, doubled quotes and line breaks.
+ * A row longer than maxRowChars is still consumed to its end, but comes back with a problem
+ * instead of its content, so one bad row cannot exhaust the heap.
+ */
+final class ProductFeedReader {
+
+    enum Format { NDJSON, CSV }
+
+    // line is where the row starts in the file; for NDJSON text is set, for CSV fields
+    record Row(long line, String text, String[] fields, int chars, String problem) {}
+
+    private final Reader in;
+    private final Format format;
+    private final int maxRowChars;
+    private final char[] buffer = new char[64 * 1024];
+    private final StringBuilder value = new StringBuilder();
+    private int position;
+    private int limit;
+    private long line = 1;
+    private boolean started;
+
+    ProductFeedReader(Reader in, Format format, int maxRowChars) {
+        this.in = in;
+        this.format = format;
+        this.maxRowChars = maxRowChars;
+    }
+
+    // Null at the end of the feed; blank lines are skipped
+    Row next() throws IOException {
+        if (!started) {
+            started = true;
+            // Spreadsheet exports often start with a byte order mark
+            if (peek() == '\uFEFF') {
+                position++;
+            }
+        }
+        return format == Format.NDJSON ? nextLine() : nextRecord();
+    }
+
+    private Row nextLine() throws IOException {
+        while (true) {
+            long start = line;
+            value.setLength(0);
+            int chars = 0;
+            int c;
+            while ((c = read()) != -1 && c != '\n') {
+                if (chars++ < maxRowChars) {
+                    value.append((char) c);
+                }
+            }
+            if (c == -1 && chars == 0) {
+                return null;
+            }
+            if (c == '\n') {
+                line++;
+            }
+            if (chars > maxRowChars) {
+                return new Row(start, null, null, chars, "Row is longer than " + maxRowChars + " characters");
+            }
+            if (!value.toString().isBlank()) {
+                return new Row(start, value.toString(), null, chars, null);
+            }
+        }
+    }
+
+    private Row nextRecord() throws IOException {
+        int c = read();
+        while (c == '\n' || c == '\r') {
+            if (c == '\n') {
+                line++;
+            }
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        long start = line;
+        List<String> fields = new ArrayList<>();
+        value.setLength(0);
+        int chars = 0;
+        boolean quoted = false;
+        boolean fieldStart = true;
+        String problem = null;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    problem = "Unterminated quoted field";
+                    addField(fields, chars);
+                    break;
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    line++;
+                }
+                chars++;
+                append(c, chars);
+            } else if (c == ',') {
+                addField(fields, chars);
+                value.setLength(0);
+                fieldStart = true;
+                chars++;
+                c = read();
+                continue;
+            } else if (c == '\n' || c == -1) {
+                addField(fields, chars);
+                if (c == '\n') {
+                    line++;
+                }
+                break;
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else if (c != '\r') {
+                chars++;
+                append(c, chars);
+            }
+            fieldStart = false;
+            c = read();
+        }
+
+        if (chars > maxRowChars) {
+            return new Row(start, null, null, chars, "Row is longer than " + maxRowChars + " characters");
+        }
+        return new Row(start, null, fields.toArray(new String[0]), chars, problem);
+    }
+
+    // Past maxRowChars the row is rejected, so the rest of it is only counted
+    private void addField(List<String> fields, int chars) {
+        if (chars <= maxRowChars) {
+            fields.add(value.toString());
+        }
+    }
+
+    private void append(int c, int chars) {
+        if (chars <= maxRowChars) {
+            value.append((char) c);
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(0, n);
+        return n > 0;
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.service.catalog;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one product import. Counters are updated by the reader, converter and writer threads
+ * as rows move through, so a job can be polled while it runs. Only the first maxErrors row errors
+ * are kept; errorCount has them all.
+ */
+public class ProductImportJob {
+
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    /** line is where the row starts in the feed; productCode is null when it could not be read. */
+    public record RowError(long line, String productCode, String message) {}
+
+    private final String id;
+    private final String source;
+    private final String format;
+    private final int maxErrors;
+    private final long startedAt = System.currentTimeMillis();
+    private final List<RowError> errors = new ArrayList<>();
+    private volatile State state = State.RUNNING;
+    private volatile String failure;
+    private volatile long finishedAt;
+
+    final AtomicLong bytesRead = new AtomicLong();
+    final AtomicLong rowsRead = new AtomicLong();
+    final AtomicLong rowsInvalid = new AtomicLong();
+    final AtomicLong upserted = new AtomicLong();
+    final AtomicLong modified = new AtomicLong();
+    final AtomicLong unchanged = new AtomicLong();
+    final AtomicLong duplicates = new AtomicLong();
+    final AtomicLong writeFailures = new AtomicLong();
+    final AtomicLong batches = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    ProductImportJob(String id, String source, String format, int maxErrors) {
+        this.id = id;
+        this.source = source;
+        this.format = format;
+        this.maxErrors = maxErrors;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    void error(long line, String productCode, String message) {
+        errorCount.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(new RowError(line, productCode, message));
+            }
+        }
+    }
+
+    void complete() {
+        finishedAt = System.currentTimeMillis();
+        state = State.COMPLETED;
+    }
+
+    void fail(String message) {
+        failure = message;
+        finishedAt = System.currentTimeMillis();
+        state = State.FAILED;
+    }
+
+    boolean isFailed() {
+        return state == State.FAILED;
+    }
+
+    public Map<String, Object> toMap(boolean includeErrors) {
+        long durationMs = (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+        long written = upserted.get() + modified.get() + unchanged.get();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", id);
+        map.put("source", source);
+        map.put("format", format);
+        map.put("state", state);
+        map.put("startedAt", Instant.ofEpochMilli(startedAt).toString());
+        map.put("durationMs", durationMs);
+        map.put("bytesRead", bytesRead.get());
+        map.put("rowsRead", rowsRead.get());
+        map.put("rowsInvalid", rowsInvalid.get());
+        map.put("upserted", upserted.get());
+        map.put("modified", modified.get());
+        map.put("unchanged", unchanged.get());
+        map.put("duplicates", duplicates.get());
+        map.put("writeFailures", writeFailures.get());
+        map.put("batches", batches.get());
+        map.put("rowsPerSecond", durationMs > 0 ? written * 1000 / durationMs : 0);
+        map.put("errorCount", errorCount.get());
+        if (failure != null) {
+            map.put("failure", failure);
+        }
+        if (includeErrors) {
+            synchronized (errors) {
+                map.put("errors", new ArrayList<>(errors));
+            }
+        }
+        return map;
+    }
+}
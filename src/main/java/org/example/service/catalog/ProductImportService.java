@@ -0,0 +1,584 @@
+package org.example.service.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.example.document.Product;
+import org.example.service.storage.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk product import from NDJSON or CSV feeds. The feed is split into rows as it streams in,
+ * chunks of rows are validated and converted to Products on a thread pool, and the products are
+ * routed by productCode, in feed order, to several writers that flush unordered bulk upserts, sized
+ * to stay within the server's wire limits. When a code appears more than once, the last row in the
+ * feed wins. Every stage hands off through bounded queues, so memory use does not depend on the
+ * size of the feed.
+ *
+ * <p>Imports merge into the stored products: fields a row leaves out or empty keep their stored
+ * values, and new products start active.
+ */
+@Service
+@ConditionalOnProperty(name = "spring.data.mongodb.uri")
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    // Server defaults, used when the hello command cannot be run
+    private static final int DEFAULT_MAX_WRITE_BATCH_SIZE = 100_000;
+    private static final int DEFAULT_MAX_MESSAGE_SIZE_BYTES = 48_000_000;
+
+    // Field names, update operators and per-document framing a raw row does not carry
+    private static final int DOCUMENT_OVERHEAD_BYTES = 256;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ProductBulkWriter bulkWriter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private BlobStore blobStore;
+
+    @Value("${catalog.import.converters:0}")
+    private int converterCount;
+
+    @Value("${catalog.import.writers:4}")
+    private int writerCount;
+
+    @Value("${catalog.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${catalog.import.batch-size:1000}")
+    private int batchSize;
+
+    // Estimated from the raw rows; the driver still splits anything the server would reject
+    @Value("${catalog.import.batch-bytes:16777216}")
+    private int batchBytes;
+
+    @Value("${catalog.import.max-row-chars:1048576}")
+    private int maxRowChars;
+
+    @Value("${catalog.import.max-errors:1000}")
+    private int maxErrors;
+
+    @Value("${catalog.import.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs;
+
+    private ObjectReader rowReader;
+    private Semaphore jobSlots;
+    private final Map<String, ProductImportJob> jobs = new LinkedHashMap<>();
+
+    // A converted row on its way to a writer; END tells a writer the feed is done
+    private record Pending(long line, Product product, int bytes) {}
+
+    private static final Pending END = new Pending(-1, null, 0);
+
+    @PostConstruct
+    public void start() {
+        rowReader = objectMapper.readerFor(Map.class);
+        jobSlots = new Semaphore(Math.max(1, maxConcurrentJobs));
+    }
+
+    // Runs on the calling thread until the whole feed is written; the caller closes the stream
+    public ProductImportJob importFeed(InputStream feed, String format, String source) {
+        ProductFeedReader.Format feedFormat = formatOf(format);
+        ProductImportJob job = register(source, feedFormat);
+        try {
+            run(job, feed, feedFormat);
+        } finally {
+            jobSlots.release();
+        }
+        return job;
+    }
+
+    // Reads the feed from the blob store on a background thread; poll the returned job for progress
+    public ProductImportJob importBlob(String bucket, String key, String format) {
+        ProductFeedReader.Format feedFormat = formatOf(format);
+        if (blobStore == null) {
+            throw new IllegalStateException("Blob storage not available");
+        }
+        String resolvedBucket = bucket != null ? bucket : blobStore.getDefaultBucket();
+        if (!blobStore.exists(resolvedBucket, key)) {
+            throw new IllegalArgumentException("No blob " + resolvedBucket + "/" + key);
+        }
+        ProductImportJob job = register(resolvedBucket + "/" + key, feedFormat);
+        Thread thread = new Thread(() -> {
+            try (InputStream feed = blobStore.openStream(resolvedBucket, key)) {
+                run(job, feed, feedFormat);
+            } catch (IOException | RuntimeException e) {
+                if (!job.isFailed()) {
+                    job.fail(e.getMessage());
+                }
+            } finally {
+                jobSlots.release();
+            }
+        }, "product-import-" + job.getId());
+        thread.setDaemon(true);
+        thread.start();
+        return job;
+    }
+
+    public ProductImportJob getJob(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    // Most recent first
+    public List<ProductImportJob> getJobs() {
+        synchronized (jobs) {
+            List<ProductImportJob> recent = new ArrayList<>(jobs.values());
+            Collections.reverse(recent);
+            return recent;
+        }
+    }
+
+    private static ProductFeedReader.Format formatOf(String format) {
+        return switch (format == null ? "" : format.toLowerCase(Locale.ROOT)) {
+            case "ndjson", "jsonl" -> ProductFeedReader.Format.NDJSON;
+            case "csv" -> ProductFeedReader.Format.CSV;
+            default -> throw new IllegalArgumentException("format must be ndjson or csv");
+        };
+    }
+
+    private ProductImportJob register(String source, ProductFeedReader.Format format) {
+        if (!jobSlots.tryAcquire()) {
+            throw new IllegalStateException("Too many imports running; at most " + maxConcurrentJobs + " at a time");
+        }
+        ProductImportJob job = new ProductImportJob(UUID.randomUUID().toString().substring(0, 8), source,
+            format.name().toLowerCase(Locale.ROOT), maxErrors);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            // Keep the last 100 finished jobs around for polling
+            Iterator<ProductImportJob> iterator = jobs.values().iterator();
+            while (jobs.size() > 100 && iterator.hasNext()) {
+                if (iterator.next().getState() != ProductImportJob.State.RUNNING) {
+                    iterator.remove();
+                }
+            }
+        }
+        return job;
+    }
+
+    private void run(ProductImportJob job, InputStream feed, ProductFeedReader.Format format) {
+        int converters = converterCount > 0 ? converterCount : Runtime.getRuntime().availableProcessors();
+        int writers = Math.max(1, writerCount);
+        int[] limits = batchLimits();
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService conversion = Executors.newFixedThreadPool(converters, task -> {
+            Thread thread = new Thread(task, "product-import-convert-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Rows read but not yet handed to a writer are bounded to a few chunks per converter
+        int maxConverting = converters * 2;
+        Deque<Future<List<Pending>>> converting = new ArrayDeque<>();
+        List<BlockingQueue<Pending>> queues = new ArrayList<>();
+        List<Thread> writerThreads = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(Math.max(limits[0], chunkSize) * 2);
+            Thread writer = new Thread(() -> drain(job, queue, limits[0], limits[1]), "product-import-write-" + i);
+            writer.setDaemon(true);
+            queues.add(queue);
+            writerThreads.add(writer);
+            writer.start();
+        }
+
+        long start = System.currentTimeMillis();
+        try (Reader reader = new InputStreamReader(new CountingInputStream(feed, job), StandardCharsets.UTF_8)) {
+            ProductFeedReader rows = new ProductFeedReader(reader, format, maxRowChars);
+            String[] header = format == ProductFeedReader.Format.CSV ? readHeader(rows) : null;
+            List<ProductFeedReader.Row> chunk = new ArrayList<>(chunkSize);
+            ProductFeedReader.Row row;
+            while (!job.isFailed() && (row = rows.next()) != null) {
+                job.rowsRead.incrementAndGet();
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    converting.add(submit(job, chunk, header, conversion));
+                    dispatch(converting, queues, maxConverting);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                converting.add(submit(job, chunk, header, conversion));
+            }
+            dispatch(converting, queues, 0);
+        } catch (IOException | IllegalArgumentException e) {
+            job.fail("Failed to read the feed: " + e.getMessage());
+        } catch (ExecutionException e) {
+            job.fail("Failed to convert the feed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Interrupted");
+        } finally {
+            conversion.shutdownNow();
+            for (BlockingQueue<Pending> queue : queues) {
+                putQuietly(queue, END);
+            }
+            for (Thread writer : writerThreads) {
+                try {
+                    writer.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        if (!job.isFailed()) {
+            job.complete();
+        }
+        log.info("Product import {} finished in {} ms: {}", job.getId(), System.currentTimeMillis() - start,
+            job.toMap(false));
+    }
+
+    private String[] readHeader(ProductFeedReader rows) throws IOException {
+        ProductFeedReader.Row header = rows.next();
+        if (header == null || header.problem() != null) {
+            throw new IllegalArgumentException("CSV feed has no readable header row");
+        }
+        String[] names = new String[header.fields().length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = header.fields()[i].trim();
+        }
+        if (!List.of(names).contains("productCode")) {
+            throw new IllegalArgumentException("CSV header has no productCode column");
+        }
+        return names;
+    }
+
+    private Future<List<Pending>> submit(ProductImportJob job, List<ProductFeedReader.Row> chunk, String[] header,
+                                         ExecutorService conversion) {
+        return conversion.submit(() -> {
+            List<Pending> converted = new ArrayList<>(chunk.size());
+            for (ProductFeedReader.Row row : chunk) {
+                if (job.isFailed()) {
+                    break;
+                }
+                Product product = convert(job, row, header);
+                if (product != null) {
+                    converted.add(new Pending(row.line(), product, row.chars() + DOCUMENT_OVERHEAD_BYTES));
+                }
+            }
+            return converted;
+        });
+    }
+
+    // Hands converted chunks to the writers in feed order until at most maxConverting are left.
+    // A code always goes to the same writer and arrives there in line order, so its last row is
+    // written last and no two writers upsert it at once.
+    private static void dispatch(Deque<Future<List<Pending>>> converting, List<BlockingQueue<Pending>> queues,
+                                 int maxConverting) throws InterruptedException, ExecutionException {
+        while (!converting.isEmpty() && (converting.size() > maxConverting || converting.peek().isDone())) {
+            for (Pending pending : converting.poll().get()) {
+                int shard = Math.floorMod(pending.product().getProductCode().hashCode(), queues.size());
+                queues.get(shard).put(pending);
+            }
+        }
+    }
+
+    private Product convert(ProductImportJob job, ProductFeedReader.Row row, String[] header) {
+        Map<String, Object> fields = null;
+        try {
+            if (row.problem() != null) {
+                throw new IllegalArgumentException(row.problem());
+            }
+            fields = header == null ? parseJson(row.text()) : csvFields(header, row.fields());
+            return toProduct(fields);
+        } catch (IllegalArgumentException e) {
+            job.rowsInvalid.incrementAndGet();
+            Object code = fields != null ? fields.get("productCode") : null;
+            job.error(row.line(), code != null ? code.toString() : null, e.getMessage());
+            return null;
+        }
+    }
+
+    private void drain(ProductImportJob job, BlockingQueue<Pending> queue, int maxBatch, int maxBytes) {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        int bytes = 0;
+        while (true) {
+            Pending pending;
+            try {
+                pending = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (pending == END) {
+                break;
+            }
+            if (!batch.isEmpty() && (batch.size() >= maxBatch || bytes + pending.bytes() > maxBytes)) {
+                flush(job, batch);
+                batch.clear();
+                bytes = 0;
+            }
+            batch.add(pending);
+            bytes += pending.bytes();
+        }
+        if (!batch.isEmpty()) {
+            flush(job, batch);
+        }
+    }
+
+    private void flush(ProductImportJob job, List<Pending> batch) {
+        if (job.isFailed()) {
+            return;
+        }
+        // Rows arrive in line order and the bulk writer keeps the last one for a code
+        Map<String, Pending> byCode = new LinkedHashMap<>();
+        List<Product> products = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            byCode.put(pending.product().getProductCode(), pending);
+            products.add(pending.product());
+        }
+        try {
+            ProductBulkWriter.Result result = bulkWriter.write(products, true);
+            job.batches.incrementAndGet();
+            job.upserted.addAndGet(result.upserted());
+            job.modified.addAndGet(result.modified());
+            job.unchanged.addAndGet(result.skipped());
+            job.duplicates.addAndGet(batch.size() - byCode.size());
+            job.writeFailures.addAndGet(result.failures().size());
+            for (Map.Entry<String, String> failure : result.failures().entrySet()) {
+                job.error(byCode.get(failure.getKey()).line(), failure.getKey(), failure.getValue());
+            }
+        } catch (RuntimeException e) {
+            // Not a per-row error (connection, timeout, auth); later batches would fail the same way
+            job.writeFailures.addAndGet(batch.size());
+            job.fail("Bulk write failed: " + e.getMessage());
+            log.warn("Product import {} stopped: bulk write of {} products failed", job.getId(), batch.size(), e);
+        }
+    }
+
+    // {maxBatch, maxBytes} within what the server accepts in one message
+    private int[] batchLimits() {
+        int maxWriteBatchSize = DEFAULT_MAX_WRITE_BATCH_SIZE;
+        int maxMessageSizeBytes = DEFAULT_MAX_MESSAGE_SIZE_BYTES;
+        try {
+            Document hello = mongoTemplate.executeCommand(new Document("hello", 1));
+            if (hello.get("maxWriteBatchSize") instanceof Number size) {
+                maxWriteBatchSize = size.intValue();
+            }
+            if (hello.get("maxMessageSizeBytes") instanceof Number size) {
+                maxMessageSizeBytes = size.intValue();
+            }
+        } catch (RuntimeException e) {
+            log.debug("Could not read the server's write limits, using the defaults", e);
+        }
+        return new int[] {
+            Math.max(1, Math.min(batchSize, maxWriteBatchSize)),
+            Math.max(DOCUMENT_OVERHEAD_BYTES, Math.min(batchBytes, maxMessageSizeBytes - 1024 * 1024))
+        };
+    }
+
+    private Map<String, Object> parseJson(String text) {
+        try {
+            return rowReader.readValue(text);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    // attributes.<name> (or attr.<name>) columns become attributes; empty cells keep the stored value
+    private static Map<String, Object> csvFields(String[] header, String[] values) {
+        if (values.length > header.length) {
+            throw new IllegalArgumentException("Row has " + values.length + " fields, the header " + header.length);
+        }
+        Map<String, Object> fields = new HashMap<>();
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i].trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            String name = header[i];
+            if (name.startsWith("attributes.")) {
+                attributes.put(name.substring("attributes.".length()), value);
+            } else if (name.startsWith("attr.")) {
+                attributes.put(name.substring("attr.".length()), value);
+            } else {
+                fields.put(name, value);
+            }
+        }
+        if (!attributes.isEmpty()) {
+            fields.put("attributes", attributes);
+        }
+        return fields;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Product toProduct(Map<String, Object> fields) {
+        Product product = new Product();
+        String code = text(fields, "productCode");
+        if (code == null) {
+            throw new IllegalArgumentException("productCode is required");
+        }
+        if (code.length() > 128) {
+            throw new IllegalArgumentException("productCode is longer than 128 characters");
+        }
+        product.setProductCode(code);
+        String name = text(fields, "name");
+        if (name == null) {
+            throw new IllegalArgumentException("name is required");
+        }
+        product.setName(name);
+        product.setDescription(text(fields, "description"));
+        product.setCategory(text(fields, "category"));
+        product.setBrand(text(fields, "brand"));
+
+        Object price = fields.get("price");
+        if (price != null) {
+            BigDecimal parsed = price instanceof Number number
+                ? new BigDecimal(number.toString())
+                : ProductNormalizer.parsePrice(price.toString());
+            if (parsed == null || parsed.signum() < 0) {
+                throw new IllegalArgumentException("price is not a non-negative amount: " + price);
+            }
+            product.setPrice(parsed);
+        }
+
+        Object stock = fields.get("stockQuantity");
+        if (stock != null) {
+            try {
+                int quantity = stock instanceof Number number
+                    ? Math.toIntExact(number.longValue())
+                    : Integer.parseInt(stock.toString().trim());
+                if (quantity < 0) {
+                    throw new NumberFormatException();
+                }
+                product.setStockQuantity(quantity);
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new IllegalArgumentException("stockQuantity is not a non-negative integer: " + stock);
+            }
+        }
+
+        Object active = fields.containsKey("isActive") ? fields.get("isActive") : fields.get("active");
+        if (active != null) {
+            product.setIsActive(switch (active.toString().trim().toLowerCase(Locale.ROOT)) {
+                case "true", "1", "yes" -> true;
+                case "false", "0", "no" -> false;
+                default -> throw new IllegalArgumentException("isActive is not a boolean: " + active);
+            });
+        }
+
+        Object tags = fields.get("tags");
+        if (tags instanceof List<?> list) {
+            List<String> values = new ArrayList<>(list.size());
+            for (Object tag : list) {
+                if (tag != null && !tag.toString().isBlank()) {
+                    values.add(tag.toString().trim());
+                }
+            }
+            product.setTags(values);
+        } else if (tags != null) {
+            // CSV cells hold tags separated by |
+            List<String> values = new ArrayList<>();
+            for (String tag : tags.toString().split("\\|")) {
+                if (!tag.isBlank()) {
+                    values.add(tag.trim());
+                }
+            }
+            product.setTags(values);
+        }
+
+        Object attributes = fields.get("attributes");
+        if (attributes instanceof Map<?, ?> map) {
+            product.setAttributes((Map<String, Object>) map);
+        } else if (attributes != null) {
+            throw new IllegalArgumentException("attributes must be an object");
+        }
+        product.setCreatedAt(LocalDateTime.now());
+        return product;
+    }
+
+    private static String text(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static void putQuietly(BlockingQueue<Pending> queue, Pending pending) {
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Counts the feed's bytes for progress reporting
+    private static class CountingInputStream extends FilterInputStream {
+
+        private final ProductImportJob job;
+
+        CountingInputStream(InputStream in, ProductImportJob job) {
+            super(in);
+            this.job = job;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                job.bytesRead.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                job.bytesRead.addAndGet(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            job.bytesRead.addAndGet(skipped);
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.service.catalog;
+
+import org.example.document.Product;
+import org.example.service.crawler.UrlCanonicalizer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Turns the loose maps returned by crawlProductPage / crawlSearchResults into Product documents.
+ */
+public final class ProductNormalizer {
+
+    private ProductNormalizer() {}
+
+    public static Product fromCrawlResult(Map<String, Object> crawled) {
+        String url = firstString(crawled, "url", "link");
+        Product product = new Product();
+        product.setProductCode(deriveProductCode(crawled));
+        product.setName(firstString(crawled, "name", "title"));
+        product.setDescription(firstString(crawled, "description"));
+        product.setPrice(parsePrice(firstString(crawled, "price")));
+        product.setCategory(firstString(crawled, "category"));
+        product.setBrand(firstString(crawled, "brand"));
+        product.setIsActive(true);
+
+        Map<String, Object> attributes = new HashMap<>();
+        if (url != null) {
+            attributes.put("sourceUrl", url);
+        }
+        Object images = crawled.get("images");
+        if (images instanceof List<?> list && !list.isEmpty()) {
+            attributes.put("images", list);
+        } else if (crawled.get("image") != null) {
+            attributes.put("images", List.of(crawled.get("image")));
+        }
+        if (crawled.get("price") != null) {
+            attributes.put("priceText", crawled.get("price").toString());
+        }
+        product.setAttributes(attributes);
+
+        LocalDateTime now = LocalDateTime.now();
+        product.setCreatedAt(now);
+        product.setUpdatedAt(now);
+        product.setContentHash(contentHash(product));
+        return product;
+    }
+
+    // Explicit SKU when the page exposes one, otherwise a stable code from the canonical URL
+    public static String deriveProductCode(Map<String, Object> crawled) {
+        String explicit = firstString(crawled, "productCode", "sku");
+        if (explicit != null) {
+            return explicit;
+        }
+        String url = firstString(crawled, "url", "link");
+        if (url == null) {
+            throw new IllegalArgumentException("Crawl result has neither a product code nor a URL");
+        }
+        return deriveProductCode(url);
+    }
+
+    // True when the page exposes its own SKU rather than leaving the code to the URL
+    public static boolean hasExplicitCode(Map<String, Object> crawled) {
+        return firstString(crawled, "productCode", "sku") != null;
+    }
+
+    public static String deriveProductCode(String url) {
+        return String.format("WEB-%016X", UrlCanonicalizer.hash64(UrlCanonicalizer.canonicalize(url)));
+    }
+
+    // See PriceParser for the accepted formats; the scale follows the text when no currency is named
+    public static BigDecimal parsePrice(String text) {
+        PriceParser.ParsedPrice parsed = new PriceParser.ParsedPrice();
+        return PriceParser.parse(text, null, parsed) ? parsed.toBigDecimal() : null;
+    }
+
+    public static String contentHash(Product product) {
+        Map<String, Object> attributes = product.getAttributes() != null
+            ? new TreeMap<>(product.getAttributes()) : Map.of();
+        String content = String.join("\u0001",
+            Objects.toString(product.getName(), ""),
+            Objects.toString(product.getDescription(), ""),
+            product.getPrice() != null ? product.getPrice().stripTrailingZeros().toPlainString() : "",
+            Objects.toString(product.getCategory(), ""),
+            Objects.toString(product.getBrand(), ""),
+            Objects.toString(product.getTags(), ""),
+            attributes.toString(),
+            Objects.toString(product.getStockQuantity(), ""),
+            Objects.toString(product.getIsActive(), ""));
+        return String.format("%016x", UrlCanonicalizer.hash64(content));
+    }
+
+    private static String firstString(Map<String, Object> map, String... keys) {
+        for (String key : keys) {
+            Object value = map.get(key);
+            if (value != null && !value.toString().isEmpty()) {
+                return value.toString();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.service.catalog;
+
+import org.example.document.Product;
+import org.example.document.ProductCard;
+import org.example.document.ProductSummary;
+import org.example.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Routes a product filter to the matching {@link ProductRepository} finder, either as a keyset
+ * page or as a cursor-backed stream for exports. Each filter combination maps to exactly one
+ * finder; combinations no finder supports are rejected rather than partially applied.
+ */
+@Service
+@ConditionalOnProperty(name = "spring.data.mongodb.uri")
+public class ProductQueryService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    /** Unset fields are null; name is matched literally, not as a pattern. */
+    public record ProductFilter(String category, String brand, List<String> tags, String color, String name,
+                                String text, BigDecimal minPrice, BigDecimal maxPrice) {}
+
+    private record Finder<T>(BiFunction<ScrollPosition, Limit, Window<T>> page, Supplier<Stream<T>> stream) {}
+
+    // type is Product, ProductCard or ProductSummary; the read models fetch only their own fields
+    public <T> Window<T> page(ProductFilter filter, ScrollPosition position, int limit, Class<T> type) {
+        return finderFor(filter, type).page().apply(position, Limit.of(limit));
+    }
+
+    // Hands every matching product to the sink in _id order and returns how many there were
+    public <T> long export(ProductFilter filter, Class<T> type, Consumer<? super T> sink) {
+        long count = 0;
+        try (Stream<T> products = finderFor(filter, type).stream().get()) {
+            for (T product : (Iterable<T>) products::iterator) {
+                sink.accept(product);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Throws IllegalArgumentException for a combination no finder supports
+    public void validate(ProductFilter filter) {
+        finderFor(filter, Product.class);
+    }
+
+    public static Class<?> viewType(String view) {
+        return switch (view) {
+            case "summary" -> ProductSummary.class;
+            case "card" -> ProductCard.class;
+            case "full" -> Product.class;
+            default -> throw new IllegalArgumentException("view must be summary, card or full");
+        };
+    }
+
+    private <T> Finder<T> finderFor(ProductFilter filter, Class<T> type) {
+        List<String> given = new ArrayList<>();
+        if (filter.category() != null) {
+            given.add("category");
+        }
+        if (filter.brand() != null) {
+            given.add("brand");
+        }
+        if (filter.tags() != null && !filter.tags().isEmpty()) {
+            given.add("tags");
+        }
+        if (filter.color() != null) {
+            given.add("color");
+        }
+        if (filter.name() != null) {
+            given.add("name");
+        }
+        if (filter.text() != null) {
+            given.add("text");
+        }
+        if (filter.minPrice() != null) {
+            given.add("minPrice");
+        }
+        if (filter.maxPrice() != null) {
+            given.add("maxPrice");
+        }
+
+        return switch (String.join("+", given)) {
+            case "" -> new Finder<>(
+                (position, limit) -> productRepository.findByIsActiveTrueOrderByIdAsc(position, limit, type),
+                () -> productRepository.streamByIsActiveTrueOrderByIdAsc(type));
+            case "category" -> new Finder<>(
+                (position, limit) -> productRepository.findByCategoryOrderByIdAsc(filter.category(), position, limit, type),
+                () -> productRepository.streamByCategoryOrderByIdAsc(filter.category(), type));
+            case "brand" -> new Finder<>(
+                (position, limit) -> productRepository.findByBrandOrderByIdAsc(filter.brand(), position, limit, type),
+                () -> productRepository.streamByBrandOrderByIdAsc(filter.brand(), type));
+            case "tags" -> new Finder<>(
+                (position, limit) -> productRepository.findByTagsInAndIsActiveTrueOrderByIdAsc(filter.tags(), position, limit, type),
+                () -> productRepository.streamByTagsInAndIsActiveTrueOrderByIdAsc(filter.tags(), type));
+            case "color" -> new Finder<>(
+                (position, limit) -> productRepository.findByAttributeColor(filter.color(), position, limit, type),
+                () -> productRepository.streamByAttributeColor(filter.color(), type));
+            case "name" -> new Finder<>(
+                (position, limit) -> productRepository.findByNameContainingIgnoreCaseAndIsActiveTrueOrderByIdAsc(
+                    filter.name(), position, limit, type),
+                () -> productRepository.streamByNameContainingIgnoreCaseAndIsActiveTrueOrderByIdAsc(filter.name(), type));
+            case "text" -> new Finder<>(
+                (position, limit) -> productRepository.findAllByOrderByIdAsc(
+                    TextCriteria.forDefaultLanguage().matching(filter.text()), position, limit, type),
+                () -> productRepository.streamAllByOrderByIdAsc(TextCriteria.forDefaultLanguage().matching(filter.text()), type));
+            case "minPrice+maxPrice" -> new Finder<>(
+                (position, limit) -> productRepository.findByPriceBetweenOrderByIdAsc(
+                    filter.minPrice(), filter.maxPrice(), position, limit, type),
+                () -> productRepository.streamByPriceBetweenOrderByIdAsc(filter.minPrice(), filter.maxPrice(), type));
+            case "maxPrice" -> new Finder<>(
+                (position, limit) -> productRepository.findByPriceLessThanOrderByIdAsc(filter.maxPrice(), position, limit, type),
+                () -> productRepository.streamByPriceLessThanOrderByIdAsc(filter.maxPrice(), type));
+            case "category+minPrice+maxPrice" -> new Finder<>(
+                (position, limit) -> productRepository.findByCategoryAndPriceBetweenAndIsActiveTrueOrderByIdAsc(
+                    filter.category(), Range.closed(filter.minPrice(), filter.maxPrice()), position, limit, type),
+                () -> productRepository.streamByCategoryAndPriceBetweenAndIsActiveTrueOrderByIdAsc(
+                    filter.category(), Range.closed(filter.minPrice(), filter.maxPrice()), type));
+            case "category+name+minPrice+maxPrice" -> new Finder<>(
+                (position, limit) -> productRepository.searchProducts(
+                    Pattern.quote(filter.name()), filter.category(), filter.minPrice(), filter.maxPrice(), position, limit, type),
+                () -> productRepository.streamProducts(
+                    Pattern.quote(filter.name()), filter.category(), filter.minPrice(), filter.maxPrice(), type));
+            default -> throw new IllegalArgumentException("Unsupported filter combination: " + String.join(", ", given)
+                + ". Use one of category, brand, tags, color, name or text; minPrice and maxPrice (or maxPrice alone);"
+                + " category with minPrice and maxPrice; or name, category, minPrice and maxPrice together");
+        };
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.service.catalog;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import org.bson.RawBsonDocument;
+import org.example.document.Product;
+import org.example.document.ProductCard;
+import org.example.document.ProductSummary;
+import org.example.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compares full Product reads with the ProductCard and ProductSummary projections over the
+ * active products in the live collection: documents per second through the repository (Mongo I/O
+ * plus Spring Data mapping) and the BSON bytes per document each view pulls from the server.
+ *
+ * <p>Not part of the served API: it runs only under the benchmark profile, logs its results and
+ * exits, e.g. {@code --spring.profiles.active=benchmark --spring.main.web-application-type=none}.
+ */
+@Component
+@Profile("benchmark")
+@ConditionalOnProperty(name = "spring.data.mongodb.uri")
+public class ProductReadBenchmark implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReadBenchmark.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Value("${benchmark.product-reads.documents:10000}")
+    private int documents;
+
+    @Value("${benchmark.product-reads.iterations:3}")
+    private int iterations;
+
+    public record Result(String view, long documents, double docsPerSecond, double bytesPerDocument) {}
+
+    @Override
+    public void run(String... args) {
+        for (Result result : benchmark(documents, iterations)) {
+            log.info("{}", result);
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+
+    public List<Result> benchmark(int maxDocuments, int iterations) {
+        List<Result> results = new ArrayList<>();
+        results.add(measure("full", Product.class, maxDocuments, Math.max(1, iterations)));
+        results.add(measure("card", ProductCard.class, maxDocuments, Math.max(1, iterations)));
+        results.add(measure("summary", ProductSummary.class, maxDocuments, Math.max(1, iterations)));
+        return results;
+    }
+
+    private Result measure(String view, Class<?> type, int maxDocuments, int iterations) {
+        // One untimed round to warm up the JIT and the server's cache
+        long documents = read(type, maxDocuments);
+        long nanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            read(type, maxDocuments);
+            nanos += System.nanoTime() - start;
+        }
+        double seconds = nanos / 1e9;
+        long bytes = rawBytes(type, maxDocuments);
+        return new Result(view, documents,
+            seconds > 0 ? documents * iterations / seconds : 0,
+            documents > 0 ? (double) bytes / documents : 0);
+    }
+
+    private long read(Class<?> type, int maxDocuments) {
+        try (Stream<?> products = productRepository.streamByIsActiveTrueOrderByIdAsc(type)) {
+            return products.limit(maxDocuments).count();
+        }
+    }
+
+    // Same query and projection, left as raw BSON so only the bytes are counted
+    private long rawBytes(Class<?> type, int maxDocuments) {
+        FindIterable<RawBsonDocument> find = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class))
+            .withDocumentClass(RawBsonDocument.class)
+            .find(Filters.eq("isActive", true))
+            .sort(Sorts.ascending("_id"))
+            .limit(maxDocuments)
+            .batchSize(1000);
+        if (type.isRecord()) {
+            List<String> fields = new ArrayList<>();
+            for (RecordComponent component : type.getRecordComponents()) {
+                fields.add("id".equals(component.getName()) ? "_id" : component.getName());
+            }
+            find.projection(Projections.include(fields));
+        }
+        long bytes = 0;
+        try (MongoCursor<RawBsonDocument> cursor = find.cursor()) {
+            while (cursor.hasNext()) {
+                bytes += cursor.next().getByteBuffer().remaining();
+            }
+        }
+        return bytes;
+    }
+}
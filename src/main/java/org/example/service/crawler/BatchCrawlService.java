@@ -0,0 +1,140 @@
+package org.example.service.crawler;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.service.WebCrawlerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs extract operations for many URLs concurrently and reports each URL as soon as it
+ * finishes, so one slow site never holds back the rest. Every URL gets its own deadline;
+ * timeouts and failures are reported inline like any other result.
+ */
+@Service
+@ConditionalOnProperty(name = "web.crawler.enabled", havingValue = "true", matchIfMissing = true)
+public class BatchCrawlService {
+
+    @Autowired
+    private WebCrawlerService webCrawlerService;
+
+    @Value("${web.crawler.batch.max-concurrency:16}")
+    private int maxConcurrency;
+
+    @Value("${web.crawler.batch.timeout-ms:15000}")
+    private long defaultTimeoutMs;
+
+    // max-concurrency fetch threads shared by all batches; a batch's own limit is a semaphore on top
+    private ExecutorService executor;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "batch-crawl-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), runnable -> {
+            Thread thread = new Thread(runnable, "batch-crawl");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void crawl(List<String> urls, List<String> operations, boolean streaming,
+                      Long timeoutMs, Integer concurrency, Consumer<Map<String, Object>> sink)
+            throws InterruptedException {
+        long deadline = timeoutMs != null && timeoutMs > 0 ? timeoutMs : defaultTimeoutMs;
+        int limit = concurrency != null && concurrency > 0 ? Math.min(concurrency, maxConcurrency) : maxConcurrency;
+        Semaphore permits = new Semaphore(limit);
+        CountDownLatch remaining = new CountDownLatch(urls.size());
+
+        for (String url : urls) {
+            permits.acquire();
+            long startedAt = System.nanoTime();
+            AtomicBoolean reported = new AtomicBoolean();
+            Consumer<Map<String, Object>> report = result -> {
+                // Whichever of completion and timeout comes first wins, the other is dropped
+                if (reported.compareAndSet(false, true)) {
+                    result.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                    try {
+                        sink.accept(result);
+                    } finally {
+                        remaining.countDown();
+                    }
+                }
+            };
+
+            // A started fetch holds the permit until it really ends, not just until it is reported as
+            // timed out: blocking HTTP reads ignore interrupts, and only the client's timeouts stop
+            // them. A fetch still queued at its deadline never starts and the timer releases it.
+            AtomicBoolean claimed = new AtomicBoolean();
+            Future<?> task = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    report.accept(crawlOne(url, operations, streaming));
+                } finally {
+                    permits.release();
+                }
+            });
+            timer.schedule(() -> {
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("url", url);
+                result.put("success", false);
+                result.put("error", "Timed out after " + deadline + " ms");
+                report.accept(result);
+                if (claimed.compareAndSet(false, true)) {
+                    permits.release();
+                } else {
+                    task.cancel(true);
+                }
+            }, deadline, TimeUnit.MILLISECONDS);
+        }
+
+        remaining.await();
+    }
+
+    private Map<String, Object> crawlOne(String url, List<String> operations, boolean streaming) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("url", url);
+        try {
+            Map<String, Object> data = new LinkedHashMap<>();
+            for (String operation : operations) {
+                data.put(operation, webCrawlerService.extract(url, operation, streaming));
+            }
+            result.put("success", true);
+            result.put("data", data);
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.service.crawler;
+
+import jakarta.annotation.PostConstruct;
+import org.example.service.cache.DiskLruStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP validator cache for crawled pages. Bodies are stored gzip-compressed together with their
+ * ETag / Last-Modified validators, so a recrawl can send a conditional request and serve a 304
+ * straight from disk.
+ */
+@Component
+@ConditionalOnProperty(name = "web.crawler.cache.enabled", havingValue = "true")
+public class CrawlerPageCache {
+
+    @Value("${web.crawler.cache.dir:${java.io.tmpdir}/crawler-cache}")
+    private String cacheDir;
+
+    @Value("${web.crawler.cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    private DiskLruStore store;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        store = new DiskLruStore(Path.of(cacheDir), maxBytes);
+    }
+
+    public record CachedPage(String etag, String lastModified, String charset, long size, ByteBuffer compressedBody) {
+
+        public String body() {
+            try (InputStream in = new GZIPInputStream(new ByteBufferInputStream(compressedBody.duplicate()))) {
+                return new String(in.readAllBytes(), Charset.forName(charset));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read cached page", e);
+            }
+        }
+    }
+
+    public CachedPage lookup(String url) {
+        requests.incrementAndGet();
+        DiskLruStore.Entry entry = store.get(url);
+        if (entry == null) {
+            return null;
+        }
+        Map<String, String> metadata = entry.metadata();
+        return new CachedPage(
+            metadata.get("etag"),
+            metadata.get("last-modified"),
+            metadata.getOrDefault("charset", StandardCharsets.UTF_8.name()),
+            Long.parseLong(metadata.getOrDefault("size", "0")),
+            entry.payload());
+    }
+
+    // Called when the origin answered 304 and the cached body is served instead
+    public void recordNotModified(String url, CachedPage page) {
+        hits.incrementAndGet();
+        bytesSaved.addAndGet(page.size());
+        store.touch(url);
+    }
+
+    public void store(String url, String etag, String lastModified, Charset charset, byte[] body) {
+        if ((etag == null || etag.isEmpty()) && (lastModified == null || lastModified.isEmpty())) {
+            // Without validators the page can never be revalidated, don't waste space on it
+            store.remove(url);
+            return;
+        }
+
+        Map<String, String> metadata = new HashMap<>();
+        if (etag != null) {
+            metadata.put("etag", etag);
+        }
+        if (lastModified != null) {
+            metadata.put("last-modified", lastModified);
+        }
+        metadata.put("charset", charset.name());
+        metadata.put("size", String.valueOf(body.length));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress page", e);
+        }
+        store.put(url, metadata, compressed.toByteArray());
+    }
+
+    public Map<String, Object> getStats() {
+        long total = requests.get();
+        long hitCount = hits.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requests", total);
+        stats.put("hits", hitCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("bytesSaved", bytesSaved.get());
+        stats.put("entries", store.size());
+        stats.put("storedBytes", store.totalBytes());
+        stats.put("maxBytes", store.maxBytes());
+        return stats;
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.service.crawler;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One declarative extraction rule: the first selector (in list order) that matches anywhere in
+ * the scope wins, and the first matching element in document order provides the value. Rules
+ * marked {@code multiple} collect the value of every element matching any selector.
+ */
+public record ExtractionRule(
+    String field,
+    List<String> selectors,
+    String attribute,
+    List<String> postProcess,
+    boolean multiple
+) {
+
+    public ExtractionRule {
+        if (field == null || field.isEmpty()) {
+            throw new IllegalArgumentException("Extraction rule needs a field name");
+        }
+        if (selectors == null || selectors.isEmpty()) {
+            throw new IllegalArgumentException("Extraction rule '" + field + "' needs at least one selector");
+        }
+        selectors = List.copyOf(selectors);
+        attribute = attribute == null || attribute.isEmpty() ? "text" : attribute;
+        postProcess = postProcess == null ? List.of() : List.copyOf(postProcess);
+    }
+
+    public enum PostProcessor {
+        TRIM,
+        COLLAPSE_WHITESPACE,
+        LOWERCASE,
+        UPPERCASE,
+        // Keeps digits, separators and sign, e.g. "US$ 1,299.00" -> "1,299.00"
+        NUMBER;
+
+        public static PostProcessor of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+
+        public String apply(String value) {
+            switch (this) {
+                case TRIM:
+                    return value.trim();
+                case COLLAPSE_WHITESPACE:
+                    return value.replaceAll("\\s+", " ").trim();
+                case LOWERCASE:
+                    return value.toLowerCase(Locale.ROOT);
+                case UPPERCASE:
+                    return value.toUpperCase(Locale.ROOT);
+                case NUMBER:
+                    StringBuilder digits = new StringBuilder(value.length());
+                    for (int i = 0; i < value.length(); i++) {
+                        char c = value.charAt(i);
+                        if (Character.isDigit(c) || c == '.' || c == ',' || (c == '-' && digits.length() == 0)) {
+                            digits.append(c);
+                        }
+                    }
+                    return digits.toString();
+                default:
+                    return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package org.example.service.crawler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.QueryParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies per-site declarative extraction rules. Selectors are parsed once into jsoup evaluators
+ * and all fields of a rule set are filled during a single traversal of the scope, instead of one
+ * {@code selectFirst} walk per selector.
+ */
+@Component
+public class ExtractionRuleEngine {
+
+    private static final String BUILTIN_RULES = "classpath:crawler/extraction-rules.json";
+    private static final int MAX_CACHED_CONTAINERS = 256;
+    private static final int MAX_CACHED_HOSTS = 10_000;
+
+    // Structural evaluators (:has, descendant, ...) memoize matches per thread keyed by element, and
+    // only Collector resets that memo; running them against this empty scope drops the last document
+    private static final Element RESET_SCOPE = new Element("reset");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${web.crawler.rules.location:}")
+    private String rulesLocation;
+
+    private final Map<String, SiteExtractionRules> sites = new ConcurrentHashMap<>();
+    private final Map<String, CompiledSite> compiledByHost = new ConcurrentHashMap<>();
+    private final Map<String, Evaluator> containerEvaluators = new ConcurrentHashMap<>();
+
+    public record RuleFile(List<SiteExtractionRules> sites) {}
+
+    @PostConstruct
+    public void init() {
+        loadRules(BUILTIN_RULES);
+        if (rulesLocation != null && !rulesLocation.isEmpty()) {
+            loadRules(rulesLocation);
+        }
+    }
+
+    public void register(SiteExtractionRules rules) {
+        // Validate eagerly so a bad selector is rejected instead of failing at crawl time
+        compile(rules.product());
+        compile(rules.searchResult());
+        sites.put(rules.site().toLowerCase(Locale.ROOT), rules);
+        compiledByHost.clear();
+    }
+
+    public Collection<SiteExtractionRules> getSites() {
+        return sites.values();
+    }
+
+    public Map<String, Object> extractProduct(Document doc) {
+        CompiledSite site = siteFor(doc.location());
+        return apply(doc, site.product);
+    }
+
+    public List<Map<String, Object>> extractSearchResults(Document doc, String resultSelector) {
+        CompiledSite site = siteFor(doc.location());
+        Evaluator container = containerEvaluators.get(resultSelector);
+        if (container == null) {
+            container = QueryParser.parse(resultSelector);
+            if (containerEvaluators.size() < MAX_CACHED_CONTAINERS) {
+                containerEvaluators.put(resultSelector, container);
+            }
+        }
+
+        Elements results = Collector.collect(container, doc);
+        List<Map<String, Object>> searchResults = new ArrayList<>(results.size());
+        for (Element result : results) {
+            Map<String, Object> resultData = apply(result, site.searchResult);
+            if (!resultData.isEmpty()) {
+                searchResults.add(resultData);
+            }
+        }
+        return searchResults;
+    }
+
+    private Map<String, Object> apply(Element root, CompiledRule[] rules) {
+        try {
+            return match(root, rules);
+        } finally {
+            for (CompiledRule rule : rules) {
+                for (Evaluator evaluator : rule.evaluators) {
+                    Collector.findFirst(evaluator, RESET_SCOPE);
+                }
+            }
+        }
+    }
+
+    private Map<String, Object> match(Element root, CompiledRule[] rules) {
+        int fieldCount = rules.length;
+        int[] bestRank = new int[fieldCount];
+        Element[] bestMatch = new Element[fieldCount];
+        List<List<String>> collected = new ArrayList<>(fieldCount);
+        boolean hasMultiple = false;
+        for (int f = 0; f < fieldCount; f++) {
+            bestRank[f] = Integer.MAX_VALUE;
+            collected.add(rules[f].multiple ? new ArrayList<>() : null);
+            hasMultiple |= rules[f].multiple;
+        }
+        boolean canStopEarly = !hasMultiple;
+
+        NodeTraversor.filter(new NodeFilter() {
+            @Override
+            public FilterResult head(Node node, int depth) {
+                if (!(node instanceof Element element)) {
+                    return FilterResult.CONTINUE;
+                }
+
+                boolean settled = true;
+                for (int f = 0; f < fieldCount; f++) {
+                    CompiledRule rule = rules[f];
+                    if (rule.multiple) {
+                        for (Evaluator evaluator : rule.evaluators) {
+                            if (evaluator.matches(root, element)) {
+                                String value = rule.valueOf(element);
+                                if (!value.isEmpty()) {
+                                    collected.get(f).add(value);
+                                }
+                                break;
+                            }
+                        }
+                        continue;
+                    }
+
+                    // Only a higher-priority selector can displace the current match
+                    int limit = Math.min(bestRank[f], rule.evaluators.length);
+                    for (int i = 0; i < limit; i++) {
+                        if (rule.evaluators[i].matches(root, element)) {
+                            bestRank[f] = i;
+                            bestMatch[f] = element;
+                            break;
+                        }
+                    }
+                    settled &= bestRank[f] == 0;
+                }
+                return canStopEarly && settled ? FilterResult.STOP : FilterResult.CONTINUE;
+            }
+
+            @Override
+            public FilterResult tail(Node node, int depth) {
+                return FilterResult.CONTINUE;
+            }
+        }, root);
+
+        Map<String, Object> data = new HashMap<>();
+        for (int f = 0; f < fieldCount; f++) {
+            CompiledRule rule = rules[f];
+            if (rule.multiple) {
+                data.put(rule.field, collected.get(f));
+            } else if (bestMatch[f] != null) {
+                data.put(rule.field, rule.valueOf(bestMatch[f]));
+            }
+        }
+        return data;
+    }
+
+    private CompiledSite siteFor(String url) {
+        String host = hostOf(url);
+        if (compiledByHost.size() > MAX_CACHED_HOSTS) {
+            compiledByHost.clear();
+        }
+        return compiledByHost.computeIfAbsent(host, this::compileFor);
+    }
+
+    private CompiledSite compileFor(String host) {
+        SiteExtractionRules defaults = sites.get(SiteExtractionRules.DEFAULT_SITE);
+        SiteExtractionRules specific = null;
+
+        // Most specific site wins: shop.example.com before example.com
+        String candidate = host;
+        while (!candidate.isEmpty()) {
+            specific = sites.get(candidate);
+            if (specific != null) {
+                break;
+            }
+            int dot = candidate.indexOf('.');
+            candidate = dot < 0 ? "" : candidate.substring(dot + 1);
+        }
+
+        return new CompiledSite(
+            compile(merge(defaults != null ? defaults.product() : List.of(), specific != null ? specific.product() : List.of())),
+            compile(merge(defaults != null ? defaults.searchResult() : List.of(), specific != null ? specific.searchResult() : List.of())));
+    }
+
+    private static List<ExtractionRule> merge(List<ExtractionRule> defaults, List<ExtractionRule> overrides) {
+        Map<String, ExtractionRule> merged = new LinkedHashMap<>();
+        for (ExtractionRule rule : defaults) {
+            merged.put(rule.field(), rule);
+        }
+        for (ExtractionRule rule : overrides) {
+            merged.put(rule.field(), rule);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private static CompiledRule[] compile(List<ExtractionRule> rules) {
+        CompiledRule[] compiled = new CompiledRule[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            ExtractionRule rule = rules.get(i);
+            Evaluator[] evaluators = rule.selectors().stream()
+                .map(QueryParser::parse)
+                .toArray(Evaluator[]::new);
+            ExtractionRule.PostProcessor[] postProcessors = rule.postProcess().stream()
+                .map(ExtractionRule.PostProcessor::of)
+                .toArray(ExtractionRule.PostProcessor[]::new);
+            compiled[i] = new CompiledRule(rule.field(), evaluators, rule.attribute(), postProcessors, rule.multiple());
+        }
+        return compiled;
+    }
+
+    private void loadRules(String location) {
+        Resource resource = resourceLoader.getResource(location);
+        try (InputStream in = resource.getInputStream()) {
+            RuleFile ruleFile = objectMapper.readValue(in, RuleFile.class);
+            if (ruleFile.sites() != null) {
+                ruleFile.sites().forEach(this::register);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load extraction rules from " + location, e);
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : "";
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    private record CompiledSite(CompiledRule[] product, CompiledRule[] searchResult) {}
+
+    private static final class CompiledRule {
+
+        final String field;
+        final Evaluator[] evaluators;
+        final String attribute;
+        final ExtractionRule.PostProcessor[] postProcessors;
+        final boolean multiple;
+
+        CompiledRule(String field, Evaluator[] evaluators, String attribute,
+                     ExtractionRule.PostProcessor[] postProcessors, boolean multiple) {
+            this.field = field;
+            this.evaluators = evaluators;
+            this.attribute = attribute;
+            this.postProcessors = postProcessors;
+            this.multiple = multiple;
+        }
+
+        String valueOf(Element element) {
+            String value;
+            switch (attribute) {
+                case "text":
+                    value = element.text();
+                    break;
+                case "ownText":
+                    value = element.ownText();
+                    break;
+                case "html":
+                    value = element.html();
+                    break;
+                default:
+                    value = element.attr(attribute);
+            }
+            for (ExtractionRule.PostProcessor postProcessor : postProcessors) {
+                value = postProcessor.apply(value);
+            }
+            return value;
+        }
+    }
+}
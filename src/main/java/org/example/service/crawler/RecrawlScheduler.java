@@ -0,0 +1,467 @@
+package org.example.service.crawler;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.service.WebCrawlerService;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Incremental recrawl scheduler. Tracked pages sit in a priority queue keyed by their next due
+ * time; each page's revisit interval halves when its content changed and grows by half when it
+ * did not, so fetch budget follows actual change rates. Sitemap lastmod / changefreq seed the
+ * schedule, robots.txt is honoured per host including crawl-delay, and the schedule is
+ * snapshotted to disk so it survives restarts.
+ *
+ * <p>Due pages whose host is busy or inside its crawl delay are parked in a per-host FIFO, and
+ * the queue holds a single wake-up entry for that host. A large backlog on one host therefore
+ * costs nothing per tick, and its pages go out in the order they fell due.
+ */
+@Service
+@ConditionalOnProperty(name = "web.crawler.recrawl.enabled", havingValue = "true")
+public class RecrawlScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(RecrawlScheduler.class);
+    private static final int SNAPSHOT_MAGIC = 0x52435331; // "RCS1"
+    private static final int MAX_NESTED_SITEMAPS = 1000;
+
+    @Autowired
+    private WebCrawlerService webCrawlerService;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Value("${web.crawler.user-agent:cloud-strategy-crawler}")
+    private String userAgent;
+
+    @Value("${web.crawler.recrawl.concurrency:8}")
+    private int concurrency;
+
+    @Value("${web.crawler.recrawl.default-interval-seconds:86400}")
+    private int defaultIntervalSeconds;
+
+    @Value("${web.crawler.recrawl.min-interval-seconds:900}")
+    private int minIntervalSeconds;
+
+    @Value("${web.crawler.recrawl.max-interval-seconds:2592000}")
+    private int maxIntervalSeconds;
+
+    @Value("${web.crawler.recrawl.host-delay-ms:1000}")
+    private long defaultHostDelayMs;
+
+    @Value("${web.crawler.recrawl.robots-ttl-ms:86400000}")
+    private long robotsTtlMs;
+
+    @Value("${web.crawler.recrawl.state-file:}")
+    private String stateFile;
+
+    private final Map<String, TrackedUrl> tracked = new ConcurrentHashMap<>();
+    private final PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+    // Due pages waiting for their host, oldest first; guarded by queue like parkedCount
+    private final Map<String, Deque<QueueEntry>> parked = new HashMap<>();
+    private int parkedCount;
+    private final Map<String, Long> hostNextAllowed = new ConcurrentHashMap<>();
+    private final Set<String> busyHosts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong changed = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong disallowed = new AtomicLong();
+    private final AtomicLong nearDuplicates = new AtomicLong();
+
+    private RobotsTxtCache robots;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        robots = new RobotsTxtCache(restTemplate, userAgent, robotsTtlMs);
+        executor = Executors.newFixedThreadPool(Math.max(1, concurrency), runnable -> {
+            Thread thread = new Thread(runnable, "recrawl");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loadSnapshot();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        snapshot();
+    }
+
+    public boolean track(String url) {
+        return track(url, null, null);
+    }
+
+    // New URLs are due immediately; a sitemap lastmod newer than our last fetch pulls a known URL forward
+    public boolean track(String url, Instant lastModified, String changeFrequency) {
+        long now = System.currentTimeMillis();
+        TrackedUrl existing = tracked.get(url);
+        if (existing != null) {
+            if (lastModified != null && lastModified.toEpochMilli() > existing.lastCrawledMs
+                    && existing.nextDueMs > now) {
+                schedule(existing, now);
+            }
+            return false;
+        }
+
+        long hint = SitemapParser.intervalSeconds(changeFrequency);
+        int interval = (int) clampInterval(hint > 0 ? hint : defaultIntervalSeconds);
+        TrackedUrl page = new TrackedUrl(url, interval);
+        if (tracked.putIfAbsent(url, page) != null) {
+            return false;
+        }
+        schedule(page, now);
+        return true;
+    }
+
+    public void untrack(String url) {
+        TrackedUrl page = tracked.remove(url);
+        if (page != null) {
+            page.removed = true;
+        }
+    }
+
+    public int importSitemap(String sitemapUrl) {
+        AtomicInteger added = new AtomicInteger();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(sitemapUrl);
+        int visited = 0;
+
+        while (!pending.isEmpty() && visited++ < MAX_NESTED_SITEMAPS) {
+            String next = pending.poll();
+            try {
+                restTemplate.execute(next, HttpMethod.GET, null, response -> {
+                    try (InputStream body = response.getBody()) {
+                        SitemapParser.parse(body,
+                            page -> {
+                                if (track(page.loc(), page.lastModified(), page.changeFrequency())) {
+                                    added.incrementAndGet();
+                                }
+                            },
+                            nested -> pending.add(nested.loc()));
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                log.warn("Failed to import sitemap {}", next, e);
+            }
+        }
+        return added.get();
+    }
+
+    // Sitemaps listed in the site's robots.txt, falling back to /sitemap.xml
+    public int importSitemapsForSite(String siteUrl) {
+        URI uri = URI.create(siteUrl);
+        String origin = uri.getScheme() + "://" + uri.getRawAuthority();
+        int added = 0;
+        var sitemaps = robots.rulesFor(origin + "/").getSitemaps();
+        if (sitemaps.isEmpty()) {
+            return importSitemap(origin + "/sitemap.xml");
+        }
+        for (String sitemap : sitemaps) {
+            added += importSitemap(sitemap);
+        }
+        return added;
+    }
+
+    @Scheduled(fixedDelayString = "${web.crawler.recrawl.tick-ms:1000}")
+    public void dispatchDue() {
+        long now = System.currentTimeMillis();
+        int maxInFlight = Math.max(1, concurrency) * 2;
+
+        synchronized (queue) {
+            while (inFlight.get() < maxInFlight) {
+                QueueEntry head = queue.peek();
+                if (head == null || head.dueMs > now) {
+                    break;
+                }
+                queue.poll();
+                if (head.page == null) {
+                    wake(head.host, now);
+                    continue;
+                }
+                if (isStale(head)) {
+                    continue; // superseded by a later schedule() call
+                }
+
+                String host = hostOf(head.page.url);
+                Deque<QueueEntry> waiting = parked.get(host);
+                if (waiting != null) {
+                    // Behind the pages already waiting for this host
+                    waiting.add(head);
+                    parkedCount++;
+                    continue;
+                }
+                long retryAt = blockedUntil(host, now);
+                if (retryAt > 0) {
+                    waiting = new ArrayDeque<>();
+                    waiting.add(head);
+                    parkedCount++;
+                    parked.put(host, waiting);
+                    queue.add(new QueueEntry(retryAt, null, host));
+                    continue;
+                }
+                start(head.page, host);
+            }
+        }
+    }
+
+    // Called with the queue lock held when a host's wake-up entry comes due
+    private void wake(String host, long now) {
+        Deque<QueueEntry> waiting = parked.get(host);
+        if (waiting == null) {
+            return;
+        }
+        long retryAt = blockedUntil(host, now);
+        if (retryAt > 0) {
+            queue.add(new QueueEntry(retryAt, null, host));
+            return;
+        }
+        while (!waiting.isEmpty()) {
+            QueueEntry next = waiting.poll();
+            parkedCount--;
+            if (!isStale(next)) {
+                start(next.page, host);
+                break;
+            }
+        }
+        if (waiting.isEmpty()) {
+            parked.remove(host);
+        } else {
+            queue.add(new QueueEntry(now + defaultHostDelayMs, null, host));
+        }
+    }
+
+    // When the host can next be fetched, or 0 if it can be fetched now
+    private long blockedUntil(String host, long now) {
+        long allowedAt = hostNextAllowed.getOrDefault(host, 0L);
+        if (allowedAt > now || busyHosts.contains(host)) {
+            return Math.max(allowedAt, now + defaultHostDelayMs);
+        }
+        return 0;
+    }
+
+    private void start(TrackedUrl page, String host) {
+        busyHosts.add(host);
+        inFlight.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                recrawl(page, host);
+            } finally {
+                busyHosts.remove(host);
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    private static boolean isStale(QueueEntry entry) {
+        return entry.page.removed || entry.page.nextDueMs != entry.dueMs;
+    }
+
+    @Scheduled(fixedDelayString = "${web.crawler.recrawl.snapshot-interval-ms:300000}",
+               initialDelayString = "${web.crawler.recrawl.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        if (stateFile == null || stateFile.isEmpty()) {
+            return;
+        }
+        Path target = Path.of(stateFile);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp)), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                for (TrackedUrl page : tracked.values()) {
+                    byte[] url = page.url.getBytes(StandardCharsets.UTF_8);
+                    out.writeBoolean(true);
+                    out.writeInt(url.length);
+                    out.write(url);
+                    out.writeLong(page.nextDueMs);
+                    out.writeInt(page.intervalSeconds);
+                    out.writeLong(page.contentHash);
+                    out.writeLong(page.lastCrawledMs);
+                }
+                out.writeBoolean(false);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to snapshot recrawl schedule to {}", target, e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("tracked", tracked.size());
+        synchronized (queue) {
+            stats.put("queued", queue.size());
+            stats.put("parked", parkedCount);
+            stats.put("parkedHosts", parked.size());
+        }
+        stats.put("inFlight", inFlight.get());
+        stats.put("fetched", fetched.get());
+        stats.put("changed", changed.get());
+        stats.put("unchanged", unchanged.get());
+        stats.put("errors", errors.get());
+        stats.put("disallowed", disallowed.get());
+        stats.put("nearDuplicates", nearDuplicates.get());
+        stats.put("robotsHosts", robots.size());
+        return stats;
+    }
+
+    private void recrawl(TrackedUrl page, String host) {
+        long now = System.currentTimeMillis();
+        RobotsRules rules = robots.rulesFor(page.url);
+        long hostDelay = Math.max(defaultHostDelayMs, rules.getCrawlDelayMs());
+        hostNextAllowed.put(host, now + hostDelay);
+
+        if (rules.isUnreachable()) {
+            // Not a verdict on the page: keep it and ask again once the robots.txt retry is due
+            schedule(page, now + clampInterval(page.intervalSeconds) * 1000L);
+            return;
+        }
+        if (!robots.isAllowed(page.url)) {
+            disallowed.incrementAndGet();
+            untrack(page.url);
+            return;
+        }
+
+        try {
+            Document doc = webCrawlerService.crawlPage(page.url);
+            String text = doc.text();
+            long hash = UrlCanonicalizer.hash64(text);
+            fetched.incrementAndGet();
+
+            if (page.lastCrawledMs == 0) {
+                // First visit: drop pages that duplicate one we already track under another URL
+                if (!webCrawlerService.indexIfDistinct(page.url, text)) {
+                    nearDuplicates.incrementAndGet();
+                    untrack(page.url);
+                    return;
+                }
+            } else if (hash != page.contentHash) {
+                changed.incrementAndGet();
+                page.intervalSeconds = (int) clampInterval(page.intervalSeconds / 2);
+            } else {
+                unchanged.incrementAndGet();
+                page.intervalSeconds = (int) clampInterval(page.intervalSeconds + page.intervalSeconds / 2);
+            }
+
+            page.contentHash = hash;
+            page.lastCrawledMs = now;
+            schedule(page, now + page.intervalSeconds * 1000L);
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            // Back off on failures without losing the page
+            schedule(page, now + clampInterval(page.intervalSeconds) * 1000L);
+        } finally {
+            hostNextAllowed.put(host, System.currentTimeMillis() + hostDelay);
+        }
+    }
+
+    private void schedule(TrackedUrl page, long dueMs) {
+        synchronized (queue) {
+            page.nextDueMs = dueMs;
+            queue.add(new QueueEntry(dueMs, page, null));
+        }
+    }
+
+    private long clampInterval(long seconds) {
+        return Math.max(minIntervalSeconds, Math.min(maxIntervalSeconds, seconds));
+    }
+
+    private void loadSnapshot() {
+        if (stateFile == null || stateFile.isEmpty() || !Files.exists(Path.of(stateFile))) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(Path.of(stateFile))), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring unrecognized recrawl snapshot {}", stateFile);
+                return;
+            }
+            while (in.readBoolean()) {
+                byte[] url = new byte[in.readInt()];
+                in.readFully(url);
+                long nextDue = in.readLong();
+                TrackedUrl page = new TrackedUrl(new String(url, StandardCharsets.UTF_8), in.readInt());
+                page.contentHash = in.readLong();
+                page.lastCrawledMs = in.readLong();
+                tracked.put(page.url, page);
+                schedule(page, nextDue);
+            }
+            log.info("Restored {} tracked URLs from {}", tracked.size(), stateFile);
+        } catch (IOException e) {
+            log.warn("Failed to restore recrawl snapshot {}", stateFile, e);
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : "";
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    private static final class TrackedUrl {
+        final String url;
+        volatile long nextDueMs;
+        volatile int intervalSeconds;
+        volatile long contentHash;
+        volatile long lastCrawledMs;
+        volatile boolean removed;
+
+        TrackedUrl(String url, int intervalSeconds) {
+            this.url = url;
+            this.intervalSeconds = intervalSeconds;
+        }
+    }
+
+    // page is null for a host's wake-up entry
+    private record QueueEntry(long dueMs, TrackedUrl page, String host) implements Comparable<QueueEntry> {
+        @Override
+        public int compareTo(QueueEntry other) {
+            return Long.compare(dueMs, other.dueMs);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.service.crawler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The robots.txt group that applies to this crawler: allow/disallow path patterns (with the
+ * common {@code *} and {@code $} extensions), crawl-delay and any sitemaps the file lists.
+ */
+public class RobotsRules {
+
+    public static final RobotsRules ALLOW_ALL = new RobotsRules(List.of(), List.of(), 0, List.of());
+
+    // robots.txt could not be fetched (5xx, network failure); RFC 9309 treats the site as fully disallowed
+    public static final RobotsRules UNREACHABLE = new RobotsRules(List.of(), List.of("/"), 0, List.of());
+
+    private final List<String> allow;
+    private final List<String> disallow;
+    private final long crawlDelayMs;
+    private final List<String> sitemaps;
+
+    private RobotsRules(List<String> allow, List<String> disallow, long crawlDelayMs, List<String> sitemaps) {
+        this.allow = allow;
+        this.disallow = disallow;
+        this.crawlDelayMs = crawlDelayMs;
+        this.sitemaps = sitemaps;
+    }
+
+    public static RobotsRules parse(String robotsTxt, String userAgent) {
+        String agent = productToken(userAgent);
+        List<String> sitemaps = new ArrayList<>();
+        Group wildcard = new Group();
+        Group specific = new Group();
+        List<Group> current = new ArrayList<>();
+        boolean lastWasAgent = false;
+
+        for (String rawLine : robotsTxt.split("\r?\n|\r")) {
+            int comment = rawLine.indexOf('#');
+            String line = (comment >= 0 ? rawLine.substring(0, comment) : rawLine).trim();
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String field = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+
+            switch (field) {
+                case "user-agent":
+                    // Consecutive user-agent lines share one group
+                    if (!lastWasAgent) {
+                        current.clear();
+                    }
+                    String token = value.toLowerCase(Locale.ROOT);
+                    if (token.equals("*")) {
+                        current.add(wildcard);
+                    } else if (!token.isEmpty() && token.equals(agent)) {
+                        current.add(specific);
+                        specific.matched = true;
+                    }
+                    lastWasAgent = true;
+                    break;
+                case "allow":
+                    current.forEach(group -> group.allow.add(value));
+                    lastWasAgent = false;
+                    break;
+                case "disallow":
+                    if (!value.isEmpty()) {
+                        current.forEach(group -> group.disallow.add(value));
+                    }
+                    lastWasAgent = false;
+                    break;
+                case "crawl-delay":
+                    try {
+                        long delayMs = (long) (Double.parseDouble(value) * 1000);
+                        current.forEach(group -> group.crawlDelayMs = delayMs);
+                    } catch (NumberFormatException ignored) {
+                        // malformed delay, keep the default
+                    }
+                    lastWasAgent = false;
+                    break;
+                case "sitemap":
+                    sitemaps.add(value);
+                    lastWasAgent = false;
+                    break;
+                default:
+                    lastWasAgent = false;
+            }
+        }
+
+        // A group naming this crawler replaces the wildcard group entirely
+        Group effective = specific.matched ? specific : wildcard;
+        return new RobotsRules(List.copyOf(effective.allow), List.copyOf(effective.disallow),
+            effective.crawlDelayMs, List.copyOf(sitemaps));
+    }
+
+    // Longest matching pattern wins, allow wins a tie
+    public boolean isAllowed(String pathAndQuery) {
+        String path = pathAndQuery == null || pathAndQuery.isEmpty() ? "/" : pathAndQuery;
+        int allowLength = longestMatch(allow, path);
+        int disallowLength = longestMatch(disallow, path);
+        return disallowLength < 0 || allowLength >= disallowLength;
+    }
+
+    public boolean isUnreachable() {
+        return this == UNREACHABLE;
+    }
+
+    public long getCrawlDelayMs() {
+        return crawlDelayMs;
+    }
+
+    public List<String> getSitemaps() {
+        return sitemaps;
+    }
+
+    // Groups name a product token, matched in full and case-insensitively (RFC 9309 2.2.1); it is the
+    // leading letters, '-' and '_' of the user agent, so "examplebot/2.1 (+https://...)" is "examplebot"
+    private static String productToken(String userAgent) {
+        int end = 0;
+        while (end < userAgent.length()) {
+            char c = userAgent.charAt(end);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '-' || c == '_')) {
+                break;
+            }
+            end++;
+        }
+        return userAgent.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static int longestMatch(List<String> patterns, String path) {
+        int longest = -1;
+        for (String pattern : patterns) {
+            if (pattern.length() > longest && matches(pattern, path)) {
+                longest = pattern.length();
+            }
+        }
+        return longest;
+    }
+
+    private static boolean matches(String pattern, String path) {
+        boolean anchored = pattern.endsWith("$");
+        String body = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+        return matchFrom(body, 0, path, 0, anchored);
+    }
+
+    private static boolean matchFrom(String pattern, int p, String path, int s, boolean anchored) {
+        while (p < pattern.length()) {
+            char c = pattern.charAt(p);
+            if (c == '*') {
+                for (int k = s; k <= path.length(); k++) {
+                    if (matchFrom(pattern, p + 1, path, k, anchored)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (s >= path.length() || path.charAt(s) != c) {
+                return false;
+            }
+            p++;
+            s++;
+        }
+        return !anchored || s == path.length();
+    }
+
+    private static class Group {
+        final List<String> allow = new ArrayList<>();
+        final List<String> disallow = new ArrayList<>();
+        long crawlDelayMs;
+        boolean matched;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.service.crawler;
+
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * robots.txt per scheme + host, fetched on first use and kept for a TTL. A missing file (4xx)
+ * allows everything. A server error or failed fetch disallows everything, as RFC 9309 requires,
+ * and is retried sooner.
+ */
+public class RobotsTxtCache {
+
+    private static final long FAILURE_TTL_MS = 10 * 60 * 1000L;
+
+    private final RestTemplate restTemplate;
+    private final String userAgent;
+    private final long ttlMs;
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+
+    public RobotsTxtCache(RestTemplate restTemplate, String userAgent, long ttlMs) {
+        this.restTemplate = restTemplate;
+        this.userAgent = userAgent;
+        this.ttlMs = ttlMs;
+    }
+
+    public RobotsRules rulesFor(String url) {
+        URI uri = URI.create(url);
+        String origin = uri.getScheme() + "://" + uri.getRawAuthority();
+        long now = System.currentTimeMillis();
+
+        Cached cached = cache.get(origin);
+        if (cached == null || cached.expiresAt < now) {
+            cached = fetch(origin, now);
+            cache.put(origin, cached);
+        }
+        return cached.rules;
+    }
+
+    public boolean isAllowed(String url) {
+        URI uri = URI.create(url);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null) {
+            path += "?" + uri.getRawQuery();
+        }
+        return rulesFor(url).isAllowed(path);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private Cached fetch(String origin, long now) {
+        try {
+            String body = restTemplate.getForObject(origin + "/robots.txt", String.class);
+            RobotsRules rules = body != null ? RobotsRules.parse(body, userAgent) : RobotsRules.ALLOW_ALL;
+            return new Cached(rules, now + ttlMs);
+        } catch (HttpClientErrorException e) {
+            return new Cached(RobotsRules.ALLOW_ALL, now + ttlMs);
+        } catch (Exception e) {
+            return new Cached(RobotsRules.UNREACHABLE, now + FAILURE_TTL_MS);
+        }
+    }
+
+    private record Cached(RobotsRules rules, long expiresAt) {}
+}
@@ -0,0 +1,78 @@
+package org.example.service.crawler;
+
+/**
+ * 64-bit SimHash over word bigrams. Pages whose text differs only in boilerplate (tracking
+ * parameters, sort order, small template changes) end up a few bits apart.
+ */
+public final class SimHash {
+
+    private SimHash() {}
+
+    public static long fingerprint(CharSequence text) {
+        int[] weights = new int[64];
+        long previousWord = 0;
+        long word = 0;
+        int wordLength = 0;
+        int features = 0;
+
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word = (word ^ Character.toLowerCase(c)) * 0x100000001b3L;
+                wordLength++;
+                continue;
+            }
+            if (wordLength == 0) {
+                continue;
+            }
+
+            // Bigrams keep some word order, which single tokens lose entirely
+            long feature = mix(previousWord * 31 + word);
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += ((feature >>> bit) & 1L) != 0 ? 1 : -1;
+            }
+            features++;
+            previousWord = word;
+            word = 0;
+            wordLength = 0;
+        }
+
+        if (features == 0) {
+            return 0L;
+        }
+        long fingerprint = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    // Words as fingerprint() splits them; too few and unrelated pages fingerprint alike
+    public static int wordCount(CharSequence text) {
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            boolean letter = Character.isLetterOrDigit(text.charAt(i));
+            if (letter && !inWord) {
+                words++;
+            }
+            inWord = letter;
+        }
+        return words;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.service.crawler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Banded index over SimHash fingerprints. The 64 bits are split into maxDistance + 1 bands; by
+ * the pigeonhole principle two fingerprints within maxDistance bits agree exactly on at least
+ * one band, so a lookup only probes one bucket per band. Everything is kept in primitive arrays
+ * (fingerprint, page id and one chain link per band), about 48 bytes per page.
+ *
+ * <p>Pages are indexed into a current generation of at most maxPages / 2 entries. When it is full
+ * or older than maxAgeMs / 2 it becomes the previous generation and the old previous one is
+ * dropped, so the index stays bounded and forgets pages oldest first.
+ */
+public class SimHashIndex {
+
+    private final int maxDistance;
+    private final int bands;
+    private final int[] bandShift;
+    private final long[] bandMask;
+    private final int generationPages;
+    private final long generationAgeMs;
+    private final int initialCapacity;
+
+    private Table current;
+    private Table previous;
+    private long evicted;
+
+    public SimHashIndex(int maxDistance, int expectedPages, int maxPages, long maxAgeMs) {
+        if (maxDistance < 0 || maxDistance > 7) {
+            throw new IllegalArgumentException("maxDistance must be between 0 and 7");
+        }
+        this.maxDistance = maxDistance;
+        this.bands = maxDistance + 1;
+        this.bandShift = new int[bands];
+        this.bandMask = new long[bands];
+        int shift = 0;
+        for (int b = 0; b < bands; b++) {
+            int width = 64 / bands + (b < 64 % bands ? 1 : 0);
+            bandShift[b] = shift;
+            bandMask[b] = width == 64 ? -1L : (1L << width) - 1;
+            shift += width;
+        }
+
+        this.generationPages = Math.max(1, maxPages / 2);
+        this.generationAgeMs = maxAgeMs > 0 ? Math.max(1, maxAgeMs / 2) : Long.MAX_VALUE;
+        this.initialCapacity = Math.min(Math.max(1024, expectedPages), generationPages);
+        this.current = new Table(System.currentTimeMillis());
+    }
+
+    // Id of an indexed page other than excludeId within maxDistance bits of the fingerprint, or -1
+    public synchronized long findNearDuplicate(long fingerprint, long excludeId) {
+        rotateIfDue();
+        long found = current.find(fingerprint, excludeId);
+        if (found == -1L && previous != null) {
+            found = previous.find(fingerprint, excludeId);
+        }
+        return found;
+    }
+
+    public synchronized void add(long fingerprint, long id) {
+        rotateIfDue();
+        current.add(fingerprint, id);
+    }
+
+    public synchronized int size() {
+        return current.size + (previous != null ? previous.size : 0);
+    }
+
+    public synchronized long memoryBytes() {
+        return current.memoryBytes() + (previous != null ? previous.memoryBytes() : 0);
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        int pages = size();
+        long memoryBytes = memoryBytes();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("pages", pages);
+        stats.put("maxPages", 2L * generationPages);
+        stats.put("evicted", evicted);
+        stats.put("maxDistance", maxDistance);
+        stats.put("bands", bands);
+        stats.put("memoryBytes", memoryBytes);
+        stats.put("bytesPerMillionPages", pages == 0 ? 0 : memoryBytes * 1_000_000 / pages);
+        return stats;
+    }
+
+    private void rotateIfDue() {
+        long now = System.currentTimeMillis();
+        long age = now - current.startedAt;
+        if (current.size < generationPages && age < generationAgeMs) {
+            return;
+        }
+        evicted += previous != null ? previous.size : 0;
+        // After a long idle spell the current generation is already too old to keep as well
+        if (generationAgeMs == Long.MAX_VALUE || age < 2 * generationAgeMs) {
+            previous = current;
+        } else {
+            evicted += current.size;
+            previous = null;
+        }
+        current = new Table(now);
+    }
+
+    private final class Table {
+
+        final long startedAt;
+        final int[][] heads;
+        final int tableMask;
+        long[] fingerprints;
+        long[] ids;
+        int[][] next;
+        int size;
+
+        Table(long startedAt) {
+            this.startedAt = startedAt;
+            int tableSize = Integer.highestOneBit(Math.max(1024, initialCapacity - 1)) << 1;
+            this.tableMask = tableSize - 1;
+            this.heads = new int[bands][tableSize];
+            for (int[] head : heads) {
+                Arrays.fill(head, -1);
+            }
+            this.fingerprints = new long[initialCapacity];
+            this.ids = new long[initialCapacity];
+            this.next = new int[bands][initialCapacity];
+        }
+
+        long find(long fingerprint, long excludeId) {
+            for (int b = 0; b < bands; b++) {
+                long band = (fingerprint >>> bandShift[b]) & bandMask[b];
+                for (int i = heads[b][bucket(band, b)]; i >= 0; i = next[b][i]) {
+                    if (ids[i] != excludeId
+                            && ((fingerprints[i] >>> bandShift[b]) & bandMask[b]) == band
+                            && Long.bitCount(fingerprints[i] ^ fingerprint) <= maxDistance) {
+                        return ids[i];
+                    }
+                }
+            }
+            return -1L;
+        }
+
+        void add(long fingerprint, long id) {
+            if (size == fingerprints.length) {
+                int capacity = Math.max(size + 1, Math.min(size + (size >> 1), generationPages));
+                fingerprints = Arrays.copyOf(fingerprints, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                for (int b = 0; b < bands; b++) {
+                    next[b] = Arrays.copyOf(next[b], capacity);
+                }
+            }
+
+            int index = size++;
+            fingerprints[index] = fingerprint;
+            ids[index] = id;
+            for (int b = 0; b < bands; b++) {
+                int bucket = bucket((fingerprint >>> bandShift[b]) & bandMask[b], b);
+                next[b][index] = heads[b][bucket];
+                heads[b][bucket] = index;
+            }
+        }
+
+        long memoryBytes() {
+            long perSlot = 8L + 8L + 4L * bands;
+            return perSlot * fingerprints.length + 4L * bands * (tableMask + 1L);
+        }
+
+        private int bucket(long band, int b) {
+            long h = (band + b) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & tableMask;
+        }
+    }
+}
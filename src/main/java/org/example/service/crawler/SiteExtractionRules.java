@@ -0,0 +1,24 @@
+package org.example.service.crawler;
+
+import java.util.List;
+
+/**
+ * Extraction rules for one site, matched against the page host (the site itself or any
+ * subdomain). Fields a site does not declare are inherited from the {@code default} site.
+ */
+public record SiteExtractionRules(
+    String site,
+    List<ExtractionRule> product,
+    List<ExtractionRule> searchResult
+) {
+
+    public static final String DEFAULT_SITE = "default";
+
+    public SiteExtractionRules {
+        if (site == null || site.isEmpty()) {
+            throw new IllegalArgumentException("Site extraction rules need a site");
+        }
+        product = product == null ? List.of() : List.copyOf(product);
+        searchResult = searchResult == null ? List.of() : List.copyOf(searchResult);
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.service.crawler;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming (StAX) parser for sitemap.xml and sitemap index files, plain or gzipped. Entries are
+ * handed to callbacks one at a time, so multi-million URL sitemaps never sit in memory.
+ */
+public final class SitemapParser {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private SitemapParser() {}
+
+    public record Entry(String loc, Instant lastModified, String changeFrequency, Double priority) {}
+
+    // Page entries go to pageSink, nested sitemaps of an index go to sitemapSink
+    public static void parse(InputStream input, Consumer<Entry> pageSink, Consumer<Entry> sitemapSink) throws IOException {
+        InputStream in = maybeGunzip(input);
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            String loc = null;
+            String lastmod = null;
+            String changefreq = null;
+            String priority = null;
+            String element = null;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    element = reader.getLocalName();
+                    if (element.equals("url") || element.equals("sitemap")) {
+                        loc = lastmod = changefreq = priority = null;
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    if (element == null) {
+                        continue;
+                    }
+                    String text = reader.getText();
+                    switch (element) {
+                        case "loc" -> loc = loc == null ? text : loc + text;
+                        case "lastmod" -> lastmod = lastmod == null ? text : lastmod + text;
+                        case "changefreq" -> changefreq = changefreq == null ? text : changefreq + text;
+                        case "priority" -> priority = priority == null ? text : priority + text;
+                        default -> { }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ((name.equals("url") || name.equals("sitemap")) && loc != null && !loc.isBlank()) {
+                        Entry entry = new Entry(loc.trim(), parseDate(lastmod),
+                            changefreq != null ? changefreq.trim().toLowerCase(Locale.ROOT) : null,
+                            parsePriority(priority));
+                        (name.equals("url") ? pageSink : sitemapSink).accept(entry);
+                    }
+                    element = null;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed sitemap", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // the underlying stream is closed by the caller
+                }
+            }
+        }
+    }
+
+    // Nominal revisit interval in seconds for a changefreq hint, or -1 when there is none
+    public static long intervalSeconds(String changeFrequency) {
+        if (changeFrequency == null) {
+            return -1;
+        }
+        switch (changeFrequency) {
+            case "always":
+            case "hourly":
+                return 3600;
+            case "daily":
+                return 86400;
+            case "weekly":
+                return 7 * 86400;
+            case "monthly":
+                return 30 * 86400;
+            case "yearly":
+            case "never":
+                return 365 * 86400;
+            default:
+                return -1;
+        }
+    }
+
+    private static InputStream maybeGunzip(InputStream input) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(input);
+        buffered.mark(2);
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        buffered.reset();
+        if (b1 == 0x1f && b2 == 0x8b) {
+            return new GZIPInputStream(buffered);
+        }
+        return buffered;
+    }
+
+    private static Instant parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        try {
+            return OffsetDateTime.parse(trimmed).toInstant();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDate.parse(trimmed.length() >= 10 ? trimmed.substring(0, 10) : trimmed)
+                    .atStartOfDay().toInstant(ZoneOffset.UTC);
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static Double parsePriority(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
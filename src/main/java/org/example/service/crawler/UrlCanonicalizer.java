@@ -0,0 +1,87 @@
+package org.example.service.crawler;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Normalizes URLs so that trivially different spellings of the same page dedupe to one key:
+ * lower-case scheme and host, default ports and fragments removed, dot segments resolved and
+ * query parameters sorted.
+ */
+public final class UrlCanonicalizer {
+
+    private UrlCanonicalizer() {}
+
+    public static String canonicalize(String url) {
+        if (url == null) {
+            return "";
+        }
+        String trimmed = url.trim();
+
+        try {
+            URI uri = new URI(trimmed).normalize();
+            String scheme = uri.getScheme();
+            String host = uri.getHost();
+            if (scheme == null || host == null) {
+                return trimmed;
+            }
+            scheme = scheme.toLowerCase(Locale.ROOT);
+            host = host.toLowerCase(Locale.ROOT);
+            if (host.endsWith(".")) {
+                host = host.substring(0, host.length() - 1);
+            }
+
+            int port = uri.getPort();
+            if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+                port = -1;
+            }
+
+            StringBuilder canonical = new StringBuilder(trimmed.length());
+            canonical.append(scheme).append("://");
+            if (uri.getRawUserInfo() != null) {
+                canonical.append(uri.getRawUserInfo()).append('@');
+            }
+            canonical.append(host);
+            if (port != -1) {
+                canonical.append(':').append(port);
+            }
+
+            String path = uri.getRawPath();
+            canonical.append(path == null || path.isEmpty() ? "/" : path);
+
+            String query = uri.getRawQuery();
+            if (query != null && !query.isEmpty()) {
+                String[] params = Arrays.stream(query.split("&"))
+                    .filter(param -> !param.isEmpty())
+                    .sorted()
+                    .toArray(String[]::new);
+                if (params.length > 0) {
+                    canonical.append('?').append(String.join("&", params));
+                }
+            }
+
+            // Fragments never reach the server, so they are dropped
+            return canonical.toString();
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+    }
+
+    // 64-bit hash of the canonical form, computed without materializing the UTF-8 bytes
+    public static long hash64(CharSequence value) {
+        long h = 0x9E3779B97F4A7C15L ^ value.length();
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0xff51afd7ed558ccdL;
+            h = Long.rotateLeft(h, 31);
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.service.crawler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Off-heap set of 64-bit URL hashes for crawl deduplication.
+ *
+ * Slots are stored in a linear-probing open-addressing table outside the Java heap, 8 bytes per
+ * slot, so a million URLs cost 11-22 MB depending on how full the table is, instead of the
+ * ~150 MB a HashSet of Strings takes. When a file is given the table is memory-mapped and a restarted crawl
+ * resumes with everything it had seen. Distinct URLs collide with probability ~n/2^64, which is
+ * negligible at crawl scale.
+ *
+ * The table starts sized for initialUrls and doubles as it fills, up to maxUrls; see
+ * {@link UrlSeenSetBenchmark} for measured memory and lookup throughput.
+ */
+public class UrlSeenSet implements Closeable {
+
+    private static final int HEADER_BYTES = 16;
+    private static final long MAGIC = 0x55524C5345454E31L; // "URLSEEN1"
+    private static final double MAX_LOAD = 0.75;
+    private static final long EMPTY = 0L;
+    private static final int MAX_CAPACITY = 1 << 27; // keeps the table within one 2 GB mapping
+
+    private final Path file;
+    private final int maxCapacity;
+    private ByteBuffer table;
+    private int capacity;
+    private long count;
+
+    public UrlSeenSet(int initialUrls) {
+        this(initialUrls, Integer.MAX_VALUE, null);
+    }
+
+    public UrlSeenSet(int initialUrls, int maxUrls, Path file) {
+        this.file = file;
+        this.maxCapacity = slotsFor(Math.max(initialUrls, maxUrls));
+        int initialCapacity = slotsFor(initialUrls);
+        try {
+            if (file != null && Files.exists(file)) {
+                open(file);
+                if (capacity < initialCapacity) {
+                    resize(initialCapacity);
+                }
+            } else {
+                table = allocate(file, initialCapacity);
+                capacity = initialCapacity;
+                writeHeader();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open URL seen set at " + file, e);
+        }
+    }
+
+    // Returns true if the URL had not been seen before
+    public boolean add(String url) {
+        return addHash(UrlCanonicalizer.hash64(UrlCanonicalizer.canonicalize(url)));
+    }
+
+    public boolean contains(String url) {
+        return containsHash(UrlCanonicalizer.hash64(UrlCanonicalizer.canonicalize(url)));
+    }
+
+    public synchronized boolean addHash(long hash) {
+        long key = hash == EMPTY ? 1L : hash;
+        if (count + 1 > capacity * MAX_LOAD) {
+            resize(capacity * 2);
+        }
+
+        int mask = capacity - 1;
+        int slot = (int) mix(key) & mask;
+        while (true) {
+            long current = table.getLong(offset(slot));
+            if (current == EMPTY) {
+                table.putLong(offset(slot), key);
+                count++;
+                table.putLong(8, count);
+                return true;
+            }
+            if (current == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public synchronized boolean containsHash(long hash) {
+        long key = hash == EMPTY ? 1L : hash;
+        int mask = capacity - 1;
+        int slot = (int) mix(key) & mask;
+        while (true) {
+            long current = table.getLong(offset(slot));
+            if (current == EMPTY) {
+                return false;
+            }
+            if (current == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public synchronized long size() {
+        return count;
+    }
+
+    public synchronized long memoryBytes() {
+        return HEADER_BYTES + (long) capacity * 8;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("urls", count);
+        stats.put("capacity", capacity);
+        stats.put("loadFactor", (double) count / capacity);
+        stats.put("memoryBytes", memoryBytes());
+        stats.put("bytesPerMillionUrls", count == 0 ? 0 : memoryBytes() * 1_000_000 / count);
+        stats.put("persistent", file != null);
+        return stats;
+    }
+
+    public synchronized void flush() {
+        if (table instanceof MappedByteBuffer mapped) {
+            mapped.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void resize(int newCapacity) {
+        if (newCapacity > maxCapacity) {
+            throw new IllegalStateException("URL seen set is full at " + count + " URLs");
+        }
+        try {
+            Path target = file != null ? file.resolveSibling(file.getFileName() + ".resize") : null;
+            ByteBuffer resized = allocate(target, newCapacity);
+            int mask = newCapacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                long key = table.getLong(offset(i));
+                if (key != EMPTY) {
+                    int slot = (int) mix(key) & mask;
+                    while (resized.getLong(offset(slot)) != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    resized.putLong(offset(slot), key);
+                }
+            }
+
+            table = resized;
+            capacity = newCapacity;
+            writeHeader();
+            if (file != null) {
+                ((MappedByteBuffer) table).force();
+                Files.move(target, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to grow URL seen set", e);
+        }
+    }
+
+    private void open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (channel.size() < HEADER_BYTES || mapped.getLong(0) != MAGIC) {
+                throw new IOException("Not a URL seen set file: " + path);
+            }
+            long slots = (channel.size() - HEADER_BYTES) / 8;
+            if (Long.bitCount(slots) != 1) {
+                throw new IOException("Corrupt URL seen set file: " + path);
+            }
+            table = mapped;
+            capacity = (int) slots;
+            count = mapped.getLong(8);
+        }
+    }
+
+    private static ByteBuffer allocate(Path path, int slots) throws IOException {
+        long bytes = HEADER_BYTES + (long) slots * 8;
+        if (path == null) {
+            return ByteBuffer.allocateDirect(Math.toIntExact(bytes));
+        }
+        Files.deleteIfExists(path);
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end extends the file, new pages read as zero (empty slots)
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+    }
+
+    private void writeHeader() {
+        table.putLong(0, MAGIC);
+        table.putLong(8, count);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * 8;
+    }
+
+    private static long mix(long key) {
+        // The hash is already well distributed, fold the high bits into the slot index
+        return key ^ (key >>> 32);
+    }
+
+    // Power-of-two slot count that holds urls within the load factor, capped at MAX_CAPACITY
+    private static int slotsFor(int urls) {
+        long slots = (long) Math.ceil(Math.max(16, urls) / MAX_LOAD);
+        if (slots >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) Math.max(16, slots - 1)) << 1;
+    }
+}
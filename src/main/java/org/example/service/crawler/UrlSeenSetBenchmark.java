@@ -0,0 +1,74 @@
+package org.example.service.crawler;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Memory and throughput benchmark for {@link UrlSeenSet} over synthetic product URLs, with a
+ * HashSet of canonical URL strings measured alongside for comparison. Not part of the served API:
+ * {@code java -cp <classpath> org.example.service.crawler.UrlSeenSetBenchmark [urls] [initialUrls]}.
+ */
+public class UrlSeenSetBenchmark {
+
+    public static void main(String[] args) {
+        int urls = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int initialUrls = args.length > 1 ? Integer.parseInt(args[1]) : 65536;
+
+        // Warm up the canonicalizer, hashing and table code before timing anything
+        run(new UrlSeenSet(initialUrls), Math.min(urls, 200_000), false);
+
+        UrlSeenSet seen = new UrlSeenSet(initialUrls);
+        run(seen, urls, true);
+        System.out.printf("off-heap: %d URLs in %d slots, %.1f MB, %.1f MB per million URLs%n",
+            seen.size(), (seen.memoryBytes() - 16) / 8, seen.memoryBytes() / 1e6,
+            seen.memoryBytes() / 1e6 * 1_000_000 / seen.size());
+
+        long before = usedHeap();
+        Set<String> strings = new HashSet<>();
+        for (int i = 0; i < urls; i++) {
+            strings.add(UrlCanonicalizer.canonicalize(url(i)));
+        }
+        long heapBytes = usedHeap() - before;
+        System.out.printf("HashSet<String>: %d URLs, %.1f MB of heap, %.1f MB per million URLs%n",
+            strings.size(), heapBytes / 1e6, heapBytes / 1e6 * 1_000_000 / strings.size());
+    }
+
+    private static void run(UrlSeenSet seen, int urls, boolean report) {
+        long start = System.nanoTime();
+        for (int i = 0; i < urls; i++) {
+            seen.add(url(i));
+        }
+        long addNanos = System.nanoTime() - start;
+
+        // Hashes only, so this times the table rather than URL canonicalization
+        long[] hits = new long[urls];
+        for (int i = 0; i < urls; i++) {
+            hits[i] = UrlCanonicalizer.hash64(UrlCanonicalizer.canonicalize(url(i)));
+        }
+        start = System.nanoTime();
+        int found = 0;
+        for (long hash : hits) {
+            found += seen.containsHash(hash) ? 1 : 0;
+            found += seen.containsHash(hash * 0x9E3779B97F4A7C15L) ? 1 : 0;
+        }
+        long lookupNanos = System.nanoTime() - start;
+
+        if (report) {
+            System.out.printf("add(url): %.0f URLs/s including canonicalization%n", urls / (addNanos / 1e9));
+            System.out.printf("containsHash: %.1f M lookups/s (half hits, half misses; %d found)%n",
+                2.0 * urls / (lookupNanos / 1e9) / 1e6, found);
+        }
+    }
+
+    private static String url(int i) {
+        return "https://shop" + (i % 50) + ".example.com/products/item-" + i + "?utm_source=feed&ref=" + (i % 7);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
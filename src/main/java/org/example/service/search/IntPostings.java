@@ -0,0 +1,119 @@
+package org.example.service.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Append-only, strictly increasing list of ints stored as varint-encoded deltas. Doc and token
+ * ids are handed out in increasing order, so postings only ever grow at the end and a typical
+ * entry takes one or two bytes instead of four. Once a list is dense enough that a bitset is no
+ * larger (roughly one value in eight), it switches to one, which common tokens OR in far faster.
+ */
+final class IntPostings {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final int MIN_DENSE_SIZE = 1024;
+
+    private byte[] data = EMPTY;
+    private BitSet dense;
+    private int length;
+    private int size;
+    private int last = -1;
+
+    void add(int value) {
+        if (value <= last) {
+            throw new IllegalArgumentException("Postings must be appended in increasing order: " + value + " after " + last);
+        }
+        if (dense != null) {
+            dense.set(value);
+            last = value;
+            size++;
+            return;
+        }
+        int delta = value - last;
+        if (data.length - length < 5) {
+            data = Arrays.copyOf(data, Math.max(16, data.length + (data.length >> 1) + 5));
+        }
+        while ((delta & ~0x7F) != 0) {
+            data[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+        last = value;
+        size++;
+        if (size >= MIN_DENSE_SIZE && length >= (last >>> 3)) {
+            toDense();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int last() {
+        return last;
+    }
+
+    void forEach(IntConsumer consumer) {
+        if (dense != null) {
+            for (int value = dense.nextSetBit(0); value >= 0; value = dense.nextSetBit(value + 1)) {
+                consumer.accept(value);
+            }
+            return;
+        }
+        int value = -1;
+        int pos = 0;
+        while (pos < length) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += delta;
+            consumer.accept(value);
+        }
+    }
+
+    void orInto(BitSet target) {
+        if (dense != null) {
+            target.or(dense);
+        } else {
+            forEach(target::set);
+        }
+    }
+
+    // Renumbers through remap (old -> new, -1 drops the entry); remap must preserve order
+    IntPostings remap(int[] remap) {
+        IntPostings copy = new IntPostings();
+        forEach(value -> {
+            int mapped = value < remap.length ? remap[value] : -1;
+            if (mapped >= 0) {
+                copy.add(mapped);
+            }
+        });
+        copy.trim();
+        return copy;
+    }
+
+    void trim() {
+        if (dense == null && data.length != length) {
+            data = length == 0 ? EMPTY : Arrays.copyOf(data, length);
+        }
+    }
+
+    long memoryBytes() {
+        return (dense != null ? dense.size() / 8 : data.length) + 32L;
+    }
+
+    private void toDense() {
+        BitSet bits = new BitSet(last + 1);
+        forEach(bits::set);
+        dense = bits;
+        data = EMPTY;
+        length = 0;
+    }
+}
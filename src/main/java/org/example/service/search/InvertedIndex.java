@@ -0,0 +1,450 @@
+package org.example.service.search;
+
+import org.example.document.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over product name, description and tags. Every indexed version of a product
+ * gets a fresh, increasing doc id, so postings stay append-only; an update marks the previous
+ * doc dead and {@link #compact} later renumbers the live ones. Query terms match any indexed
+ * token containing them: a trigram index over the vocabulary finds candidate tokens, which keeps
+ * substring matching exact without storing product text. Filters are bitsets too; prices go
+ * into log-scale buckets (eight per doubling), so a price range is whole buckets combined as
+ * bitsets plus the two buckets at its ends, which are checked per doc.
+ *
+ * Reads take the read lock; the owner must serialize writes (upsert, remove and compact).
+ */
+final class InvertedIndex {
+
+    static final int MAX_TOKEN_LENGTH = 40;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final BitSet NONE = new BitSet();
+    // Exact buckets for 0-15 cents, then eight per doubling up to Long.MAX_VALUE
+    private static final int PRICE_BUCKETS = 16 + 60 * 8;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private String[] productIds = new String[1024];
+    private long[] priceCents = new long[1024];
+    private int docCount;
+    private int liveCount;
+    private final BitSet live = new BitSet();
+    private final BitSet active = new BitSet();
+    private final Map<String, BitSet> categories = new HashMap<>();
+    private final BitSet priced = new BitSet();
+    private final BitSet[] priceBuckets = new BitSet[PRICE_BUCKETS];
+    private final Map<String, Integer> docIds = new HashMap<>();
+
+    // Sorted so that short query terms can be matched by prefix
+    private final TreeMap<String, Integer> tokenIds = new TreeMap<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<IntPostings> postings = new ArrayList<>();
+    private final Map<String, IntPostings> trigrams = new HashMap<>();
+
+    void upsert(Product product) {
+        Set<String> productTokens = new LinkedHashSet<>();
+        tokenize(product.getName(), productTokens, MAX_TOKEN_LENGTH);
+        tokenize(product.getDescription(), productTokens, MAX_TOKEN_LENGTH);
+        if (product.getTags() != null) {
+            for (String tag : product.getTags()) {
+                tokenize(tag, productTokens, MAX_TOKEN_LENGTH);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            int doc = docCount++;
+            if (doc == productIds.length) {
+                int capacity = productIds.length + (productIds.length >> 1);
+                productIds = Arrays.copyOf(productIds, capacity);
+                priceCents = Arrays.copyOf(priceCents, capacity);
+            }
+            productIds[doc] = product.getId();
+            priceCents[doc] = toCents(product.getPrice(), RoundingMode.HALF_UP);
+            if (priceCents[doc] != NO_PRICE) {
+                priced.set(doc);
+                priceBucket(priceBuckets, priceCents[doc]).set(doc);
+            }
+            docIds.put(product.getId(), doc);
+            live.set(doc);
+            liveCount++;
+            if (Boolean.TRUE.equals(product.getIsActive())) {
+                active.set(doc);
+            }
+            if (product.getCategory() != null) {
+                categories.computeIfAbsent(product.getCategory(), c -> new BitSet()).set(doc);
+            }
+            for (String token : productTokens) {
+                postings.get(tokenId(token)).add(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    ProductSearchIndex.SearchResult search(ProductSearchIndex.SearchQuery query) {
+        long start = System.nanoTime();
+        // Over-long terms are kept: they match nothing rather than being dropped from the query
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(query.text(), terms, Integer.MAX_VALUE);
+
+        lock.readLock().lock();
+        try {
+            BitSet candidates = null;
+            for (String term : terms) {
+                BitSet matching = docsMatching(term);
+                if (candidates == null) {
+                    candidates = matching;
+                } else {
+                    candidates.and(matching);
+                }
+                if (candidates.isEmpty()) {
+                    return new ProductSearchIndex.SearchResult(0, List.of(), micros(start));
+                }
+            }
+            if (candidates == null) {
+                candidates = (BitSet) live.clone();
+            } else {
+                candidates.and(live);
+            }
+            if (query.category() != null) {
+                candidates.and(categories.getOrDefault(query.category(), NONE));
+            }
+            if (query.active() != null) {
+                if (query.active()) {
+                    candidates.and(active);
+                } else {
+                    candidates.andNot(active);
+                }
+            }
+
+            if (query.minPrice() != null || query.maxPrice() != null) {
+                filterPrice(candidates,
+                    query.minPrice() != null ? toCents(query.minPrice(), RoundingMode.CEILING) : Long.MIN_VALUE + 1,
+                    query.maxPrice() != null ? toCents(query.maxPrice(), RoundingMode.FLOOR) : Long.MAX_VALUE);
+            }
+
+            int offset = Math.max(0, query.offset());
+            int limit = Math.max(0, query.limit());
+            List<String> page = new ArrayList<>(Math.min(limit, 1024));
+            int skipped = 0;
+            for (int doc = candidates.nextSetBit(0); doc >= 0 && page.size() < limit; doc = candidates.nextSetBit(doc + 1)) {
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    page.add(productIds[doc]);
+                }
+            }
+            return new ProductSearchIndex.SearchResult(candidates.cardinality(), page, micros(start));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int liveDocs() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int deadDocs() {
+        lock.readLock().lock();
+        try {
+            return docCount - liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A renumbered copy without dead docs or tokens that only they used; this index is left as is
+    InvertedIndex compact() {
+        lock.readLock().lock();
+        try {
+            InvertedIndex copy = new InvertedIndex();
+            int[] docRemap = new int[docCount];
+            Arrays.fill(docRemap, -1);
+            int capacity = Math.max(1024, liveCount + (liveCount >> 2));
+            copy.productIds = new String[capacity];
+            copy.priceCents = new long[capacity];
+            for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+                int mapped = copy.docCount++;
+                docRemap[doc] = mapped;
+                copy.productIds[mapped] = productIds[doc];
+                copy.priceCents[mapped] = priceCents[doc];
+                copy.docIds.put(productIds[doc], mapped);
+                copy.live.set(mapped);
+                if (active.get(doc)) {
+                    copy.active.set(mapped);
+                }
+                if (priceCents[doc] != NO_PRICE) {
+                    copy.priced.set(mapped);
+                    priceBucket(copy.priceBuckets, priceCents[doc]).set(mapped);
+                }
+            }
+            copy.liveCount = copy.docCount;
+            for (Map.Entry<String, BitSet> category : categories.entrySet()) {
+                BitSet remapped = remap(category.getValue(), docRemap);
+                if (!remapped.isEmpty()) {
+                    copy.categories.put(category.getKey(), remapped);
+                }
+            }
+            for (int token = 0; token < tokens.size(); token++) {
+                IntPostings remapped = postings.get(token).remap(docRemap);
+                if (remapped.size() > 0) {
+                    copy.tokenId(tokens.get(token));
+                    copy.postings.set(copy.postings.size() - 1, remapped);
+                }
+            }
+            copy.trimPostings();
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            long postingBytes = 0;
+            long postingEntries = 0;
+            for (IntPostings list : postings) {
+                postingBytes += list.memoryBytes();
+                postingEntries += list.size();
+            }
+            long trigramBytes = 0;
+            for (IntPostings list : trigrams.values()) {
+                trigramBytes += list.memoryBytes();
+            }
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("products", liveCount);
+            stats.put("deadDocs", docCount - liveCount);
+            stats.put("tokens", tokens.size());
+            stats.put("trigrams", trigrams.size());
+            stats.put("categories", categories.size());
+            stats.put("priceBuckets", Arrays.stream(priceBuckets).filter(bucket -> bucket != null).count());
+            stats.put("postingEntries", postingEntries);
+            stats.put("postingBytes", postingBytes);
+            stats.put("trigramBytes", trigramBytes);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lower-cased, accent-folded runs of letters and digits
+    static void tokenize(String text, Collection<String> out, int maxLength) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String folded = text;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                folded = Normalizer.normalize(text, Normalizer.Form.NFD);
+                break;
+            }
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (!token.isEmpty()) {
+                if (token.length() <= maxLength) {
+                    out.add(token.toString());
+                }
+                token.setLength(0);
+            }
+        }
+    }
+
+    private boolean removeLocked(String productId) {
+        Integer doc = docIds.remove(productId);
+        if (doc == null) {
+            return false;
+        }
+        // Postings, category and active bits of a dead doc are masked by live until compaction
+        live.clear(doc);
+        liveCount--;
+        productIds[doc] = null;
+        return true;
+    }
+
+    // Keeps the candidates priced within [min, max] cents
+    private void filterPrice(BitSet candidates, long min, long max) {
+        if (min > max) {
+            candidates.clear();
+            return;
+        }
+        int low = bucketOf(min);
+        int high = bucketOf(max);
+        // The end buckets may hold prices on both sides of the range
+        BitSet edges = new BitSet();
+        for (int bucket : new int[] {low, high}) {
+            if (priceBuckets[bucket] != null) {
+                edges.or(priceBuckets[bucket]);
+            }
+        }
+        edges.and(candidates);
+        for (int doc = edges.nextSetBit(0); doc >= 0; doc = edges.nextSetBit(doc + 1)) {
+            if (priceCents[doc] < min || priceCents[doc] > max) {
+                edges.clear(doc);
+            }
+        }
+
+        // OR in the buckets strictly inside the range, or take out those outside it, whichever is fewer
+        int inside = 0;
+        int outside = 0;
+        for (int bucket = 0; bucket < PRICE_BUCKETS; bucket++) {
+            if (priceBuckets[bucket] != null && bucket != low && bucket != high) {
+                if (bucket > low && bucket < high) {
+                    inside++;
+                } else {
+                    outside++;
+                }
+            }
+        }
+        BitSet matching;
+        if (inside <= outside) {
+            matching = new BitSet(docCount);
+            for (int bucket = low + 1; bucket < high; bucket++) {
+                if (priceBuckets[bucket] != null) {
+                    matching.or(priceBuckets[bucket]);
+                }
+            }
+        } else {
+            matching = (BitSet) priced.clone();
+            for (int bucket = 0; bucket < PRICE_BUCKETS; bucket++) {
+                if (priceBuckets[bucket] != null && (bucket <= low || bucket >= high)) {
+                    matching.andNot(priceBuckets[bucket]);
+                }
+            }
+        }
+        candidates.and(matching);
+        candidates.or(edges);
+    }
+
+    private BitSet docsMatching(String term) {
+        BitSet docs = new BitSet(docCount);
+        if (term.length() < 3) {
+            for (Integer token : tokenIds.subMap(term, term + Character.MAX_VALUE).values()) {
+                postings.get(token).orInto(docs);
+            }
+            return docs;
+        }
+
+        // Candidate tokens contain every trigram of the term; confirm they contain the term itself
+        BitSet candidateTokens = null;
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            IntPostings list = trigrams.get(term.substring(i, i + 3));
+            if (list == null) {
+                return docs;
+            }
+            BitSet tokensWithTrigram = new BitSet(tokens.size());
+            list.orInto(tokensWithTrigram);
+            if (candidateTokens == null) {
+                candidateTokens = tokensWithTrigram;
+            } else {
+                candidateTokens.and(tokensWithTrigram);
+            }
+        }
+        for (int token = candidateTokens.nextSetBit(0); token >= 0; token = candidateTokens.nextSetBit(token + 1)) {
+            if (tokens.get(token).contains(term)) {
+                postings.get(token).orInto(docs);
+            }
+        }
+        return docs;
+    }
+
+    private int tokenId(String token) {
+        Integer id = tokenIds.get(token);
+        if (id != null) {
+            return id;
+        }
+        int created = tokens.size();
+        tokenIds.put(token, created);
+        tokens.add(token);
+        postings.add(new IntPostings());
+        Set<String> seen = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= token.length(); i++) {
+            String trigram = token.substring(i, i + 3);
+            if (seen.add(trigram)) {
+                trigrams.computeIfAbsent(trigram, t -> new IntPostings()).add(created);
+            }
+        }
+        return created;
+    }
+
+    private void trimPostings() {
+        for (IntPostings list : trigrams.values()) {
+            list.trim();
+        }
+    }
+
+    private static BitSet remap(BitSet bits, int[] docRemap) {
+        BitSet remapped = new BitSet();
+        for (int doc = bits.nextSetBit(0); doc >= 0 && doc < docRemap.length; doc = bits.nextSetBit(doc + 1)) {
+            if (docRemap[doc] >= 0) {
+                remapped.set(docRemap[doc]);
+            }
+        }
+        return remapped;
+    }
+
+    private static BitSet priceBucket(BitSet[] buckets, long cents) {
+        int bucket = bucketOf(cents);
+        if (buckets[bucket] == null) {
+            buckets[bucket] = new BitSet();
+        }
+        return buckets[bucket];
+    }
+
+    // Negative prices share the first bucket with zero
+    private static int bucketOf(long cents) {
+        if (cents < 16) {
+            return (int) Math.max(0, cents);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(cents);
+        return 16 + (exponent - 4) * 8 + (int) ((cents >>> (exponent - 3)) & 7);
+    }
+
+    private static long toCents(BigDecimal price, RoundingMode rounding) {
+        if (price == null) {
+            return NO_PRICE;
+        }
+        return price.movePointRight(2).setScale(0, rounding).longValue();
+    }
+
+    private static long micros(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000;
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.service.search;
+
+import org.example.document.Product;
+
+/**
+ * One change to the products collection as seen by {@link ProductChangeStreamListener}. product is
+ * the full document after an upsert and null for a delete; RESYNC means events may have been
+ * missed and the consumer has to reload everything.
+ */
+public record ProductChangeEvent(Type type, String productId, Product product) {
+
+    public enum Type { UPSERT, DELETE, RESYNC }
+
+    static ProductChangeEvent resync() {
+        return new ProductChangeEvent(Type.RESYNC, null, null);
+    }
+}
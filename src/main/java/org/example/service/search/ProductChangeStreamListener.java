@@ -0,0 +1,184 @@
+package org.example.service.search;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.example.document.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Follows the products collection through a Mongo change stream and hands every insert, update,
+ * replace and delete to a consumer on the thread that calls {@link #run}. After a connection
+ * error the stream resumes from the last resume token; if the server no longer has that point in
+ * its oplog, or the collection is dropped, the consumer gets a RESYNC event instead.
+ */
+public class ProductChangeStreamListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeStreamListener.class);
+
+    // ChangeStreamHistoryLost, ChangeStreamFatalError, InvalidResumeToken
+    private static final Set<Integer> NOT_RESUMABLE = Set.of(286, 280, 260);
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final Consumer<ProductChangeEvent> consumer;
+    private final AtomicLong events = new AtomicLong();
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+    private volatile boolean running = true;
+    private BsonDocument resumeToken;
+
+    public ProductChangeStreamListener(MongoTemplate mongoTemplate, Consumer<ProductChangeEvent> consumer) {
+        this.mongoTemplate = mongoTemplate;
+        this.consumer = consumer;
+    }
+
+    // Open before loading the collection so nothing written during the load is missed; throws on
+    // deployments without change streams (a standalone server)
+    public void open() {
+        cursor = watch(null);
+        resumeToken = cursor.getResumeToken();
+    }
+
+    public void run() {
+        long backoff = 1000;
+        while (running) {
+            try {
+                MongoChangeStreamCursor<ChangeStreamDocument<Document>> current = cursor;
+                if (current == null) {
+                    current = reopen();
+                }
+                while (running && cursor == current) {
+                    ChangeStreamDocument<Document> change = current.tryNext();
+                    if (change != null) {
+                        dispatch(change);
+                        backoff = 1000;
+                    }
+                    // Also advances past empty batches, so a resume does not replay what was filtered out
+                    if (cursor == current && current.getResumeToken() != null) {
+                        resumeToken = current.getResumeToken();
+                    }
+                }
+            } catch (MongoException e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Product change stream failed, reconnecting in {} ms: {}", backoff, e.getMessage());
+                closeCursor();
+                sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    public void close() {
+        running = false;
+        closeCursor();
+    }
+
+    public long getEventCount() {
+        return events.get();
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> reopen() {
+        if (resumeToken != null) {
+            try {
+                cursor = watch(resumeToken);
+                return cursor;
+            } catch (MongoCommandException e) {
+                if (!NOT_RESUMABLE.contains(e.getErrorCode())) {
+                    throw e;
+                }
+                log.warn("Product change stream cannot resume ({}), reloading the index", e.getErrorCodeName());
+            }
+        }
+        cursor = watch(null);
+        resumeToken = cursor.getResumeToken();
+        consumer.accept(ProductChangeEvent.resync());
+        return cursor;
+    }
+
+    private void dispatch(ChangeStreamDocument<Document> change) {
+        events.incrementAndGet();
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                String id = idOf(change.getDocumentKey());
+                Document full = change.getFullDocument();
+                // The lookup finds nothing when the document was deleted right after the update
+                consumer.accept(full == null
+                    ? new ProductChangeEvent(ProductChangeEvent.Type.DELETE, id, null)
+                    : new ProductChangeEvent(ProductChangeEvent.Type.UPSERT, id,
+                        mongoTemplate.getConverter().read(Product.class, full)));
+            }
+            case DELETE -> consumer.accept(new ProductChangeEvent(ProductChangeEvent.Type.DELETE,
+                idOf(change.getDocumentKey()), null));
+            case DROP, RENAME, DROP_DATABASE, INVALIDATE -> {
+                // The stream is closed after these; start a fresh one and reload
+                closeCursor();
+                resumeToken = null;
+            }
+            default -> {
+                // Index and collection-option changes do not affect the indexed fields
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> watch(BsonDocument resumeAfter) {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class))
+            .watch(List.of(Aggregates.match(Filters.in("operationType",
+                List.of("insert", "update", "replace", "delete", "drop", "rename", "dropDatabase", "invalidate")))))
+            .fullDocument(FullDocument.UPDATE_LOOKUP)
+            .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeAfter != null) {
+            stream.resumeAfter(resumeAfter);
+        }
+        return stream.cursor();
+    }
+
+    private void closeCursor() {
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> current = cursor;
+        cursor = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (MongoException ignored) {
+                // Already broken; nothing left to release
+            }
+        }
+    }
+
+    // Spring Data stores String ids that look like ObjectIds as ObjectIds
+    private static String idOf(BsonDocument documentKey) {
+        BsonValue id = documentKey != null ? documentKey.get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package org.example.service.search;
+
+import com.mongodb.MongoException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.document.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Product search served from an in-memory {@link InvertedIndex} instead of $regex scans. The index
+ * is loaded from Mongo in the background at startup and kept current from a change stream; on a
+ * standalone server, which has no change streams, it is rebuilt periodically instead. Until the
+ * first load finishes, searches fall back to an (escaped) regex query against Mongo.
+ */
+@Service
+@ConditionalOnExpression("'${spring.data.mongodb.uri:}' != '' and ${catalog.search.enabled:true}")
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Only used when change streams are unavailable
+    @Value("${catalog.search.rebuild-interval-ms:300000}")
+    private long rebuildIntervalMs;
+
+    @Value("${catalog.search.compact-dead-ratio:0.25}")
+    private double compactDeadRatio;
+
+    @Value("${catalog.search.load-batch-size:5000}")
+    private int loadBatchSize;
+
+    /** active=null matches active and inactive products alike. */
+    public record SearchQuery(String text, String category, BigDecimal minPrice, BigDecimal maxPrice,
+                              Boolean active, int offset, int limit) {}
+
+    /** indexed is false for results served by the Mongo fallback. */
+    public record SearchResult(long total, List<String> productIds, long tookMicros, boolean indexed) {
+        SearchResult(long total, List<String> productIds, long tookMicros) {
+            this(total, productIds, tookMicros, true);
+        }
+    }
+
+    private volatile InvertedIndex index = new InvertedIndex();
+    private volatile boolean ready;
+    private volatile boolean running;
+    private volatile String mode = "starting";
+    private ProductChangeStreamListener listener;
+    private Thread worker;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong fallbackSearches = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong upserts = new AtomicLong();
+    private final AtomicLong deletes = new AtomicLong();
+    private volatile long lastLoadMs = -1;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = new ProductChangeStreamListener(mongoTemplate, this::apply);
+        worker = new Thread(this::maintain, "product-search-index");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        listener.close();
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public SearchResult search(SearchQuery query) {
+        searches.incrementAndGet();
+        if (!ready) {
+            fallbackSearches.incrementAndGet();
+            return searchMongo(query);
+        }
+        return index.search(query);
+    }
+
+    // Full documents for a page of ids, in the order given
+    public List<Product> fetch(List<String> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Product> byId = new HashMap<>();
+        for (Product product : mongoTemplate.find(Query.query(Criteria.where("_id").in(productIds)), Product.class)) {
+            byId.put(product.getId(), product);
+        }
+        List<Product> ordered = new ArrayList<>(productIds.size());
+        for (String id : productIds) {
+            Product product = byId.get(id);
+            if (product != null) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>(index.getStats());
+        stats.put("ready", ready);
+        stats.put("mode", mode);
+        stats.put("searches", searches.get());
+        stats.put("fallbackSearches", fallbackSearches.get());
+        stats.put("loads", loads.get());
+        stats.put("lastLoadMs", lastLoadMs);
+        stats.put("compactions", compactions.get());
+        stats.put("changeEvents", listener.getEventCount());
+        stats.put("upserts", upserts.get());
+        stats.put("deletes", deletes.get());
+        return stats;
+    }
+
+    // Runs on the worker thread: the only thread that writes to the index
+    private void maintain() {
+        boolean streaming;
+        try {
+            listener.open();
+            streaming = true;
+            mode = "change-stream";
+        } catch (MongoException e) {
+            streaming = false;
+            mode = "polling";
+            log.info("Mongo change streams unavailable ({}); rebuilding the product search index every {} ms",
+                e.getMessage(), rebuildIntervalMs);
+        }
+
+        while (running && !ready) {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("Failed to load the product search index, retrying", e);
+                sleep(Math.min(rebuildIntervalMs, 10_000));
+            }
+        }
+        if (streaming) {
+            listener.run();
+            return;
+        }
+        while (running) {
+            sleep(rebuildIntervalMs);
+            try {
+                if (running) {
+                    reload();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to rebuild the product search index", e);
+            }
+        }
+    }
+
+    private void apply(ProductChangeEvent event) {
+        switch (event.type()) {
+            case UPSERT -> {
+                index.upsert(event.product());
+                upserts.incrementAndGet();
+            }
+            case DELETE -> {
+                if (event.productId() != null && index.remove(event.productId())) {
+                    deletes.incrementAndGet();
+                }
+            }
+            case RESYNC -> reload();
+        }
+        compactIfNeeded();
+    }
+
+    // Reads go on against the current index while the replacement is built
+    private void reload() {
+        long start = System.currentTimeMillis();
+        InvertedIndex fresh = new InvertedIndex();
+        Query query = new Query();
+        query.fields().include("name", "description", "tags", "category", "price", "isActive");
+        query.cursorBatchSize(loadBatchSize);
+        try (Stream<Product> products = mongoTemplate.stream(query, Product.class)) {
+            products.forEach(fresh::upsert);
+        }
+        index = fresh;
+        ready = true;
+        loads.incrementAndGet();
+        lastLoadMs = System.currentTimeMillis() - start;
+        log.info("Product search index loaded in {} ms: {}", lastLoadMs, fresh.getStats());
+    }
+
+    private void compactIfNeeded() {
+        InvertedIndex current = index;
+        int dead = current.deadDocs();
+        int live = current.liveDocs();
+        if (dead >= 1000 && dead > compactDeadRatio * (dead + live)) {
+            index = current.compact();
+            compactions.incrementAndGet();
+        }
+    }
+
+    // Same matching rules as the index (every term a substring of name, description or a tag),
+    // with the terms escaped so user input is never interpreted as a pattern
+    private SearchResult searchMongo(SearchQuery query) {
+        long start = System.nanoTime();
+        List<Criteria> criteria = new ArrayList<>();
+        Set<String> terms = new LinkedHashSet<>();
+        InvertedIndex.tokenize(query.text(), terms, Integer.MAX_VALUE);
+        for (String term : terms) {
+            Pattern pattern = Pattern.compile(Pattern.quote(term), Pattern.CASE_INSENSITIVE);
+            criteria.add(new Criteria().orOperator(
+                Criteria.where("name").regex(pattern),
+                Criteria.where("description").regex(pattern),
+                Criteria.where("tags").regex(pattern)));
+        }
+        if (query.category() != null) {
+            criteria.add(Criteria.where("category").is(query.category()));
+        }
+        if (query.minPrice() != null || query.maxPrice() != null) {
+            Criteria price = Criteria.where("price");
+            if (query.minPrice() != null) {
+                price.gte(query.minPrice());
+            }
+            if (query.maxPrice() != null) {
+                price.lte(query.maxPrice());
+            }
+            criteria.add(price);
+        }
+        if (query.active() != null) {
+            criteria.add(query.active()
+                ? Criteria.where("isActive").is(true)
+                : Criteria.where("isActive").ne(true));
+        }
+
+        Query mongoQuery = criteria.isEmpty() ? new Query() : Query.query(new Criteria().andOperator(criteria));
+        long total = mongoTemplate.count(mongoQuery, Product.class);
+        mongoQuery.skip(Math.max(0, query.offset())).limit(Math.max(0, query.limit()));
+        mongoQuery.fields().include("_id");
+        List<String> ids = new ArrayList<>();
+        // Mongo treats limit 0 as no limit
+        if (query.limit() > 0) {
+            for (Product product : mongoTemplate.find(mongoQuery, Product.class)) {
+                ids.add(product.getId());
+            }
+        }
+        return new SearchResult(total, ids, (System.nanoTime() - start) / 1_000, false);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
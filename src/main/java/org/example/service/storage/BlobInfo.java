@@ -0,0 +1,12 @@
+package org.example.service.storage;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * What a {@link BlobStore} knows about one stored object. Listings leave metadata empty and
+ * contentType null; {@link BlobStore#head} fills them in. size is the length a read returns, or -1
+ * when that is unknown (an S3 object compressed while streaming up); listings report stored sizes.
+ */
+public record BlobInfo(String key, long size, Instant lastModified, String eTag, String contentType,
+                       Map<String, String> metadata) {}
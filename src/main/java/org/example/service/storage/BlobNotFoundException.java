@@ -0,0 +1,8 @@
+package org.example.service.storage;
+
+public class BlobNotFoundException extends RuntimeException {
+
+    public BlobNotFoundException(String bucket, String key) {
+        super("No such blob: " + bucket + "/" + key);
+    }
+}
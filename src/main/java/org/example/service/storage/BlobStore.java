@@ -0,0 +1,53 @@
+package org.example.service.storage;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Object storage behind one API, selected by storage.backend: "s3" (default, needs aws.region)
+ * or "local" (plain files under storage.local.root). Reads of a missing key throw
+ * {@link BlobNotFoundException}; other failures are RuntimeExceptions from the backend.
+ */
+public interface BlobStore {
+
+    String getDefaultBucket();
+
+    void put(String bucket, String key, byte[] data);
+
+    // Streams of unknown length; never buffered whole
+    void put(String bucket, String key, InputStream data);
+
+    byte[] get(String bucket, String key);
+
+    // Read-only; memory-mapped where the backend keeps files locally
+    ByteBuffer getBuffer(String bucket, String key);
+
+    // Caller must close the stream
+    InputStream openStream(String bucket, String key);
+
+    // Zero-copy where the backend allows it; returns the number of bytes written
+    long transferTo(String bucket, String key, WritableByteChannel target);
+
+    void getToFile(String bucket, String key, Path target);
+
+    // Null when the key does not exist
+    BlobInfo head(String bucket, String key);
+
+    boolean exists(String bucket, String key);
+
+    // Caller must close the stream
+    Stream<BlobInfo> list(String bucket, String prefix);
+
+    void copy(String sourceBucket, String sourceKey, String destinationBucket, String destinationKey);
+
+    boolean delete(String bucket, String key);
+
+    Map<String, String> getMetadata(String bucket, String key);
+
+    // Replaces the user metadata wholesale, like an S3 copy with the REPLACE directive
+    void setMetadata(String bucket, String key, Map<String, String> metadata);
+}
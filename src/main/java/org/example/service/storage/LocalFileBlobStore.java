@@ -0,0 +1,409 @@
+package org.example.service.storage;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * {@link BlobStore} on the local filesystem: each bucket is a directory under storage.local.root
+ * and each key a file beneath it. Every write lands in a temp file first and is renamed into
+ * place, so readers see the old or the new object, never a partial one. Reads are zero-copy
+ * (FileChannel.transferTo, or a memory-mapped buffer). User metadata lives in a properties
+ * sidecar under .metadata/, outside the bucket directories, so listings only see objects.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalFileBlobStore implements BlobStore {
+
+    private static final String METADATA_DIR = ".metadata";
+    private static final String TEMP_DIR = ".tmp";
+
+    @Value("${storage.local.root:${java.io.tmpdir}/blob-store}")
+    private String rootDir;
+
+    @Value("${storage.bucket:${aws.s3.bucket:default}}")
+    private String defaultBucket;
+
+    // fsync before the rename; off by default, as for S3 a completed PUT is what callers wait for
+    @Value("${storage.local.fsync:false}")
+    private boolean fsync;
+
+    private Path root;
+    private Path tempDir;
+
+    @PostConstruct
+    public void init() {
+        try {
+            root = Path.of(rootDir).toAbsolutePath().normalize();
+            tempDir = root.resolve(TEMP_DIR);
+            Files.createDirectories(tempDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create blob store at " + rootDir, e);
+        }
+    }
+
+    @Override
+    public String getDefaultBucket() {
+        return defaultBucket;
+    }
+
+    @Override
+    public void put(String bucket, String key, byte[] data) {
+        Path target = objectPath(bucket, key);
+        Path temp = newTempFile();
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (fsync) {
+                    channel.force(false);
+                }
+            }
+            commit(temp, target);
+            // A new object starts without user metadata, as after an S3 PUT
+            Files.deleteIfExists(metadataPath(bucket, key));
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Failed to store " + bucket + "/" + key, e);
+        }
+    }
+
+    @Override
+    public void put(String bucket, String key, InputStream data) {
+        Path target = objectPath(bucket, key);
+        Path temp = newTempFile();
+        try {
+            try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.WRITE)) {
+                data.transferTo(out);
+            }
+            if (fsync) {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.force(false);
+                }
+            }
+            commit(temp, target);
+            Files.deleteIfExists(metadataPath(bucket, key));
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Failed to store " + bucket + "/" + key, e);
+        }
+    }
+
+    @Override
+    public byte[] get(String bucket, String key) {
+        try {
+            return Files.readAllBytes(objectPath(bucket, key));
+        } catch (NoSuchFileException e) {
+            throw new BlobNotFoundException(bucket, key);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + bucket + "/" + key, e);
+        }
+    }
+
+    // The mapping stays valid after the file is replaced or deleted; it shows the old object
+    @Override
+    public ByteBuffer getBuffer(String bucket, String key) {
+        try (FileChannel channel = FileChannel.open(objectPath(bucket, key), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            throw new BlobNotFoundException(bucket, key);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + bucket + "/" + key, e);
+        }
+    }
+
+    @Override
+    public InputStream openStream(String bucket, String key) {
+        try {
+            return Files.newInputStream(objectPath(bucket, key));
+        } catch (NoSuchFileException e) {
+            throw new BlobNotFoundException(bucket, key);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + bucket + "/" + key, e);
+        }
+    }
+
+    // sendfile(2) when the target is a socket or file channel
+    @Override
+    public long transferTo(String bucket, String key, WritableByteChannel target) {
+        try (FileChannel channel = FileChannel.open(objectPath(bucket, key), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            return size;
+        } catch (NoSuchFileException e) {
+            throw new BlobNotFoundException(bucket, key);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + bucket + "/" + key, e);
+        }
+    }
+
+    @Override
+    public void getToFile(String bucket, String key, Path target) {
+        Path absolute = target.toAbsolutePath();
+        try {
+            if (absolute.getParent() != null) {
+                Files.createDirectories(absolute.getParent());
+            }
+            Path temp = absolute.resolveSibling(absolute.getFileName() + ".part");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                transferTo(bucket, key, out);
+            } catch (RuntimeException e) {
+                deleteQuietly(temp);
+                throw e;
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to copy " + bucket + "/" + key + " to " + target, e);
+        }
+    }
+
+    @Override
+    public BlobInfo head(String bucket, String key) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(objectPath(bucket, key), BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return info(key, attributes, readMetadata(bucket, key));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to stat " + bucket + "/" + key, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String bucket, String key) {
+        return Files.isRegularFile(objectPath(bucket, key));
+    }
+
+    // Walks only the directory the prefix points into; objects come back in no particular order
+    @Override
+    public Stream<BlobInfo> list(String bucket, String prefix) {
+        Path bucketDir = bucketPath(bucket);
+        String normalizedPrefix = prefix == null ? "" : prefix;
+        int slash = normalizedPrefix.lastIndexOf('/');
+        Path start = slash <= 0 ? bucketDir : resolveInside(bucketDir, normalizedPrefix.substring(0, slash));
+        if (!Files.isDirectory(start)) {
+            return Stream.empty();
+        }
+
+        try {
+            return Files.walk(start)
+                .filter(Files::isRegularFile)
+                .map(path -> bucketDir.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/"))
+                .filter(key -> key.startsWith(normalizedPrefix))
+                .map(key -> {
+                    try {
+                        Path path = objectPath(bucket, key);
+                        return info(key, Files.readAttributes(path, BasicFileAttributes.class), Map.of());
+                    } catch (IOException e) {
+                        return null; // deleted while walking
+                    }
+                })
+                .filter(Objects::nonNull);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list " + bucket + "/" + normalizedPrefix, e);
+        }
+    }
+
+    @Override
+    public void copy(String sourceBucket, String sourceKey, String destinationBucket, String destinationKey) {
+        Path source = objectPath(sourceBucket, sourceKey);
+        Path target = objectPath(destinationBucket, destinationKey);
+        Path temp = newTempFile();
+        try {
+            Map<String, String> metadata = readMetadata(sourceBucket, sourceKey);
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            commit(temp, target);
+            writeMetadata(destinationBucket, destinationKey, metadata);
+        } catch (NoSuchFileException e) {
+            deleteQuietly(temp);
+            throw new BlobNotFoundException(sourceBucket, sourceKey);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Failed to copy " + sourceBucket + "/" + sourceKey, e);
+        }
+    }
+
+    @Override
+    public boolean delete(String bucket, String key) {
+        Path path = objectPath(bucket, key);
+        try {
+            boolean deleted = Files.deleteIfExists(path);
+            Files.deleteIfExists(metadataPath(bucket, key));
+            pruneEmptyParents(path.getParent(), bucketPath(bucket));
+            return deleted;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete " + bucket + "/" + key, e);
+        }
+    }
+
+    @Override
+    public Map<String, String> getMetadata(String bucket, String key) {
+        if (!exists(bucket, key)) {
+            throw new BlobNotFoundException(bucket, key);
+        }
+        try {
+            return readMetadata(bucket, key);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read metadata of " + bucket + "/" + key, e);
+        }
+    }
+
+    @Override
+    public void setMetadata(String bucket, String key, Map<String, String> metadata) {
+        if (!exists(bucket, key)) {
+            throw new BlobNotFoundException(bucket, key);
+        }
+        try {
+            writeMetadata(bucket, key, metadata);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write metadata of " + bucket + "/" + key, e);
+        }
+    }
+
+    private BlobInfo info(String key, BasicFileAttributes attributes, Map<String, String> metadata) {
+        long modified = attributes.lastModifiedTime().toMillis();
+        // Cheap validator in the spirit of an S3 ETag: changes whenever the file is rewritten
+        String eTag = "\"" + Long.toHexString(modified) + "-" + Long.toHexString(attributes.size()) + "\"";
+        return new BlobInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant(), eTag,
+            URLConnection.guessContentTypeFromName(key), metadata);
+    }
+
+    private Map<String, String> readMetadata(String bucket, String key) throws IOException {
+        Path path = metadataPath(bucket, key);
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return Map.of();
+        }
+        Map<String, String> metadata = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            metadata.put(name, properties.getProperty(name));
+        }
+        return metadata;
+    }
+
+    private void writeMetadata(String bucket, String key, Map<String, String> metadata) throws IOException {
+        Path path = metadataPath(bucket, key);
+        if (metadata == null || metadata.isEmpty()) {
+            Files.deleteIfExists(path);
+            return;
+        }
+        Properties properties = new Properties();
+        properties.putAll(metadata);
+        Path temp = newTempFile();
+        try {
+            try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.WRITE)) {
+                properties.store(out, null);
+            }
+            commit(temp, path);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    private void commit(Path temp, Path target) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                return;
+            } catch (NoSuchFileException e) {
+                // a concurrent delete pruned the directory we just created
+                if (attempt >= 2) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private Path newTempFile() {
+        try {
+            return Files.createFile(tempDir.resolve(UUID.randomUUID() + ".tmp"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create temp file in " + tempDir, e);
+        }
+    }
+
+    private void pruneEmptyParents(Path dir, Path stop) {
+        while (dir != null && dir.startsWith(stop) && !dir.equals(stop)) {
+            try {
+                Files.deleteIfExists(dir);
+            } catch (IOException e) {
+                return; // not empty, or someone else is writing into it
+            }
+            dir = dir.getParent();
+        }
+    }
+
+    private Path bucketPath(String bucket) {
+        if (bucket == null || bucket.isEmpty() || bucket.startsWith(".") || bucket.contains("/") || bucket.contains("\\")) {
+            throw new IllegalArgumentException("Invalid bucket name: " + bucket);
+        }
+        return root.resolve(bucket);
+    }
+
+    private Path objectPath(String bucket, String key) {
+        return resolveInside(bucketPath(bucket), key);
+    }
+
+    private Path metadataPath(String bucket, String key) {
+        return resolveInside(root.resolve(METADATA_DIR).resolve(bucketPath(bucket).getFileName()), key);
+    }
+
+    // Keys are relative paths; anything that would escape the bucket directory is rejected
+    private static Path resolveInside(Path dir, String key) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("Key must not be empty");
+        }
+        Path resolved = dir.resolve(key).normalize();
+        if (!resolved.startsWith(dir) || resolved.equals(dir)) {
+            throw new IllegalArgumentException("Invalid key: " + key);
+        }
+        return resolved;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // best effort; temp files are only ever left behind by a crash
+        }
+    }
+}
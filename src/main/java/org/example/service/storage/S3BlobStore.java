@@ -0,0 +1,177 @@
+package org.example.service.storage;
+
+import org.example.service.AwsService;
+import org.example.service.aws.CompressionCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * {@link BlobStore} on top of {@link AwsService}, so S3 blobs get the same multipart uploads,
+ * ranged downloads and caches as direct AwsService callers.
+ */
+@Component
+@ConditionalOnExpression("'${storage.backend:s3}' == 's3' and '${aws.region:}' != ''")
+public class S3BlobStore implements BlobStore {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private AwsService awsService;
+
+    @Override
+    public String getDefaultBucket() {
+        return awsService.getDefaultBucket();
+    }
+
+    @Override
+    public void put(String bucket, String key, byte[] data) {
+        awsService.uploadFile(bucket, key, data);
+    }
+
+    @Override
+    public void put(String bucket, String key, InputStream data) {
+        awsService.uploadFile(bucket, key, data);
+    }
+
+    @Override
+    public byte[] get(String bucket, String key) {
+        try {
+            return awsService.downloadFile(bucket, key);
+        } catch (RuntimeException e) {
+            throw translate(e, bucket, key);
+        }
+    }
+
+    @Override
+    public ByteBuffer getBuffer(String bucket, String key) {
+        return ByteBuffer.wrap(get(bucket, key)).asReadOnlyBuffer();
+    }
+
+    @Override
+    public InputStream openStream(String bucket, String key) {
+        try {
+            return awsService.openDecodedStream(bucket, key);
+        } catch (RuntimeException e) {
+            throw translate(e, bucket, key);
+        }
+    }
+
+    @Override
+    public long transferTo(String bucket, String key, WritableByteChannel target) {
+        try (InputStream in = awsService.openDecodedStream(bucket, key)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    target.write(chunk);
+                }
+                total += read;
+            }
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to transfer " + bucket + "/" + key, e);
+        } catch (RuntimeException e) {
+            throw translate(e, bucket, key);
+        }
+    }
+
+    @Override
+    public void getToFile(String bucket, String key, Path target) {
+        try {
+            awsService.downloadToFile(bucket, key, target);
+        } catch (RuntimeException e) {
+            throw translate(e, bucket, key);
+        }
+    }
+
+    @Override
+    public BlobInfo head(String bucket, String key) {
+        HeadObjectResponse head = awsService.headObject(bucket, key);
+        if (head == null) {
+            return null;
+        }
+        return new BlobInfo(key, decodedSize(head), head.lastModified(), head.eTag(), head.contentType(),
+            head.metadata());
+    }
+
+    @Override
+    public boolean exists(String bucket, String key) {
+        return awsService.fileExists(bucket, key);
+    }
+
+    @Override
+    public Stream<BlobInfo> list(String bucket, String prefix) {
+        return awsService.streamObjects(bucket, prefix)
+            .map(object -> new BlobInfo(object.key(), object.size(), object.lastModified(), object.eTag(),
+                null, Map.of()));
+    }
+
+    @Override
+    public void copy(String sourceBucket, String sourceKey, String destinationBucket, String destinationKey) {
+        try {
+            awsService.copyObject(sourceBucket, sourceKey, destinationBucket, destinationKey);
+        } catch (RuntimeException e) {
+            throw translate(e, sourceBucket, sourceKey);
+        }
+    }
+
+    @Override
+    public boolean delete(String bucket, String key) {
+        return awsService.deleteFile(bucket, key);
+    }
+
+    @Override
+    public Map<String, String> getMetadata(String bucket, String key) {
+        BlobInfo info = head(bucket, key);
+        if (info == null) {
+            throw new BlobNotFoundException(bucket, key);
+        }
+        return info.metadata();
+    }
+
+    @Override
+    public void setMetadata(String bucket, String key, Map<String, String> metadata) {
+        try {
+            awsService.setObjectMetadata(bucket, key, metadata);
+        } catch (RuntimeException e) {
+            throw translate(e, bucket, key);
+        }
+    }
+
+    // Reads return decoded bytes, so a compressed object's stored length is not its blob size
+    private static long decodedSize(HeadObjectResponse head) {
+        if (CompressionCodec.fromEncoding(head.contentEncoding()) == null) {
+            return head.contentLength();
+        }
+        String size = head.metadata().get(CompressionCodec.UNCOMPRESSED_SIZE_METADATA);
+        try {
+            return size != null ? Long.parseLong(size) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // AwsService wraps SDK failures; surface a missing key the same way the local backend does
+    private static RuntimeException translate(RuntimeException e, String bucket, String key) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof NoSuchKeyException) {
+                return new BlobNotFoundException(bucket, key);
+            }
+        }
+        return e;
+    }
+}